@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.practicum.shareit.booking.exception.BookingPeriodIsNotValidException;
 import ru.practicum.shareit.booking.exception.IncorrectBookingStatusException;
 import ru.practicum.shareit.exception.PageableIsNotValidException;
+import ru.practicum.shareit.item.exception.AvailabilityPeriodIsNotValidException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -27,7 +28,11 @@ public class ExceptionControllerAdvice {
         return errors;
     }
 
-    @ExceptionHandler({PageableIsNotValidException.class, BookingPeriodIsNotValidException.class,})
+    @ExceptionHandler({
+            PageableIsNotValidException.class,
+            BookingPeriodIsNotValidException.class,
+            AvailabilityPeriodIsNotValidException.class
+    })
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleBadRequestExceptions(RuntimeException ex) {
         return Map.of("message", ex.getMessage());
@@ -1,48 +1,66 @@
 package ru.practicum.shareit.booking.client;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.CreateBookingBatchDto;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.GetRequestCoalescer;
+import ru.practicum.shareit.client.NonBlockingServerClient;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(
+            @Value("${shareit-server.url}") String serverUrl,
+            RestTemplateBuilder builder,
+            ClientHttpRequestFactory serverRequestFactory,
+            ObjectProvider<NonBlockingServerClient> nonBlockingClient,
+            ObjectProvider<GetRequestCoalescer> getRequestCoalescer
+    ) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> serverRequestFactory)
+                        .build(),
+                nonBlockingClient.getIfAvailable(),
+                getRequestCoalescer.getIfAvailable()
         );
     }
 
-    public ResponseEntity<Object> createBooking(long userId, CreateBookingDto newBookingDto) {
+    public CompletableFuture<ResponseEntity<Object>> createBooking(long userId, CreateBookingDto newBookingDto) {
         return post("", userId, newBookingDto);
     }
 
-    public ResponseEntity<Object> approveBooking(long userId, long bookingId, boolean approved) {
+    public CompletableFuture<ResponseEntity<Object>> createBookings(long userId, CreateBookingBatchDto newBookingsDto) {
+        return post("/batch", userId, newBookingsDto);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> approveBooking(long userId, long bookingId, boolean approved) {
         Map<String, Object> parameters = Map.of(
                 "approved", approved
         );
         return patch("/" + bookingId + "?approved={approved}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getBookingById(long userId, long bookingId) {
+    public CompletableFuture<ResponseEntity<Object>> getBookingById(long userId, long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getUserBookings(long userId, BookingState state, int from, int size) {
+    public CompletableFuture<ResponseEntity<Object>> getUserBookings(long userId, BookingState state, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "state", state,
                 "from", from,
@@ -51,7 +69,25 @@ public class BookingClient extends BaseClient {
         return get("?state={state}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getOwnedItemsBookings(long userId, BookingState state, int from, int size) {
+    public ResponseEntity<StreamingResponseBody> streamUserBookings(long userId, BookingState state, int from, int size) {
+        Map<String, Object> parameters = Map.of(
+                "state", state,
+                "from", from,
+                "size", size
+        );
+        return stream("?state={state}&from={from}&size={size}", userId, parameters);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> getUserBookingsAfter(long userId, BookingState state, String cursor, int size) {
+        Map<String, Object> parameters = Map.of(
+                "state", state,
+                "cursor", cursor,
+                "size", size
+        );
+        return get("?state={state}&cursor={cursor}&size={size}", userId, parameters);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> getOwnedItemsBookings(long userId, BookingState state, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "state", state,
                 "from", from,
@@ -59,4 +95,13 @@ public class BookingClient extends BaseClient {
         );
         return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
     }
-}
\ No newline at end of file
+
+    public ResponseEntity<StreamingResponseBody> streamOwnedItemsBookings(long userId, BookingState state, int from, int size) {
+        Map<String, Object> parameters = Map.of(
+                "state", state,
+                "from", from,
+                "size", size
+        );
+        return stream("/owner?state={state}&from={from}&size={size}", userId, parameters);
+    }
+}
@@ -1,11 +1,14 @@
 package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.client.BookingClient;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.CreateBookingBatchDto;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
 import ru.practicum.shareit.booking.exception.BookingPeriodIsNotValidException;
 import ru.practicum.shareit.exception.PageableIsNotValidException;
@@ -14,6 +17,7 @@ import ru.practicum.shareit.pagination.PageableValidator;
 
 import javax.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping(path = "/bookings")
@@ -24,7 +28,7 @@ public class BookingController {
     private final BookingClient bookingClient;
 
     @PostMapping
-    public ResponseEntity<Object> createBooking(
+    public CompletableFuture<ResponseEntity<Object>> createBooking(
             @RequestHeader(value = "X-Sharer-User-Id") long userId,
             @Valid @RequestBody CreateBookingDto newBookingDto
     ) {
@@ -35,8 +39,20 @@ public class BookingController {
         return bookingClient.createBooking(userId, newBookingDto);
     }
 
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<Object>> createBookings(
+            @RequestHeader(value = "X-Sharer-User-Id") long userId,
+            @Valid @RequestBody CreateBookingBatchDto newBookingsDto
+    ) {
+        if (!newBookingsDto.getBookings().stream().allMatch(this::isBookingPeriodValid)) {
+            throw new BookingPeriodIsNotValidException();
+        }
+
+        return bookingClient.createBookings(userId, newBookingsDto);
+    }
+
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> approveBooking(
+    public CompletableFuture<ResponseEntity<Object>> approveBooking(
             @RequestHeader("X-Sharer-User-Id") long userId,
             @PathVariable long bookingId,
             @RequestParam boolean approved
@@ -45,7 +61,7 @@ public class BookingController {
     }
 
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBookingById(
+    public CompletableFuture<ResponseEntity<Object>> getBookingById(
             @RequestHeader("X-Sharer-User-Id") long userId,
             @PathVariable long bookingId
     ) {
@@ -53,23 +69,44 @@ public class BookingController {
     }
 
     @GetMapping
-    public ResponseEntity<Object> getUserBookings(
+    public CompletableFuture<ResponseEntity<Object>> getUserBookings(
             @RequestHeader("X-Sharer-User-Id") long userId,
             @RequestParam(defaultValue = "ALL") BookingState state,
             @RequestParam(defaultValue = "0") int from,
-            @RequestParam(defaultValue = "2000") int size
+            @RequestParam(defaultValue = "2000") int size,
+            @RequestParam(required = false) String cursor
     ) {
         if (!PageableValidator.isValid(from, size)) {
             throw new PageableIsNotValidException();
         }
 
+        if (cursor != null) {
+            return bookingClient.getUserBookingsAfter(userId, state, cursor, size);
+        }
+
         int newFrom = PageableAdjuster.adjustFrom(from, size);
 
         return bookingClient.getUserBookings(userId, state, newFrom, size);
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUserBookings(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(defaultValue = "ALL") BookingState state,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "2000") int size
+    ) {
+        if (!PageableValidator.isValid(from, size)) {
+            throw new PageableIsNotValidException();
+        }
+
+        int newFrom = PageableAdjuster.adjustFrom(from, size);
+
+        return bookingClient.streamUserBookings(userId, state, newFrom, size);
+    }
+
     @GetMapping("/owner")
-    public ResponseEntity<Object> getOwnedItemsBookings(
+    public CompletableFuture<ResponseEntity<Object>> getOwnedItemsBookings(
             @RequestHeader("X-Sharer-User-Id") long ownerId,
             @RequestParam(defaultValue = "ALL") BookingState state,
             @RequestParam(defaultValue = "0") int from,
@@ -84,6 +121,22 @@ public class BookingController {
         return bookingClient.getOwnedItemsBookings(ownerId, state, newFrom, size);
     }
 
+    @GetMapping(path = "/owner", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOwnedItemsBookings(
+            @RequestHeader("X-Sharer-User-Id") long ownerId,
+            @RequestParam(defaultValue = "ALL") BookingState state,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "2000") int size
+    ) {
+        if (!PageableValidator.isValid(from, size)) {
+            throw new PageableIsNotValidException();
+        }
+
+        int newFrom = PageableAdjuster.adjustFrom(from, size);
+
+        return bookingClient.streamOwnedItemsBookings(ownerId, state, newFrom, size);
+    }
+
     private boolean isBookingPeriodValid(CreateBookingDto bookingDto) {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime start = bookingDto.getStart();
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CreateBookingBatchDto {
+    @NotEmpty(message = "Список бронирований не может быть пустым.")
+    @Size(max = 500, message = "За один запрос можно создать не более 500 бронирований.")
+    private List<@NotNull(message = "Бронирование в списке не может быть пустым.") @Valid CreateBookingDto> bookings;
+}
@@ -1,113 +1,259 @@
 package ru.practicum.shareit.client;
 
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.Nullable;
-import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class BaseClient {
+    // Заголовки соединения шлюза с сервером, клиенту шлюза они не передаются
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            "connection", "keep-alive", "proxy-authenticate", "proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade"
+    );
+
     protected final RestTemplate rest;
 
-    public BaseClient(RestTemplate rest) {
-        this.rest = rest;
-    }
+    @Nullable
+    private final NonBlockingServerClient nonBlockingClient;
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
-        }
+    @Nullable
+    private final GetRequestCoalescer getRequestCoalescer;
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+    public BaseClient(RestTemplate rest) {
+        this(rest, null, null);
+    }
 
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
-        }
+    /**
+     * Если передан неблокирующий клиент, запросы с JSON-ответом отправляются через него,
+     * иначе - через RestTemplate в потоке запроса, и возвращается уже завершенный CompletableFuture.
+     * Если передан {@link GetRequestCoalescer}, одинаковые одновременные GET-запросы объединяются.
+     */
+    public BaseClient(
+            RestTemplate rest,
+            @Nullable NonBlockingServerClient nonBlockingClient,
+            @Nullable GetRequestCoalescer getRequestCoalescer
+    ) {
+        this.rest = rest;
+        this.nonBlockingClient = nonBlockingClient;
+        this.getRequestCoalescer = getRequestCoalescer;
+    }
 
-        return responseBuilder.build();
+    static HttpHeaders gatewayHeaders(HttpHeaders shareitServerHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        shareitServerHeaders.forEach((name, values) -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.addAll(name, values);
+            }
+        });
+        return headers;
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, @Nullable Map<String, Object> parameters) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, long userId, @Nullable Map<String, Object> parameters) {
         return patch(path, userId, parameters, null);
     }
 
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+    /**
+     * Передает ответ сервера клиенту по мере получения, не собирая его в памяти шлюза.
+     * Ответ с ошибкой читается целиком и возвращается как есть.
+     */
+    protected ResponseEntity<StreamingResponseBody> stream(String path, long userId, Map<String, Object> parameters) {
+        ClientHttpResponse shareitServerResponse;
+        try {
+            URI uri = rest.getUriTemplateHandler().expand(path, parameters);
+            ClientHttpRequest request = rest.getRequestFactory().createRequest(uri, HttpMethod.GET);
+            request.getHeaders().addAll(streamHeaders(userId));
+            shareitServerResponse = request.execute();
+        } catch (IOException e) {
+            throw new ResourceAccessException("Ошибка запроса к серверу: " + e.getMessage(), e);
+        }
 
-        ResponseEntity<Object> shareitServerResponse;
+        return streamResponse(shareitServerResponse);
+    }
+
+    /**
+     * Передает серверу тело запроса по мере чтения и возвращает его ответ так же, как {@link #stream}.
+     * Тело не буферизуется, если фабрика запросов клиента настроена на потоковую передачу.
+     * Ответ сервера читается только после отправки всего тела: блокирующий HTTP-клиент не принимает ответ
+     * во время передачи запроса, поэтому строки, которые сервер пишет по ходу чтения, клиент шлюза
+     * получает после окончания загрузки.
+     */
+    protected ResponseEntity<StreamingResponseBody> streamUpload(
+            String path,
+            long userId,
+            MediaType contentType,
+            InputStream body
+    ) {
+        ClientHttpResponse shareitServerResponse;
         try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
+            URI uri = rest.getUriTemplateHandler().expand(path);
+            ClientHttpRequest request = rest.getRequestFactory().createRequest(uri, HttpMethod.POST);
+            request.getHeaders().addAll(streamHeaders(userId));
+            request.getHeaders().setContentType(contentType);
+            if (request instanceof StreamingHttpOutputMessage) {
+                ((StreamingHttpOutputMessage) request).setBody(body::transferTo);
             } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
+                body.transferTo(request.getBody());
+            }
+            shareitServerResponse = request.execute();
+        } catch (IOException e) {
+            throw new ResourceAccessException("Ошибка запроса к серверу: " + e.getMessage(), e);
+        }
+
+        return streamResponse(shareitServerResponse);
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamResponse(ClientHttpResponse shareitServerResponse) {
+        try {
+            ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(shareitServerResponse.getRawStatusCode())
+                    .contentType(shareitServerResponse.getHeaders().getContentType());
+            if (!shareitServerResponse.getStatusCode().is2xxSuccessful()) {
+                try (shareitServerResponse) {
+                    byte[] body = shareitServerResponse.getBody().readAllBytes();
+                    return responseBuilder.body(outputStream -> outputStream.write(body));
+                }
             }
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+
+            return responseBuilder.body(outputStream -> {
+                try (shareitServerResponse) {
+                    shareitServerResponse.getBody().transferTo(outputStream);
+                }
+            });
+        } catch (IOException e) {
+            shareitServerResponse.close();
+            throw new ResourceAccessException("Ошибка чтения ответа сервера: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Отправляет запрос серверу и отдает клиенту байты его ответа без разбора JSON:
+     * успешный ответ копируется в ответ шлюза по мере записи. Статус и заголовки ответа сервера сохраняются.
+     * В неблокирующем режиме запрос отправляет {@link NonBlockingServerClient}.
+     * Одинаковые одновременные GET-запросы объединяются в один запрос к серверу.
+     */
+    private <T> CompletableFuture<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        URI uri = parameters != null
+                ? rest.getUriTemplateHandler().expand(path, parameters)
+                : rest.getUriTemplateHandler().expand(path);
+        if (method == HttpMethod.GET && getRequestCoalescer != null) {
+            return getRequestCoalescer.coalesce(method + " " + uri + " " + userId, () -> sendRequest(method, uri, userId, body));
+        }
+
+        return sendRequest(method, uri, userId, body);
+    }
+
+    private <T> CompletableFuture<ResponseEntity<Object>> sendRequest(HttpMethod method, URI uri, Long userId, @Nullable T body) {
+        if (nonBlockingClient != null) {
+            return nonBlockingClient.send(method, uri, defaultHeaders(userId), body);
+        }
+
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+
+        ClientHttpResponse shareitServerResponse;
+        try {
+            ClientHttpRequest request = rest.getRequestFactory().createRequest(uri, method);
+            rest.httpEntityCallback(requestEntity).doWithRequest(request);
+            shareitServerResponse = request.execute();
+        } catch (IOException e) {
+            throw new ResourceAccessException("Ошибка запроса к серверу: " + e.getMessage(), e);
+        }
+
+        return CompletableFuture.completedFuture(passthroughResponse(shareitServerResponse));
+    }
+
+    private static ResponseEntity<Object> passthroughResponse(ClientHttpResponse shareitServerResponse) {
+        try {
+            HttpHeaders headers = gatewayHeaders(shareitServerResponse.getHeaders());
+            ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(shareitServerResponse.getRawStatusCode())
+                    .headers(headers);
+
+            // Ошибки и ответы без тела небольшие: они читаются сразу, и соединение возвращается в пул
+            if (headers.getContentType() == null || !shareitServerResponse.getStatusCode().is2xxSuccessful()) {
+                try (shareitServerResponse) {
+                    byte[] body = shareitServerResponse.getBody().readAllBytes();
+                    return body.length > 0 ? responseBuilder.body(body) : responseBuilder.build();
+                }
+            }
+
+            // Поток закрывается после записи ответа, соединение при этом возвращается в пул
+            return responseBuilder.body(new InputStreamResource(shareitServerResponse.getBody()));
+        } catch (IOException e) {
+            shareitServerResponse.close();
+            throw new ResourceAccessException("Ошибка чтения ответа сервера: " + e.getMessage(), e);
         }
-        return prepareGatewayResponse(shareitServerResponse);
     }
 
     private HttpHeaders defaultHeaders(Long userId) {
@@ -119,4 +265,11 @@ public class BaseClient {
         }
         return headers;
     }
+
+    private HttpHeaders streamHeaders(long userId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON));
+        headers.set("X-Sharer-User-Id", String.valueOf(userId));
+        return headers;
+    }
 }
\ No newline at end of file
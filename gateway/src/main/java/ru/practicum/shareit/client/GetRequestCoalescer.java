@@ -0,0 +1,95 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Объединяет одинаковые одновременные GET-запросы к серверу: пока первый запрос выполняется,
+ * такие же запросы не уходят на сервер, а ждут его ответ. Запросы считаются одинаковыми,
+ * если совпадают адрес с параметрами и пользователь.
+ * Ответ, который ждут несколько клиентов, читается в память целиком; ответ одному клиенту передается потоком.
+ */
+public class GetRequestCoalescer {
+    private final Map<String, InFlightRequest> inFlightRequests = new ConcurrentHashMap<>();
+    private final Counter upstream;
+    private final Counter coalesced;
+
+    public GetRequestCoalescer(MeterRegistry meterRegistry) {
+        this.upstream = meterRegistry.counter("shareit.gateway.get.requests", "result", "upstream");
+        this.coalesced = meterRegistry.counter("shareit.gateway.get.requests", "result", "coalesced");
+    }
+
+    CompletableFuture<ResponseEntity<Object>> coalesce(String key, Supplier<CompletableFuture<ResponseEntity<Object>>> request) {
+        InFlightRequest created = new InFlightRequest();
+        InFlightRequest inFlightRequest = inFlightRequests.compute(key, (k, existing) -> {
+            if (existing == null) {
+                return created;
+            }
+
+            existing.followers.incrementAndGet();
+            return existing;
+        });
+        if (inFlightRequest != created) {
+            coalesced.increment();
+            return inFlightRequest.response;
+        }
+
+        upstream.increment();
+        CompletableFuture<ResponseEntity<Object>> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            inFlightRequests.remove(key, created);
+            created.response.completeExceptionally(e);
+            throw e;
+        }
+
+        response.whenComplete((result, e) -> {
+            // После удаления к запросу никто не присоединится, число ожидающих больше не меняется
+            inFlightRequests.remove(key, created);
+            if (e != null) {
+                created.response.completeExceptionally(e);
+                return;
+            }
+
+            try {
+                created.response.complete(created.followers.get() > 0 ? shareable(result) : result);
+            } catch (RuntimeException shareError) {
+                created.response.completeExceptionally(shareError);
+            }
+        });
+        return created.response;
+    }
+
+    int inFlightRequests() {
+        return inFlightRequests.size();
+    }
+
+    private static ResponseEntity<Object> shareable(ResponseEntity<Object> response) {
+        if (!(response.getBody() instanceof InputStreamResource)) {
+            return response;
+        }
+
+        try (InputStream body = ((InputStreamResource) response.getBody()).getInputStream()) {
+            return new ResponseEntity<>(body.readAllBytes(), response.getHeaders(), response.getStatusCode());
+        } catch (IOException e) {
+            throw new ResourceAccessException("Ошибка чтения ответа сервера: " + e.getMessage(), e);
+        }
+    }
+
+    private static class InFlightRequest {
+        private final CompletableFuture<ResponseEntity<Object>> response = new CompletableFuture<>();
+        private final AtomicInteger followers = new AtomicInteger();
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пул соединений с сервером, который замеряет, сколько поток шлюза ждал свободное соединение.
+ */
+class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+    static final String LEASE_TIMER = "httpcomponents.httpclient.pool.lease";
+
+    private final Timer leased;
+    private final Timer timedOut;
+
+    InstrumentedConnectionManager(MeterRegistry meterRegistry, String name) {
+        this.leased = leaseTimer(meterRegistry, name, "leased");
+        this.timedOut = leaseTimer(meterRegistry, name, "timeout");
+    }
+
+    private static Timer leaseTimer(MeterRegistry meterRegistry, String name, String result) {
+        return Timer.builder(LEASE_TIMER)
+                .description("Время ожидания соединения из пула")
+                .tag("httpclient", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        ConnectionRequest request = super.requestConnection(route, state);
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                long start = System.nanoTime();
+                try {
+                    HttpClientConnection connection = request.get(timeout, timeUnit);
+                    leased.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return connection;
+                } catch (ConnectionPoolTimeoutException e) {
+                    timedOut.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    throw e;
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+}
@@ -0,0 +1,122 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.client.ResourceAccessException;
+import ru.practicum.shareit.ratelimit.ServerLatencyMonitor;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Неблокирующая отправка запросов серверу. Поток шлюза не ждет ответа сервера: ответ собирается
+ * в памяти и отдается клиенту, когда придет. Число одновременных запросов ограничено maxInFlight,
+ * сверх этого шлюз сразу отвечает 503.
+ */
+public class NonBlockingServerClient {
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final ServerLatencyMonitor serverLatencyMonitor;
+    private final Duration readTimeout;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+
+    public NonBlockingServerClient(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            ServerLatencyMonitor serverLatencyMonitor,
+            Duration connectTimeout,
+            Duration readTimeout,
+            int maxInFlight
+    ) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.objectMapper = objectMapper;
+        this.serverLatencyMonitor = serverLatencyMonitor;
+        this.readTimeout = readTimeout;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        meterRegistry.gauge("shareit.gateway.server.in-flight", this, client -> client.inFlightRequests());
+    }
+
+    int inFlightRequests() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    CompletableFuture<ResponseEntity<Object>> send(HttpMethod method, URI uri, HttpHeaders headers, @Nullable Object body) {
+        if (!inFlight.tryAcquire()) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .body(Map.of("error", "Шлюз перегружен, повторите запрос позже"))
+            );
+        }
+
+        long startedAt = System.nanoTime();
+        CompletableFuture<HttpResponse<byte[]>> response;
+        try {
+            response = httpClient.sendAsync(createRequest(method, uri, headers, body), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+
+        return response
+                .whenComplete((result, e) -> {
+                    inFlight.release();
+                    serverLatencyMonitor.record(System.nanoTime() - startedAt);
+                })
+                .handle((result, e) -> {
+                    if (e != null) {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        IOException ioException = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+                        throw new CompletionException(
+                                new ResourceAccessException("Ошибка запроса к серверу: " + cause.getMessage(), ioException)
+                        );
+                    }
+
+                    return toGatewayResponse(result);
+                });
+    }
+
+    private HttpRequest createRequest(HttpMethod method, URI uri, HttpHeaders headers, @Nullable Object body) {
+        HttpRequest.BodyPublisher bodyPublisher;
+        try {
+            bodyPublisher = body != null
+                    ? HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))
+                    : HttpRequest.BodyPublishers.noBody();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Не удалось сериализовать тело запроса: " + e.getMessage(), e);
+        }
+
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri)
+                .timeout(readTimeout)
+                .method(method.name(), bodyPublisher);
+        headers.forEach((name, values) -> values.forEach(value -> requestBuilder.header(name, value)));
+        return requestBuilder.build();
+    }
+
+    private static ResponseEntity<Object> toGatewayResponse(HttpResponse<byte[]> response) {
+        HttpHeaders headers = new HttpHeaders();
+        response.headers().map().forEach(headers::addAll);
+
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.statusCode())
+                .headers(BaseClient.gatewayHeaders(headers));
+        return response.body().length > 0 ? responseBuilder.body(response.body()) : responseBuilder.build();
+    }
+}
@@ -0,0 +1,127 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import ru.practicum.shareit.ratelimit.ServerLatencyMonitor;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Общий для всех клиентов шлюза пул соединений с сервером. Соединения переиспользуются между запросами,
+ * простаивающие дольше keep-alive закрываются фоновым потоком раньше, чем их закроет сервер.
+ * Заполненность пула и время ожидания соединения публикуются в метриках actuator.
+ * При shareit-server.http.mode=non-blocking запросы с JSON-ответом отправляются неблокирующим клиентом,
+ * а пул используется только для потоковых запросов.
+ */
+@Configuration
+public class ServerHttpClientConfiguration {
+    private static final String CLIENT_NAME = "shareit-server";
+    private static final String REQUEST_STARTED_AT = ServerHttpClientConfiguration.class.getName() + ".requestStartedAt";
+
+    @Bean
+    public PoolingHttpClientConnectionManager serverConnectionManager(
+            MeterRegistry meterRegistry,
+            @Value("${shareit-server.http.max-total:200}") int maxTotal,
+            @Value("${shareit-server.http.max-per-route:200}") int maxPerRoute
+    ) {
+        PoolingHttpClientConnectionManager connectionManager = new InstrumentedConnectionManager(meterRegistry, CLIENT_NAME);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, CLIENT_NAME).bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean
+    public CloseableHttpClient serverHttpClient(
+            PoolingHttpClientConnectionManager serverConnectionManager,
+            ServerLatencyMonitor serverLatencyMonitor,
+            @Value("${shareit-server.http.connect-timeout:PT2S}") Duration connectTimeout,
+            @Value("${shareit-server.http.lease-timeout:PT1S}") Duration leaseTimeout,
+            @Value("${shareit-server.http.read-timeout:PT60S}") Duration readTimeout,
+            @Value("${shareit-server.http.keep-alive:PT15S}") Duration keepAlive
+    ) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setConnectionRequestTimeout((int) leaseTimeout.toMillis())
+                .setSocketTimeout((int) readTimeout.toMillis())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(serverConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                // Сервер не присылает Keep-Alive, поэтому срок жизни соединения ограничивается здесь
+                .setKeepAliveStrategy((response, context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive.toMillis()) : keepAlive.toMillis();
+                })
+                // Время ответа сервера считается до получения заголовков ответа. Потоковые запросы (NDJSON и импорт)
+                // не учитываются: в их время входят передача тела и построчная выдача, а не задержка сервера
+                .addInterceptorLast((HttpRequestInterceptor) (request, context) -> {
+                    if (!isStreaming(request)) {
+                        context.setAttribute(REQUEST_STARTED_AT, System.nanoTime());
+                    }
+                })
+                .addInterceptorLast((HttpResponseInterceptor) (response, context) -> {
+                    Long startedAt = (Long) context.getAttribute(REQUEST_STARTED_AT);
+                    if (startedAt != null) {
+                        serverLatencyMonitor.record(System.nanoTime() - startedAt);
+                    }
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    private static boolean isStreaming(HttpRequest request) {
+        for (Header accept : request.getHeaders(HttpHeaders.ACCEPT)) {
+            if (accept.getValue().contains(MediaType.APPLICATION_NDJSON_VALUE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Bean
+    public HttpComponentsClientHttpRequestFactory serverRequestFactory(CloseableHttpClient serverHttpClient) {
+        return new HttpComponentsClientHttpRequestFactory(serverHttpClient);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit-server.http.mode", havingValue = "non-blocking")
+    public NonBlockingServerClient nonBlockingServerClient(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            ServerLatencyMonitor serverLatencyMonitor,
+            @Value("${shareit-server.http.connect-timeout:PT2S}") Duration connectTimeout,
+            @Value("${shareit-server.http.read-timeout:PT60S}") Duration readTimeout,
+            @Value("${shareit-server.http.max-in-flight:10000}") int maxInFlight
+    ) {
+        return new NonBlockingServerClient(
+                objectMapper, meterRegistry, serverLatencyMonitor, connectTimeout, readTimeout, maxInFlight
+        );
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit-server.http.coalesce-gets", havingValue = "true", matchIfMissing = true)
+    public GetRequestCoalescer getRequestCoalescer(MeterRegistry meterRegistry) {
+        return new GetRequestCoalescer(meterRegistry);
+    }
+}
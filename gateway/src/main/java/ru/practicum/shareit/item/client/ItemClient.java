@@ -1,62 +1,129 @@
 package ru.practicum.shareit.item.client;
 
+import org.apache.http.client.HttpClient;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.GetRequestCoalescer;
+import ru.practicum.shareit.client.NonBlockingServerClient;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(
+            @Value("${shareit-server.url}") String serverUrl,
+            RestTemplateBuilder builder,
+            HttpClient serverHttpClient,
+            ObjectProvider<NonBlockingServerClient> nonBlockingClient,
+            ObjectProvider<GetRequestCoalescer> getRequestCoalescer
+    ) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> createRequestFactory(serverHttpClient))
+                        .build(),
+                nonBlockingClient.getIfAvailable(),
+                getRequestCoalescer.getIfAvailable()
         );
     }
 
-    public ResponseEntity<Object> createItem(long userId, ItemDto newItemDto) {
+    // Файл импорта передается серверу по мере получения, а не собирается целиком в памяти шлюза
+    private static HttpComponentsClientHttpRequestFactory createRequestFactory(HttpClient serverHttpClient) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(serverHttpClient);
+        requestFactory.setBufferRequestBody(false);
+        return requestFactory;
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> createItem(long userId, ItemDto newItemDto) {
         return post("", userId, newItemDto);
     }
 
-    public ResponseEntity<Object> addComment(long userId, long itemId, CommentDto commentDto) {
+    public ResponseEntity<StreamingResponseBody> importItems(long userId, MediaType contentType, InputStream body) {
+        return streamUpload("/import", userId, contentType, body);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> addComment(long userId, long itemId, CommentDto commentDto) {
         return post("/" + itemId + "/comment", userId, commentDto);
     }
 
-    public ResponseEntity<Object> updateItem(long userId, long itemId, ItemDto newItemDto) {
+    public CompletableFuture<ResponseEntity<Object>> updateItem(long userId, long itemId, ItemDto newItemDto) {
         return patch("/" + itemId, userId, newItemDto);
     }
 
-    public ResponseEntity<Object> getItemById(long userId, long itemId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemById(long userId, long itemId) {
         return get("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> getUserItems(long userId, int from, int size) {
+    public CompletableFuture<ResponseEntity<Object>> getItemComments(long userId, long itemId, String cursor, int size) {
+        if (cursor == null) {
+            return get("/" + itemId + "/comments?size={size}", userId, Map.of("size", size));
+        }
+
+        Map<String, Object> parameters = Map.of(
+                "cursor", cursor,
+                "size", size
+        );
+        return get("/" + itemId + "/comments?cursor={cursor}&size={size}", userId, parameters);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> getItemAvailability(long userId, long itemId, LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> getUserItems(long userId, int from, int size, boolean summary) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "size", size,
+                "summary", summary
+        );
+        return get("?from={from}&size={size}&summary={summary}", userId, parameters);
+    }
+
+    public ResponseEntity<StreamingResponseBody> streamUserItems(long userId, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
         );
-        return get("?from={from}&size={size}", userId, parameters);
+        return stream("?from={from}&size={size}", userId, parameters);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> searchItems(long userId, String text, int from, int size, boolean summary) {
+        Map<String, Object> parameters = Map.of(
+                "text", text,
+                "from", from,
+                "size", size,
+                "summary", summary
+        );
+        return get("/search?text={text}&from={from}&size={size}&summary={summary}", userId, parameters);
     }
 
-    public ResponseEntity<Object> searchItems(long userId, String text, int from, int size) {
+    public ResponseEntity<StreamingResponseBody> streamSearchItems(long userId, String text, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
                 "size", size
         );
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+        return stream("/search?text={text}&from={from}&size={size}", userId, parameters);
     }
 }
@@ -1,36 +1,67 @@
 package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.exception.PageableIsNotValidException;
 import ru.practicum.shareit.item.client.ItemClient;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.exception.AvailabilityPeriodIsNotValidException;
 import ru.practicum.shareit.pagination.PageableAdjuster;
 import ru.practicum.shareit.pagination.PageableValidator;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/items")
 @RequiredArgsConstructor
 @Validated
 public class ItemController {
+    private static final Duration MAX_AVAILABILITY_PERIOD = Duration.ofDays(366);
+    private static final String TEXT_CSV_VALUE = "text/csv";
 
     private final ItemClient itemClient;
 
     @PostMapping
-    public ResponseEntity<Object> createItem(
+    public CompletableFuture<ResponseEntity<Object>> createItem(
             @RequestHeader(value = "X-Sharer-User-Id") long userId,
             @Valid @RequestBody ItemDto newItemDto
     ) {
         return itemClient.createItem(userId, newItemDto);
     }
 
+    /**
+     * Импорт вещей из NDJSON или CSV. В ответе NDJSON - события хода импорта и итог.
+     * Сервер отправляет ход импорта после каждой порции, но через шлюз все события приходят
+     * после того, как файл загружен целиком: шлюз читает ответ сервера только после отправки запроса.
+     */
+    @PostMapping(
+            path = "/import",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public ResponseEntity<StreamingResponseBody> importItems(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            HttpServletRequest request
+    ) throws IOException {
+        // Строки проверяет сервер: шлюз не разбирает файл, чтобы не держать его в памяти
+        return itemClient.importItems(userId, MediaType.parseMediaType(contentType), request.getInputStream());
+    }
+
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> addComment(
+    public CompletableFuture<ResponseEntity<Object>> addComment(
             @RequestHeader(value = "X-Sharer-User-Id") long userId,
             @PathVariable long itemId,
             @Valid @RequestBody CommentDto commentDto
@@ -39,7 +70,7 @@ public class ItemController {
     }
 
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> updateItem(
+    public CompletableFuture<ResponseEntity<Object>> updateItem(
             @RequestHeader("X-Sharer-User-Id") long userId,
             @PathVariable long itemId,
             @RequestBody ItemDto newItemDto
@@ -48,15 +79,59 @@ public class ItemController {
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItemById(
+    public CompletableFuture<ResponseEntity<Object>> getItemById(
             @RequestHeader("X-Sharer-User-Id") long userId,
             @PathVariable long itemId
     ) {
         return itemClient.getItemById(userId, itemId);
     }
 
+    @GetMapping("/{itemId}/comments")
+    public CompletableFuture<ResponseEntity<Object>> getItemComments(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @PathVariable long itemId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        if (!PageableValidator.isValid(0, size)) {
+            throw new PageableIsNotValidException();
+        }
+
+        return itemClient.getItemComments(userId, itemId, cursor, size);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public CompletableFuture<ResponseEntity<Object>> getItemAvailability(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @PathVariable long itemId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        if (!from.isBefore(to) || from.plus(MAX_AVAILABILITY_PERIOD).isBefore(to)) {
+            throw new AvailabilityPeriodIsNotValidException();
+        }
+
+        return itemClient.getItemAvailability(userId, itemId, from, to);
+    }
+
     @GetMapping
-    public ResponseEntity<Object> getUserItems(
+    public CompletableFuture<ResponseEntity<Object>> getUserItems(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "2000") int size,
+            @RequestParam(defaultValue = "false") boolean summary
+    ) {
+        if (!PageableValidator.isValid(from, size)) {
+            throw new PageableIsNotValidException();
+        }
+
+        int newFrom = PageableAdjuster.adjustFrom(from, size);
+
+        return itemClient.getUserItems(userId, newFrom, size, summary);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUserItems(
             @RequestHeader("X-Sharer-User-Id") long userId,
             @RequestParam(defaultValue = "0") int from,
             @RequestParam(defaultValue = "2000") int size
@@ -67,11 +142,28 @@ public class ItemController {
 
         int newFrom = PageableAdjuster.adjustFrom(from, size);
 
-        return itemClient.getUserItems(userId, newFrom, size);
+        return itemClient.streamUserItems(userId, newFrom, size);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> searchItems(
+    public CompletableFuture<ResponseEntity<Object>> searchItems(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam String text,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "2000") int size,
+            @RequestParam(defaultValue = "false") boolean summary
+    ) {
+        if (!PageableValidator.isValid(from, size)) {
+            throw new PageableIsNotValidException();
+        }
+
+        int newFrom = PageableAdjuster.adjustFrom(from, size);
+
+        return itemClient.searchItems(userId, text, newFrom, size, summary);
+    }
+
+    @GetMapping(path = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSearchItems(
             @RequestHeader("X-Sharer-User-Id") long userId,
             @RequestParam String text,
             @RequestParam(defaultValue = "0") int from,
@@ -83,6 +175,6 @@ public class ItemController {
 
         int newFrom = PageableAdjuster.adjustFrom(from, size);
 
-        return itemClient.searchItems(userId, text, newFrom, size);
+        return itemClient.streamSearchItems(userId, text, newFrom, size);
     }
 }
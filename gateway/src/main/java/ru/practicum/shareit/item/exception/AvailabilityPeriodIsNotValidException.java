@@ -0,0 +1,7 @@
+package ru.practicum.shareit.item.exception;
+
+public class AvailabilityPeriodIsNotValidException extends RuntimeException {
+    public AvailabilityPeriodIsNotValidException() {
+        super("Период поиска свободных окон задан некорректно или превышает 366 дней.");
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничивает запросы до разбора и проверки параметров, чтобы отклоненный запрос почти ничего не стоил.
+ * У каждого пользователя (X-Sharer-User-Id, без заголовка - адрес клиента) свои ведра токенов на чтение и запись.
+ * Сверх бюджета шлюз отвечает 429, а если сервер отвечает медленно - отклоняет часть запросов с 503.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "shareit-gateway.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final byte[] RATE_LIMITED = "{\"error\":\"Превышен лимит запросов\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SHED = "{\"error\":\"Сервер перегружен, повторите запрос позже\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final UserRateLimiter readLimiter;
+    private final UserRateLimiter writeLimiter;
+    private final ServerLatencyMonitor serverLatency;
+    private final Counter rateLimited;
+    private final Counter shed;
+
+    @Autowired
+    public RateLimitFilter(
+            ServerLatencyMonitor serverLatency,
+            MeterRegistry meterRegistry,
+            @Value("${shareit-gateway.rate-limit.read.per-second:100}") double readPerSecond,
+            @Value("${shareit-gateway.rate-limit.read.burst:200}") int readBurst,
+            @Value("${shareit-gateway.rate-limit.write.per-second:20}") double writePerSecond,
+            @Value("${shareit-gateway.rate-limit.write.burst:40}") int writeBurst,
+            @Value("${shareit-gateway.rate-limit.max-users:100000}") int maxUsers
+    ) {
+        this.readLimiter = new UserRateLimiter(readPerSecond, readBurst, maxUsers);
+        this.writeLimiter = new UserRateLimiter(writePerSecond, writeBurst, maxUsers);
+        this.serverLatency = serverLatency;
+        this.rateLimited = meterRegistry.counter("shareit.gateway.requests.rejected", "reason", "rate-limit");
+        this.shed = meterRegistry.counter("shareit.gateway.requests.rejected", "reason", "load-shedding");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        UserRateLimiter limiter = isRead(request.getMethod()) ? readLimiter : writeLimiter;
+        long waitNanos = limiter.tryAcquire(userKey(request), System.nanoTime());
+        if (waitNanos > 0) {
+            rateLimited.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1, RATE_LIMITED);
+            return;
+        }
+
+        if (serverLatency.shouldShed()) {
+            shed.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1, SHED);
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private static boolean isRead(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    private static String userKey(HttpServletRequest request) {
+        String userId = request.getHeader("X-Sharer-User-Id");
+        return userId != null ? userId : "address:" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, byte[] body)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.shareit.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Скользящее среднее времени ответа сервера. Пока оно выше порога, шлюз отклоняет часть запросов:
+ * доля растет вместе с превышением порога, но не больше maxShedRatio, чтобы среднее продолжало обновляться.
+ * Без новых замеров среднее затухает с постоянной времени decayTime: единичный долгий ответ
+ * не держит отклонение запросов, пока не придут быстрые ответы.
+ */
+@Component
+public class ServerLatencyMonitor {
+    private static final double SMOOTHING = 0.2;
+
+    private final long thresholdNanos;
+    private final double maxShedRatio;
+    private final double decayNanos;
+    private final AtomicReference<Average> average = new AtomicReference<>();
+
+    @Autowired
+    public ServerLatencyMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${shareit-gateway.load-shedding.latency-threshold:PT1S}") Duration threshold,
+            @Value("${shareit-gateway.load-shedding.max-shed-ratio:0.9}") double maxShedRatio,
+            @Value("${shareit-gateway.load-shedding.decay-time:PT10S}") Duration decayTime
+    ) {
+        this.thresholdNanos = threshold.toNanos();
+        this.maxShedRatio = maxShedRatio;
+        this.decayNanos = decayTime.toNanos();
+        TimeGauge.builder("shareit.gateway.server.latency", this, TimeUnit.NANOSECONDS,
+                        monitor -> monitor.averageNanos(System.nanoTime()))
+                .description("Скользящее среднее времени ответа сервера")
+                .register(meterRegistry);
+    }
+
+    public void record(long latencyNanos) {
+        record(latencyNanos, System.nanoTime());
+    }
+
+    void record(long latencyNanos, long now) {
+        average.updateAndGet(previous -> {
+            if (previous == null) {
+                return new Average(latencyNanos, now);
+            }
+            double decayed = previous.decayedTo(now, decayNanos);
+            return new Average(decayed + (latencyNanos - decayed) * SMOOTHING, now);
+        });
+    }
+
+    double averageNanos(long now) {
+        Average current = average.get();
+        return current != null ? current.decayedTo(now, decayNanos) : 0;
+    }
+
+    double shedRatio(long now) {
+        double averageNanos = averageNanos(now);
+        if (averageNanos <= thresholdNanos) {
+            return 0;
+        }
+
+        return Math.min(maxShedRatio, (averageNanos - thresholdNanos) / thresholdNanos);
+    }
+
+    boolean shouldShed() {
+        double shedRatio = shedRatio(System.nanoTime());
+        return shedRatio > 0 && ThreadLocalRandom.current().nextDouble() < shedRatio;
+    }
+
+    private static class Average {
+        private final double nanos;
+        private final long updatedAt;
+
+        private Average(double nanos, long updatedAt) {
+            this.nanos = nanos;
+            this.updatedAt = updatedAt;
+        }
+
+        private double decayedTo(long now, double decayNanos) {
+            long elapsed = now - updatedAt;
+            return elapsed > 0 ? nanos * Math.exp(-elapsed / decayNanos) : nanos;
+        }
+    }
+}
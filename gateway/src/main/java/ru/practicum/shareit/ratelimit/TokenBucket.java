@@ -0,0 +1,40 @@
+package ru.practicum.shareit.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ведро токенов без блокировок. Вместо числа токенов хранится момент, к которому ведро снова станет полным
+ * (алгоритм GCRA), поэтому состояние помещается в один AtomicLong и обновляется одним compareAndSet.
+ */
+class TokenBucket {
+    private final long refillIntervalNanos;
+    private final long capacityNanos;
+    private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+    TokenBucket(double tokensPerSecond, int burst) {
+        this.refillIntervalNanos = Math.max(1, (long) (1_000_000_000L / tokensPerSecond));
+        this.capacityNanos = refillIntervalNanos * burst;
+    }
+
+    /**
+     * Забирает токен из ведра.
+     *
+     * @return 0, если токен получен, иначе - сколько наносекунд ждать следующего токена
+     */
+    long tryAcquire(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + refillIntervalNanos;
+            if (next - now > capacityNanos) {
+                return next - now - capacityNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    boolean isFull(long now) {
+        return fullAt.get() <= now;
+    }
+}
@@ -0,0 +1,63 @@
+package ru.practicum.shareit.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ведра токенов по пользователям с одинаковым бюджетом. Полные ведра ничем не отличаются от новых,
+ * поэтому не чаще раза в sweepIntervalNanos они удаляются одним проходом по таблице.
+ * Пока в таблице maxUsers ведер, новые пользователи до следующей очистки делят одно общее ведро.
+ */
+class UserRateLimiter {
+    private static final long NEVER = Long.MIN_VALUE;
+    private static final long MIN_SWEEP_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final double tokensPerSecond;
+    private final int burst;
+    private final int maxUsers;
+    private final long sweepIntervalNanos;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflow;
+    private final AtomicLong lastSweepAt = new AtomicLong(NEVER);
+
+    UserRateLimiter(double tokensPerSecond, int burst, int maxUsers) {
+        this.tokensPerSecond = tokensPerSecond;
+        this.burst = burst;
+        this.maxUsers = maxUsers;
+        // За это время ведро, из которого не брали токены, гарантированно снова становится полным
+        this.sweepIntervalNanos = Math.max(MIN_SWEEP_INTERVAL_NANOS, (long) (burst * 1_000_000_000L / tokensPerSecond));
+        this.overflow = new TokenBucket(tokensPerSecond, burst);
+    }
+
+    long tryAcquire(String userKey, long now) {
+        sweepIfDue(now);
+
+        TokenBucket bucket = buckets.get(userKey);
+        if (bucket == null) {
+            // Параллельные запросы новых пользователей могут превысить maxUsers не больше чем на число потоков
+            if (buckets.size() >= maxUsers) {
+                return overflow.tryAcquire(now);
+            }
+            bucket = buckets.computeIfAbsent(userKey, key -> new TokenBucket(tokensPerSecond, burst));
+        }
+
+        return bucket.tryAcquire(now);
+    }
+
+    private void sweepIfDue(long now) {
+        long last = lastSweepAt.get();
+        if (last == NEVER) {
+            lastSweepAt.compareAndSet(NEVER, now);
+            return;
+        }
+        // Очищает только поток, выигравший compareAndSet, остальные не ждут
+        if (now - last >= sweepIntervalNanos && lastSweepAt.compareAndSet(last, now)) {
+            buckets.values().removeIf(existing -> existing.isFull(now));
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+}
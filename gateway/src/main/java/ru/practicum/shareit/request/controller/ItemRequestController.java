@@ -12,6 +12,8 @@ import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import javax.validation.Valid;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping(path = "/requests")
 @RequiredArgsConstructor
@@ -21,7 +23,7 @@ public class ItemRequestController {
     private final ItemRequestClient itemRequestClient;
 
     @PostMapping
-    public ResponseEntity<Object> createItemRequest(
+    public CompletableFuture<ResponseEntity<Object>> createItemRequest(
             @RequestHeader("X-Sharer-User-Id") long userId,
             @Valid @RequestBody ItemRequestDto itemRequestDto
     ) {
@@ -29,12 +31,12 @@ public class ItemRequestController {
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllItemRequestsFromUser(@RequestHeader("X-Sharer-User-Id") long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getAllItemRequestsFromUser(@RequestHeader("X-Sharer-User-Id") long userId) {
         return itemRequestClient.getAllItemRequestsFromUser(userId);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAllOtherUsersRequests(
+    public CompletableFuture<ResponseEntity<Object>> getAllOtherUsersRequests(
             @RequestHeader("X-Sharer-User-Id") long userId,
             @RequestParam(defaultValue = "0") int from,
             @RequestParam(defaultValue = "2000") int size
@@ -49,7 +51,7 @@ public class ItemRequestController {
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getItemRequestById(
+    public CompletableFuture<ResponseEntity<Object>> getItemRequestById(
             @RequestHeader("X-Sharer-User-Id") long userId,
             @PathVariable long requestId
     ) {
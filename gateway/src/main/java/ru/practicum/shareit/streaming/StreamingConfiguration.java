@@ -0,0 +1,41 @@
+package ru.practicum.shareit.streaming;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class StreamingConfiguration implements WebMvcConfigurer {
+    private final StreamingLimitInterceptor streamingLimitInterceptor;
+
+    @Autowired
+    public StreamingConfiguration(StreamingLimitInterceptor streamingLimitInterceptor) {
+        this.streamingLimitInterceptor = streamingLimitInterceptor;
+    }
+
+    // Потоковые ответы пишутся в пуле spring.task.execution, их число ограничено размером пула
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(streamingLimitInterceptor);
+    }
+
+    // Ошибки потоковых запросов (например, проверки параметров) отдаются одним JSON-документом - это тоже NDJSON
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter instanceof MappingJackson2HttpMessageConverter) {
+                MappingJackson2HttpMessageConverter jsonConverter = (MappingJackson2HttpMessageConverter) converter;
+                List<MediaType> mediaTypes = new ArrayList<>(jsonConverter.getSupportedMediaTypes());
+                mediaTypes.add(MediaType.APPLICATION_NDJSON);
+                jsonConverter.setSupportedMediaTypes(mediaTypes);
+            }
+        }
+    }
+}
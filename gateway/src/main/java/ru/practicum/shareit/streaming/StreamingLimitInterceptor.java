@@ -0,0 +1,96 @@
+package ru.practicum.shareit.streaming;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Ограничивает число одновременных потоковых ответов числом потоков, которые их пишут.
+ * Разрешение берется до запроса к серверу: иначе отклоненная пулом задача оставила бы открытым ответ сервера.
+ * Сверх лимита шлюз отвечает 503, разрешение возвращается после асинхронной записи ответа.
+ */
+@Component
+public class StreamingLimitInterceptor implements HandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = StreamingLimitInterceptor.class.getName() + ".permit";
+    private static final byte[] TOO_MANY_STREAMS =
+            "{\"error\":\"Слишком много одновременных потоковых запросов, повторите запрос позже\"}"
+                    .getBytes(StandardCharsets.UTF_8);
+
+    private final Semaphore permits;
+    private final Counter rejected;
+
+    @Autowired
+    public StreamingLimitInterceptor(
+            MeterRegistry meterRegistry,
+            @Value("${shareit-gateway.streaming.max-concurrent:32}") int maxConcurrent
+    ) {
+        this.permits = new Semaphore(maxConcurrent);
+        this.rejected = meterRegistry.counter("shareit.gateway.requests.rejected", "reason", "stream-limit");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        // При асинхронной выдаче ответа разрешение уже взято в исходном запросе
+        if (request.getDispatcherType() == DispatcherType.ASYNC || !isStreaming(handler)) {
+            return true;
+        }
+
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(TOO_MANY_STREAMS.length);
+            response.getOutputStream().write(TOO_MANY_STREAMS);
+            return false;
+        }
+
+        request.setAttribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    // Вызывается после записи ответа, а если асинхронная обработка не началась - сразу после обработчика
+    @Override
+    public void afterCompletion(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            Object handler,
+            @Nullable Exception ex
+    ) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permits.release();
+        }
+    }
+
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private static boolean isStreaming(Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return false;
+        }
+
+        ResolvableType returnType = ResolvableType.forMethodParameter(((HandlerMethod) handler).getReturnType());
+        return StreamingResponseBody.class.equals(returnType.resolve())
+                || StreamingResponseBody.class.equals(returnType.getGeneric(0).resolve());
+    }
+}
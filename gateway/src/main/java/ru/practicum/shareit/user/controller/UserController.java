@@ -9,6 +9,8 @@ import ru.practicum.shareit.user.dto.UserDto;
 
 import javax.validation.Valid;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping(path = "/users")
 @RequiredArgsConstructor
@@ -17,27 +19,27 @@ public class UserController {
     private final UserClient userClient;
 
     @PostMapping
-    public ResponseEntity<Object> createUser(@Valid @RequestBody UserDto newUserDto) {
+    public CompletableFuture<ResponseEntity<Object>> createUser(@Valid @RequestBody UserDto newUserDto) {
         return userClient.createUser(newUserDto);
     }
 
     @PatchMapping("/{userId}")
-    public ResponseEntity<Object> updateUser(@PathVariable long userId, @RequestBody UserDto newUserDto) {
+    public CompletableFuture<ResponseEntity<Object>> updateUser(@PathVariable long userId, @RequestBody UserDto newUserDto) {
         return userClient.updateUser(userId, newUserDto);
     }
 
     @DeleteMapping("/{userId}")
-    public ResponseEntity<Object> deleteUser(@PathVariable long userId) {
+    public CompletableFuture<ResponseEntity<Object>> deleteUser(@PathVariable long userId) {
         return userClient.deleteUser(userId);
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<Object> getUserById(@PathVariable long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getUserById(@PathVariable long userId) {
         return userClient.getUserById(userId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllUsers() {
+    public CompletableFuture<ResponseEntity<Object>> getAllUsers() {
         return userClient.getAllUsers();
     }
 }
@@ -11,6 +11,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.ExceptionControllerAdvice;
 import ru.practicum.shareit.ShareItGateway;
@@ -18,18 +19,21 @@ import ru.practicum.shareit.TestUtils;
 import ru.practicum.shareit.booking.client.BookingClient;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.CreateBookingBatchDto;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
 import ru.practicum.shareit.item.dto.ItemDtoSimple;
 import ru.practicum.shareit.user.dto.UserDtoSimple;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -89,13 +93,17 @@ public class BookingControllerTest {
 
     @Test
     void testCreateBooking() throws Exception {
-        when(bookingClient.createBooking(anyLong(), any(CreateBookingDto.class))).thenReturn(bookingResponse);
+        when(bookingClient.createBooking(anyLong(), any(CreateBookingDto.class))).thenReturn(CompletableFuture.completedFuture(bookingResponse));
 
-        mvc.perform(post("/bookings")
+        MvcResult result = mvc.perform(post("/bookings")
                         .content(TestUtils.asJsonString(createBookingDto))
                         .header("X-Sharer-User-Id", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(bookingDto.getId()), Long.class))
                 .andExpect(jsonPath("$.start[0]", is(bookingDto.getStart().getYear())))
@@ -115,15 +123,92 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is(bookingDto.getStatus().toString())));
     }
 
+    @Test
+    void testCreateBookings() throws Exception {
+        CreateBookingBatchDto createBookingBatchDto = CreateBookingBatchDto.builder()
+                .bookings(List.of(createBookingDto, createBookingDto))
+                .build();
+        ResponseEntity<Object> batchResponse = new ResponseEntity<>(
+                TestUtils.asJsonString(List.of(Map.of("index", 0, "booking", bookingDto), Map.of("index", 1, "error", "error"))),
+                HttpStatus.OK
+        );
+
+        when(bookingClient.createBookings(anyLong(), any(CreateBookingBatchDto.class))).thenReturn(CompletableFuture.completedFuture(batchResponse));
+
+        MvcResult result = mvc.perform(post("/bookings/batch")
+                        .content(TestUtils.asJsonString(createBookingBatchDto))
+                        .header("X-Sharer-User-Id", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].booking.id", is(bookingDto.getId()), Long.class))
+                .andExpect(jsonPath("$[1].error", is("error")));
+    }
+
+    @Test
+    void testCreateBookingsEmptyBatch() throws Exception {
+        mvc.perform(post("/bookings/batch")
+                        .content(TestUtils.asJsonString(CreateBookingBatchDto.builder().bookings(List.of()).build()))
+                        .header("X-Sharer-User-Id", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(bookingClient, never()).createBookings(anyLong(), any(CreateBookingBatchDto.class));
+    }
+
+    @Test
+    void testCreateBookingsNullBooking() throws Exception {
+        mvc.perform(post("/bookings/batch")
+                        .content("{\"bookings\":[" + TestUtils.asJsonString(createBookingDto) + ",null]}")
+                        .header("X-Sharer-User-Id", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$['bookings[1]']", is("Бронирование в списке не может быть пустым.")));
+
+        verify(bookingClient, never()).createBookings(anyLong(), any(CreateBookingBatchDto.class));
+    }
+
+    @Test
+    void testCreateBookingsInvalidPeriod() throws Exception {
+        CreateBookingDto invalidBookingDto = CreateBookingDto.builder()
+                .itemId(1L)
+                .start(LocalDateTime.now().plusDays(2))
+                .end(LocalDateTime.now().plusDays(1))
+                .build();
+
+        mvc.perform(post("/bookings/batch")
+                        .content(TestUtils.asJsonString(CreateBookingBatchDto.builder()
+                                .bookings(List.of(createBookingDto, invalidBookingDto))
+                                .build()))
+                        .header("X-Sharer-User-Id", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("У бронирования задан некорректный период бронирования.")));
+
+        verify(bookingClient, never()).createBookings(anyLong(), any(CreateBookingBatchDto.class));
+    }
+
     @Test
     void testApproveBooking() throws Exception {
-        when(bookingClient.approveBooking(anyLong(), anyLong(), anyBoolean())).thenReturn(bookingResponse);
+        when(bookingClient.approveBooking(anyLong(), anyLong(), anyBoolean())).thenReturn(CompletableFuture.completedFuture(bookingResponse));
 
-        mvc.perform(patch("/bookings/1?approved=true")
+        MvcResult result = mvc.perform(patch("/bookings/1?approved=true")
                         .content(TestUtils.asJsonString(createBookingDto))
                         .header("X-Sharer-User-Id", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(bookingDto.getId()), Long.class))
                 .andExpect(jsonPath("$.start[0]", is(bookingDto.getStart().getYear())))
@@ -145,11 +230,15 @@ public class BookingControllerTest {
 
     @Test
     void testGetBookingById() throws Exception {
-        when(bookingClient.getBookingById(anyLong(), anyLong())).thenReturn(bookingResponse);
+        when(bookingClient.getBookingById(anyLong(), anyLong())).thenReturn(CompletableFuture.completedFuture(bookingResponse));
 
-        mvc.perform(get("/bookings/1")
+        MvcResult result = mvc.perform(get("/bookings/1")
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(bookingDto.getId()), Long.class))
                 .andExpect(jsonPath("$.start[0]", is(bookingDto.getStart().getYear())))
@@ -176,11 +265,15 @@ public class BookingControllerTest {
                 HttpStatus.NOT_FOUND
         );
 
-        when(bookingClient.getBookingById(anyLong(), anyLong())).thenReturn(bookingResponse);
+        when(bookingClient.getBookingById(anyLong(), anyLong())).thenReturn(CompletableFuture.completedFuture(bookingResponse));
 
-        mvc.perform(get("/bookings/1")
+        MvcResult result = mvc.perform(get("/bookings/1")
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isNotFound())
                 .andExpect(content().string(containsString("message")))
                 .andExpect(jsonPath("$.message", is("Бронирование c ID=1 не найдено.")));
@@ -194,11 +287,15 @@ public class BookingControllerTest {
         );
 
 
-        when(bookingClient.getUserBookings(anyLong(), any(BookingState.class), anyInt(), anyInt())).thenReturn(bookingResponse);
+        when(bookingClient.getUserBookings(anyLong(), any(BookingState.class), anyInt(), anyInt())).thenReturn(CompletableFuture.completedFuture(bookingResponse));
 
-        mvc.perform(get("/bookings")
+        MvcResult result = mvc.perform(get("/bookings")
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(bookingDto.getId()), Long.class))
@@ -220,6 +317,30 @@ public class BookingControllerTest {
 
     }
 
+    @Test
+    void testGetUserBookingsAfterCursor() throws Exception {
+        bookingResponse = ResponseEntity.ok()
+                .header("X-Next-Cursor", "next_cursor")
+                .body(TestUtils.asJsonString(List.of(bookingDto)));
+
+        when(bookingClient.getUserBookingsAfter(anyLong(), any(BookingState.class), eq("cursor"), eq(1)))
+                .thenReturn(CompletableFuture.completedFuture(bookingResponse));
+
+        MvcResult result = mvc.perform(get("/bookings?cursor=cursor&size=1")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next_cursor"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(bookingDto.getId()), Long.class));
+
+        verify(bookingClient, never()).getUserBookings(anyLong(), any(BookingState.class), anyInt(), anyInt());
+    }
+
     @Test
     void testGetUserBookingsNonExistentUser() throws Exception {
         bookingResponse = new ResponseEntity<>(
@@ -227,11 +348,15 @@ public class BookingControllerTest {
                 HttpStatus.NOT_FOUND
         );
 
-        when(bookingClient.getUserBookings(anyLong(), any(BookingState.class), anyInt(), anyInt())).thenReturn(bookingResponse);
+        when(bookingClient.getUserBookings(anyLong(), any(BookingState.class), anyInt(), anyInt())).thenReturn(CompletableFuture.completedFuture(bookingResponse));
 
-        mvc.perform(get("/bookings")
+        MvcResult result = mvc.perform(get("/bookings")
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isNotFound())
                 .andExpect(content().string(containsString("message")))
                 .andExpect(jsonPath("$.message", is("Пользователь c ID=1 не найден.")));
@@ -244,11 +369,15 @@ public class BookingControllerTest {
                 HttpStatus.OK
         );
 
-        when(bookingClient.getOwnedItemsBookings(anyLong(), any(BookingState.class), anyInt(), anyInt())).thenReturn(bookingResponse);
+        when(bookingClient.getOwnedItemsBookings(anyLong(), any(BookingState.class), anyInt(), anyInt())).thenReturn(CompletableFuture.completedFuture(bookingResponse));
 
-        mvc.perform(get("/bookings/owner")
+        MvcResult result = mvc.perform(get("/bookings/owner")
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(bookingDto.getId()), Long.class))
@@ -268,4 +397,23 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$[0].booker.name", is(bookingDto.getBooker().getName())))
                 .andExpect(jsonPath("$[0].status", is(bookingDto.getStatus().toString())));
     }
+
+    @Test
+    void testStreamOwnedItemsBookings() throws Exception {
+        byte[] lines = "{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8);
+        when(bookingClient.streamOwnedItemsBookings(1L, BookingState.FUTURE, 0, 10)).thenReturn(ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> outputStream.write(lines)));
+
+        MvcResult result = mvc.perform(get("/bookings/owner?state=FUTURE&from=0&size=10")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().bytes(lines));
+    }
 }
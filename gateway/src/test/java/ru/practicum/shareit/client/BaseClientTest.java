@@ -0,0 +1,187 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class BaseClientTest {
+    private MockRestServiceServer server;
+
+    private TestClient client;
+
+    private static class TestClient extends BaseClient {
+        TestClient(RestTemplate rest) {
+            super(rest);
+        }
+
+        ResponseEntity<StreamingResponseBody> streamItems(long userId, int from, int size) {
+            return stream("?from={from}&size={size}", userId, Map.of("from", from, "size", size));
+        }
+
+        CompletableFuture<ResponseEntity<Object>> getItem(long userId, long itemId) {
+            return get("/" + itemId, userId);
+        }
+
+        CompletableFuture<ResponseEntity<Object>> createItem(long userId, Map<String, Object> item) {
+            return post("", userId, item);
+        }
+
+        CompletableFuture<ResponseEntity<Object>> deleteItem(long userId, long itemId) {
+            return delete("/" + itemId, userId);
+        }
+
+        ResponseEntity<StreamingResponseBody> importItems(long userId, MediaType contentType, String body) {
+            return streamUpload("/import", userId, contentType, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    private static String write(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String read(Object body) throws Exception {
+        assertThat(body).isInstanceOf(InputStreamResource.class);
+        try (InputStream inputStream = ((InputStreamResource) body).getInputStream()) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        RestTemplate rest = new RestTemplate();
+        rest.setUriTemplateHandler(new DefaultUriBuilderFactory("http://localhost:9090/items"));
+        server = MockRestServiceServer.bindTo(rest).build();
+        client = new TestClient(rest);
+    }
+
+    @Test
+    void testStream() throws Exception {
+        String lines = "{\"id\":1}\n{\"id\":2}\n";
+        server.expect(requestTo("http://localhost:9090/items?from=0&size=10"))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("Accept", MediaType.APPLICATION_NDJSON_VALUE))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(withSuccess(lines, MediaType.APPLICATION_NDJSON));
+
+        ResponseEntity<StreamingResponseBody> response = client.streamItems(1L, 0, 10);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+        assertThat(write(response.getBody())).isEqualTo(lines);
+        server.verify();
+    }
+
+    @Test
+    void testStreamUpload() throws Exception {
+        String csv = "name,description,available\ndrill,power drill,true\n";
+        String report = "{\"imported\":1,\"failed\":0,\"finished\":true}\n";
+        server.expect(requestTo("http://localhost:9090/items/import"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("Content-Type", "text/csv"))
+                .andExpect(header("Accept", MediaType.APPLICATION_NDJSON_VALUE))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andExpect(content().string(csv))
+                .andRespond(withSuccess(report, MediaType.APPLICATION_NDJSON));
+
+        ResponseEntity<StreamingResponseBody> response = client.importItems(1L, MediaType.parseMediaType("text/csv"), csv);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(write(response.getBody())).isEqualTo(report);
+        server.verify();
+    }
+
+    @Test
+    void testStreamError() throws Exception {
+        String error = "{\"message\":\"Пользователь не найден\"}";
+        server.expect(requestTo("http://localhost:9090/items?from=0&size=10"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body(error));
+
+        ResponseEntity<StreamingResponseBody> response = client.streamItems(1L, 0, 10);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(write(response.getBody())).isEqualTo(error);
+    }
+
+    @Test
+    void testPassthrough() throws Exception {
+        String item = "{\"id\":1,\"name\":\"Дрель\"}";
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Next-Cursor", "abc");
+        server.expect(requestTo("http://localhost:9090/items/1"))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(withSuccess(item, MediaType.APPLICATION_JSON).headers(headers));
+
+        ResponseEntity<Object> response = client.getItem(1L, 1L).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.getHeaders().getFirst("X-Next-Cursor")).isEqualTo("abc");
+        assertThat(read(response.getBody())).isEqualTo(item);
+        server.verify();
+    }
+
+    @Test
+    void testPassthroughRequestBody() throws Exception {
+        String item = "{\"id\":1,\"name\":\"Дрель\"}";
+        server.expect(requestTo("http://localhost:9090/items"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("Content-Type", MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(content().json("{\"name\":\"Дрель\"}"))
+                .andRespond(withSuccess(item, MediaType.APPLICATION_JSON));
+
+        ResponseEntity<Object> response = client.createItem(1L, Map.of("name", "Дрель")).join();
+
+        assertThat(read(response.getBody())).isEqualTo(item);
+        server.verify();
+    }
+
+    @Test
+    void testPassthroughError() {
+        String error = "{\"message\":\"Вещь не найдена\"}";
+        server.expect(requestTo("http://localhost:9090/items/1"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body(error));
+
+        ResponseEntity<Object> response = client.getItem(1L, 1L).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.getBody()).isEqualTo(error.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testPassthroughEmptyBody() {
+        server.expect(requestTo("http://localhost:9090/items/1"))
+                .andExpect(method(HttpMethod.DELETE))
+                .andRespond(withSuccess());
+
+        ResponseEntity<Object> response = client.deleteItem(1L, 1L).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.hasBody()).isFalse();
+    }
+}
@@ -0,0 +1,100 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GetRequestCoalescerTest {
+    private static final String ITEM = "{\"id\":1}";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final GetRequestCoalescer coalescer = new GetRequestCoalescer(meterRegistry);
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    private final CompletableFuture<ResponseEntity<Object>> upstream = new CompletableFuture<>();
+
+    private CompletableFuture<ResponseEntity<Object>> coalesce(String key) {
+        return coalescer.coalesce(key, () -> {
+            upstreamCalls.incrementAndGet();
+            return upstream;
+        });
+    }
+
+    private static ResponseEntity<Object> streamedItem() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new InputStreamResource(new ByteArrayInputStream(ITEM.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private double count(String result) {
+        return meterRegistry.counter("shareit.gateway.get.requests", "result", result).count();
+    }
+
+    @Test
+    void testCoalesceIdenticalRequests() {
+        CompletableFuture<ResponseEntity<Object>> first = coalesce("GET /items/1 1");
+        CompletableFuture<ResponseEntity<Object>> second = coalesce("GET /items/1 1");
+        upstream.complete(streamedItem());
+
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        // Ответ читается в память, чтобы его можно было отдать обоим клиентам
+        assertThat(first.join().getBody()).isEqualTo(ITEM.getBytes(StandardCharsets.UTF_8));
+        assertThat(second.join().getBody()).isEqualTo(ITEM.getBytes(StandardCharsets.UTF_8));
+        assertThat(second.join().getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(count("upstream")).isEqualTo(1);
+        assertThat(count("coalesced")).isEqualTo(1);
+        assertThat(coalescer.inFlightRequests()).isZero();
+    }
+
+    @Test
+    void testSingleRequestIsStreamed() {
+        CompletableFuture<ResponseEntity<Object>> response = coalesce("GET /items/1 1");
+        upstream.complete(streamedItem());
+
+        assertThat(response.join().getBody()).isInstanceOf(InputStreamResource.class);
+    }
+
+    @Test
+    void testDifferentUsersAreNotCoalesced() {
+        coalesce("GET /items/1 1");
+        coalesce("GET /items/1 2");
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(count("coalesced")).isZero();
+    }
+
+    @Test
+    void testCompletedRequestIsNotReused() {
+        coalesce("GET /items/1 1");
+        upstream.complete(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        coalesce("GET /items/1 1");
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testErrorIsSharedWithWaiters() {
+        CompletableFuture<ResponseEntity<Object>> first = coalesce("GET /items/1 1");
+        CompletableFuture<ResponseEntity<Object>> second = coalesce("GET /items/1 1");
+        upstream.completeExceptionally(new IllegalStateException("Сервер недоступен"));
+
+        assertThatThrownBy(first::join).isInstanceOf(CompletionException.class);
+        assertThatThrownBy(second::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(coalescer.inFlightRequests()).isZero();
+    }
+}
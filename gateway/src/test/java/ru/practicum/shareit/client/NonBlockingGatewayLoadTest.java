@@ -0,0 +1,145 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.practicum.shareit.ShareItGateway;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочный тест неблокирующего режима: у шлюза всего 4 потока Tomcat, а сервер отвечает с задержкой.
+ * В блокирующем режиме одновременно к серверу ушло бы не больше 4 запросов.
+ */
+@SpringBootTest(
+        classes = ShareItGateway.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "shareit-server.http.mode=non-blocking",
+                "server.tomcat.threads.max=" + NonBlockingGatewayLoadTest.GATEWAY_THREADS,
+                "server.tomcat.threads.min-spare=1",
+                // Все запросы теста приходят с одного адреса, ограничения шлюза здесь не проверяются
+                "shareit-gateway.rate-limit.enabled=false"
+        }
+)
+public class NonBlockingGatewayLoadTest {
+    static final int GATEWAY_THREADS = 4;
+
+    private static final int REQUESTS = 200;
+
+    private static final Duration SERVER_DELAY = Duration.ofMillis(500);
+
+    private static final AtomicInteger serverInFlight = new AtomicInteger();
+
+    private static final AtomicInteger serverPeakInFlight = new AtomicInteger();
+
+    private static final AtomicInteger serverRequests = new AtomicInteger();
+
+    private static HttpServer server;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void serverProperties(DynamicPropertyRegistry registry) {
+        startServer();
+        registry.add("shareit-server.url", () -> "http://localhost:" + server.getAddress().getPort());
+    }
+
+    private static void startServer() {
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), REQUESTS);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        server.createContext("/users", exchange -> {
+            serverRequests.incrementAndGet();
+            serverPeakInFlight.accumulateAndGet(serverInFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(SERVER_DELAY.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            serverInFlight.decrementAndGet();
+
+            byte[] body = "{\"id\":1,\"name\":\"John\",\"email\":\"john.doe@mail.com\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        server.stop(0);
+    }
+
+    @Test
+    void testInFlightRequestsAreNotLimitedByGatewayThreads() {
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long start = System.nanoTime();
+        // Адреса различаются, чтобы шлюз не объединял одинаковые запросы
+        List<HttpResponse<String>> responses = IntStream.range(0, REQUESTS)
+                .mapToObj(i -> HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users/" + i))
+                        .header("Accept", "application/json")
+                        .build())
+                .map(request -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .collect(Collectors.toList())
+                .stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(responses).allSatisfy(response -> {
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.body()).contains("\"name\":\"John\"");
+        });
+        // Потоки шлюза не ждут сервер, поэтому к нему одновременно уходит больше запросов, чем потоков
+        assertThat(serverPeakInFlight.get()).isGreaterThan(GATEWAY_THREADS * 10);
+        // В блокирующем режиме запросы заняли бы не меньше REQUESTS / GATEWAY_THREADS * SERVER_DELAY = 25 с
+        assertThat(elapsed).isLessThan(SERVER_DELAY.multipliedBy(REQUESTS / GATEWAY_THREADS / 5));
+    }
+
+    @Test
+    void testIdenticalRequestsAreCoalesced() {
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users/1"))
+                .header("Accept", "application/json")
+                .build();
+        int serverRequestsBefore = serverRequests.get();
+
+        List<HttpResponse<String>> responses = IntStream.range(0, REQUESTS)
+                .mapToObj(i -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .collect(Collectors.toList())
+                .stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+
+        assertThat(responses).allSatisfy(response -> assertThat(response.body()).contains("\"name\":\"John\""));
+        // Запросы приходят быстрее, чем сервер отвечает, поэтому почти все ждут уже отправленный запрос
+        assertThat(serverRequests.get() - serverRequestsBefore).isLessThan(REQUESTS / 10);
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import ru.practicum.shareit.ratelimit.ServerLatencyMonitor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class NonBlockingServerClientTest {
+    private HttpServer server;
+
+    private String requestBody;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/items", exchange -> {
+            requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            byte[] body = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("X-Next-Cursor", "abc");
+            exchange.sendResponseHeaders(201, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void afterEach() {
+        server.stop(0);
+    }
+
+    private NonBlockingServerClient client(int maxInFlight) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new NonBlockingServerClient(
+                new ObjectMapper(),
+                meterRegistry,
+                new ServerLatencyMonitor(meterRegistry, Duration.ofSeconds(1), 0.9, Duration.ofSeconds(10)),
+                Duration.ofSeconds(1),
+                Duration.ofSeconds(5),
+                maxInFlight
+        );
+    }
+
+    private URI uri() {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + "/items");
+    }
+
+    @Test
+    void testSend() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        NonBlockingServerClient client = client(1);
+
+        ResponseEntity<Object> response = client.send(HttpMethod.POST, uri(), headers, Map.of("name", "Дрель")).join();
+
+        assertThat(requestBody).isEqualTo("{\"name\":\"Дрель\"}");
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.getHeaders().getFirst("X-Next-Cursor")).isEqualTo("abc");
+        assertThat(response.getBody()).isEqualTo("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+        assertThat(client.inFlightRequests()).isZero();
+    }
+
+    @Test
+    void testSendOverInFlightLimit() {
+        ResponseEntity<Object> response = client(0).send(HttpMethod.GET, uri(), new HttpHeaders(), null).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(requestBody).isNull();
+    }
+
+    @Test
+    void testSendServerUnavailable() {
+        URI uri = uri();
+        server.stop(0);
+
+        assertThatThrownBy(() -> client(1).send(HttpMethod.GET, uri, new HttpHeaders(), null).join())
+                .isInstanceOf(CompletionException.class)
+                .getCause()
+                .isInstanceOf(ResourceAccessException.class)
+                .hasCauseInstanceOf(IOException.class);
+    }
+}
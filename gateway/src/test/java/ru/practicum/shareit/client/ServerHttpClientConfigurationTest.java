@@ -0,0 +1,151 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import ru.practicum.shareit.ratelimit.ServerLatencyMonitor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ServerHttpClientConfigurationTest {
+    private static final Duration SLOW_RESPONSE = Duration.ofMillis(300);
+
+    private final ServerHttpClientConfiguration configuration = new ServerHttpClientConfiguration();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private HttpServer server;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    private CloseableHttpClient httpClient;
+
+    private RestTemplate rest;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/users", exchange -> {
+            byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/items/import", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(SLOW_RESPONSE.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        connectionManager = configuration.serverConnectionManager(meterRegistry, 1, 1);
+        httpClient = configuration.serverHttpClient(
+                connectionManager,
+                new ServerLatencyMonitor(meterRegistry, Duration.ofMillis(100), 0.9, Duration.ofSeconds(10)),
+                Duration.ofSeconds(1), Duration.ofMillis(100), Duration.ofSeconds(5), Duration.ofSeconds(15)
+        );
+        rest = new RestTemplate(configuration.serverRequestFactory(httpClient));
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        release.countDown();
+        httpClient.close();
+        server.stop(0);
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    private double gauge(String name, String state) {
+        return meterRegistry.get(name).tag("state", state).gauge().value();
+    }
+
+    @Test
+    void testConnectionIsReused() {
+        rest.getForObject(url("/users"), String.class);
+        rest.getForObject(url("/users"), String.class);
+
+        assertThat(connectionManager.getTotalStats().getAvailable()).isEqualTo(1);
+        assertThat(gauge("httpcomponents.httpclient.pool.total.connections", "available")).isEqualTo(1);
+        assertThat(gauge("httpcomponents.httpclient.pool.total.connections", "leased")).isZero();
+        assertThat(meterRegistry.get(InstrumentedConnectionManager.LEASE_TIMER).tag("result", "leased").timer().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void testLeaseTimeout() throws InterruptedException {
+        Thread slowRequest = new Thread(() -> rest.getForObject(url("/slow"), String.class));
+        slowRequest.start();
+        while (connectionManager.getTotalStats().getLeased() == 0) {
+            Thread.sleep(10);
+        }
+
+        assertThatThrownBy(() -> rest.getForObject(url("/users"), String.class))
+                .isInstanceOf(ResourceAccessException.class);
+        assertThat(meterRegistry.get(InstrumentedConnectionManager.LEASE_TIMER).tag("result", "timeout").timer().count())
+                .isEqualTo(1);
+
+        release.countDown();
+        slowRequest.join();
+    }
+
+    @Test
+    void testSlowImportIsNotSampled() throws IOException {
+        ClientHttpRequest request = rest.getRequestFactory().createRequest(URI.create(url("/items/import")), HttpMethod.POST);
+        request.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON));
+        request.getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+        request.getBody().write("{\"name\":\"drill\"}\n".getBytes(StandardCharsets.UTF_8));
+        try (ClientHttpResponse response = request.execute()) {
+            assertThat(response.getRawStatusCode()).isEqualTo(200);
+        }
+
+        // Долгий импорт не попадает в среднее и не включает отклонение запросов
+        assertThat(meterRegistry.get("shareit.gateway.server.latency").timeGauge().value()).isZero();
+
+        rest.postForObject(url("/items/import"), "{}", String.class);
+
+        assertThat(meterRegistry.get("shareit.gateway.server.latency").timeGauge().value(TimeUnit.MILLISECONDS))
+                .isGreaterThanOrEqualTo(SLOW_RESPONSE.toMillis() * 0.9);
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.ExceptionControllerAdvice;
 import ru.practicum.shareit.TestUtils;
@@ -18,9 +19,12 @@ import ru.practicum.shareit.item.client.ItemClient;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -112,13 +116,17 @@ public class ItemControllerTest {
 
     @Test
     void testCreateItem() throws Exception {
-        when(itemClient.createItem(anyLong(), any())).thenReturn(itemResponse);
+        when(itemClient.createItem(anyLong(), any())).thenReturn(CompletableFuture.completedFuture(itemResponse));
 
-        mvc.perform(post("/items")
+        MvcResult result = mvc.perform(post("/items")
                         .content(TestUtils.asJsonString(itemDto))
                         .header("X-Sharer-User-Id", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(itemDto.getId()), Long.class))
                 .andExpect(jsonPath("$.name", is(itemDto.getName())))
@@ -126,15 +134,42 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.available", is(itemDto.getAvailable())));
     }
 
+    @Test
+    void testImportItems() throws Exception {
+        byte[] csv = "name,description,available\ndrill,power drill,true\n".getBytes(StandardCharsets.UTF_8);
+        byte[] report = "{\"imported\":1,\"failed\":0,\"finished\":true}\n".getBytes(StandardCharsets.UTF_8);
+        when(itemClient.importItems(eq(1L), eq(MediaType.parseMediaType("text/csv")), any(InputStream.class)))
+                .thenReturn(ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .body(outputStream -> outputStream.write(report)));
+
+        MvcResult result = mvc.perform(post("/items/import")
+                        .content(csv)
+                        .header("X-Sharer-User-Id", 1L)
+                        .contentType("text/csv")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().bytes(report));
+    }
+
     @Test
     void testAddComment() throws Exception {
-        when(itemClient.addComment(anyLong(), anyLong(), any())).thenReturn(commentResponse);
+        when(itemClient.addComment(anyLong(), anyLong(), any())).thenReturn(CompletableFuture.completedFuture(commentResponse));
 
-        mvc.perform(post("/items/1/comment")
+        MvcResult result = mvc.perform(post("/items/1/comment")
                         .content(TestUtils.asJsonString(commentDto))
                         .header("X-Sharer-User-Id", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(commentDto.getId()), Long.class))
                 .andExpect(jsonPath("$.text", is(commentDto.getText())))
@@ -146,6 +181,79 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.created[4]", is(commentDto.getCreated().getMinute())));
     }
 
+    @Test
+    void testGetItemComments() throws Exception {
+        ResponseEntity<Object> commentsResponse = ResponseEntity.ok()
+                .header("X-Next-Cursor", "next_cursor")
+                .body(TestUtils.asJsonString(List.of(commentDto)));
+
+        when(itemClient.getItemComments(1L, 1L, "cursor", 1)).thenReturn(CompletableFuture.completedFuture(commentsResponse));
+
+        MvcResult result = mvc.perform(get("/items/1/comments?cursor=cursor&size=1")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next_cursor"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].text", is(commentDto.getText())));
+    }
+
+    @Test
+    void testGetItemCommentsInvalidSize() throws Exception {
+        mvc.perform(get("/items/1/comments?size=0")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetItemAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(10);
+        ResponseEntity<Object> availabilityResponse = new ResponseEntity<>(
+                TestUtils.asJsonString(List.of(Map.of("start", from.toString(), "end", to.toString()))),
+                HttpStatus.OK
+        );
+
+        when(itemClient.getItemAvailability(1L, 1L, from, to)).thenReturn(CompletableFuture.completedFuture(availabilityResponse));
+
+        MvcResult result = mvc.perform(get("/items/1/availability")
+                        .param("from", from.toString())
+                        .param("to", to.toString())
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].start", is(from.toString())));
+    }
+
+    @Test
+    void testGetItemAvailabilityInvalidPeriod() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        mvc.perform(get("/items/1/availability")
+                        .param("from", from.toString())
+                        .param("to", from.minusDays(1).toString())
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        mvc.perform(get("/items/1/availability")
+                        .param("from", from.toString())
+                        .param("to", from.plusDays(400).toString())
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testUpdateItem() throws Exception {
         itemDto.setDescription("updatedDesc");
@@ -154,13 +262,17 @@ public class ItemControllerTest {
                 HttpStatus.OK
         );
 
-        when(itemClient.updateItem(anyLong(), anyLong(), any())).thenReturn(itemResponse);
+        when(itemClient.updateItem(anyLong(), anyLong(), any())).thenReturn(CompletableFuture.completedFuture(itemResponse));
 
-        mvc.perform(patch("/items/1")
+        MvcResult result = mvc.perform(patch("/items/1")
                         .content(TestUtils.asJsonString(itemDto))
                         .header("X-Sharer-User-Id", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(itemDto.getId()), Long.class))
                 .andExpect(jsonPath("$.name", is(itemDto.getName())))
@@ -170,12 +282,16 @@ public class ItemControllerTest {
 
     @Test
     void testGetItemById() throws Exception {
-        when(itemClient.getItemById(anyLong(), anyLong())).thenReturn(itemResponse);
+        when(itemClient.getItemById(anyLong(), anyLong())).thenReturn(CompletableFuture.completedFuture(itemResponse));
 
-        mvc.perform(get("/items/1")
+        MvcResult result = mvc.perform(get("/items/1")
                         .content(TestUtils.asJsonString(itemDto))
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(itemDto.getId()), Long.class))
                 .andExpect(jsonPath("$.name", is(itemDto.getName())))
@@ -190,12 +306,16 @@ public class ItemControllerTest {
                 HttpStatus.NOT_FOUND
         );
 
-        when(itemClient.getItemById(anyLong(), anyLong())).thenReturn(itemResponse);
+        when(itemClient.getItemById(anyLong(), anyLong())).thenReturn(CompletableFuture.completedFuture(itemResponse));
 
-        mvc.perform(get("/items/1")
+        MvcResult result = mvc.perform(get("/items/1")
                         .content(TestUtils.asJsonString(itemDto))
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isNotFound())
                 .andExpect(content().string(containsString("message")))
                 .andExpect(jsonPath("$.message", is("Вещь c ID=1 не найдена.")));
@@ -208,12 +328,16 @@ public class ItemControllerTest {
                 HttpStatus.OK
         );
 
-        when(itemClient.getUserItems(anyLong(), anyInt(), anyInt())).thenReturn(itemResponse);
+        when(itemClient.getUserItems(anyLong(), anyInt(), anyInt(), eq(false))).thenReturn(CompletableFuture.completedFuture(itemResponse));
 
-        mvc.perform(get("/items?from=1&size=20")
+        MvcResult result = mvc.perform(get("/items?from=1&size=20")
                         .content(TestUtils.asJsonString(itemDto))
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(itemDtoWithNulls.getId()), Long.class))
@@ -230,11 +354,15 @@ public class ItemControllerTest {
                 HttpStatus.OK
         );
 
-        when(itemClient.searchItems(anyLong(), anyString(), anyInt(), anyInt())).thenReturn(itemResponse);
+        when(itemClient.searchItems(anyLong(), anyString(), anyInt(), anyInt(), eq(false))).thenReturn(CompletableFuture.completedFuture(itemResponse));
 
-        mvc.perform(get("/items/search?text=search&from=1&size=20")
+        MvcResult result = mvc.perform(get("/items/search?text=search&from=1&size=20")
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(itemDtoWithNulls.getId()), Long.class))
@@ -244,6 +372,24 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$[0].requestId", is(itemDtoWithNulls.getRequestId()), Long.class));
     }
 
+    @Test
+    void testSearchItemSummaries() throws Exception {
+        when(itemClient.searchItems(1L, "search", 1, 20, true)).thenReturn(CompletableFuture.completedFuture(new ResponseEntity<>(
+                List.of(Map.of("id", 1, "commentCount", 3)),
+                HttpStatus.OK
+        )));
+
+        MvcResult result = mvc.perform(get("/items/search?text=search&from=1&size=20&summary=true")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].commentCount", is(3)));
+    }
+
     @Test
     void testSearchItemsEmptyTextParam() throws Exception {
         mvc.perform(get("/items/search?&from=1&size=20")
@@ -251,4 +397,41 @@ public class ItemControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void testStreamUserItems() throws Exception {
+        byte[] lines = (TestUtils.asJsonString(itemDtoWithNulls) + "\n").getBytes(StandardCharsets.UTF_8);
+        when(itemClient.streamUserItems(1L, 1, 20)).thenReturn(ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> outputStream.write(lines)));
+
+        MvcResult result = mvc.perform(get("/items?from=1&size=20")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().bytes(lines));
+    }
+
+    @Test
+    void testGetUserItemsAnyAcceptedType() throws Exception {
+        when(itemClient.getUserItems(anyLong(), anyInt(), anyInt(), eq(false))).thenReturn(CompletableFuture.completedFuture(new ResponseEntity<>(
+                List.of(itemDtoWithNulls),
+                HttpStatus.OK
+        )));
+
+        MvcResult result = mvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.ALL))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
 }
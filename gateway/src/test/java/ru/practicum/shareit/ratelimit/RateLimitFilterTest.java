@@ -0,0 +1,127 @@
+package ru.practicum.shareit.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class RateLimitFilterTest {
+    private static final long NOW = 1_000_000_000_000L;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ServerLatencyMonitor serverLatency;
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void beforeEach() {
+        serverLatency = new ServerLatencyMonitor(meterRegistry, Duration.ofMillis(100), 1, Duration.ofSeconds(10));
+        filter = new RateLimitFilter(serverLatency, meterRegistry, 1, 2, 1, 1, 100);
+    }
+
+    private MockHttpServletResponse perform(String method, String uri, Long userId) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (userId != null) {
+            request.addHeader("X-Sharer-User-Id", userId);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        if (response.getStatus() == HttpStatus.OK.value()) {
+            assertThat(chain.getRequest()).isNotNull();
+        } else {
+            assertThat(chain.getRequest()).isNull();
+        }
+        return response;
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.counter("shareit.gateway.requests.rejected", "reason", reason).count();
+    }
+
+    @Test
+    void testReadLimit() throws Exception {
+        assertThat(perform("GET", "/bookings", 1L).getStatus()).isEqualTo(200);
+        assertThat(perform("GET", "/bookings", 1L).getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse response = perform("GET", "/bookings?size=2000", 1L);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(response.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(response.getContentAsString()).contains("error");
+        assertThat(rejected("rate-limit")).isEqualTo(1);
+    }
+
+    @Test
+    void testBudgetsAreSeparate() throws Exception {
+        assertThat(perform("POST", "/items", 1L).getStatus()).isEqualTo(200);
+        assertThat(perform("POST", "/items", 1L).getStatus()).isEqualTo(429);
+
+        // У чтения свой бюджет, у другого пользователя - свои ведра
+        assertThat(perform("GET", "/items", 1L).getStatus()).isEqualTo(200);
+        assertThat(perform("POST", "/items", 2L).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void testRequestsWithoutUserAreLimitedByAddress() throws Exception {
+        assertThat(perform("POST", "/users", null).getStatus()).isEqualTo(200);
+        assertThat(perform("POST", "/users", null).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void testActuatorIsNotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertThat(perform("GET", "/actuator/health", null).getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void testLoadShedding() throws Exception {
+        serverLatency.record(Duration.ofMillis(500).toNanos());
+
+        MockHttpServletResponse response = perform("GET", "/items", 1L);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        assertThat(rejected("load-shedding")).isEqualTo(1);
+    }
+
+    @Test
+    void testShedRatioFollowsLatency() {
+        ServerLatencyMonitor monitor = new ServerLatencyMonitor(meterRegistry, Duration.ofMillis(100), 0.9, Duration.ofSeconds(10));
+        monitor.record(Duration.ofMillis(50).toNanos(), NOW);
+        assertThat(monitor.shedRatio(NOW)).isZero();
+
+        monitor.record(Duration.ofMillis(300).toNanos(), NOW);
+        // Среднее (50 + 0.2 * 250 = 100) еще не выше порога
+        assertThat(monitor.shedRatio(NOW)).isZero();
+
+        monitor.record(Duration.ofMillis(200).toNanos(), NOW);
+        assertThat(monitor.shedRatio(NOW)).isCloseTo(0.2, within(0.001));
+        monitor.record(Duration.ofSeconds(10).toNanos(), NOW);
+        assertThat(monitor.shedRatio(NOW)).isEqualTo(0.9);
+    }
+
+    @Test
+    void testShedRatioDecaysWithoutSamples() {
+        ServerLatencyMonitor monitor = new ServerLatencyMonitor(meterRegistry, Duration.ofMillis(100), 0.9, Duration.ofSeconds(10));
+        monitor.record(Duration.ofSeconds(30).toNanos(), NOW);
+        assertThat(monitor.shedRatio(NOW)).isEqualTo(0.9);
+
+        // 30 с * e^-6 = 74 мс - ниже порога
+        assertThat(monitor.shedRatio(NOW + Duration.ofSeconds(60).toNanos())).isZero();
+        assertThat(monitor.averageNanos(NOW + Duration.ofSeconds(10).toNanos()))
+                .isCloseTo(Duration.ofSeconds(30).toNanos() / Math.E, within(1.0));
+    }
+}
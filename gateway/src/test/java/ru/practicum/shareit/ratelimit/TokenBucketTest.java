@@ -0,0 +1,42 @@
+package ru.practicum.shareit.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenBucketTest {
+    private static final long NOW = 1_000_000_000_000L;
+
+    @Test
+    void testBurst() {
+        TokenBucket bucket = new TokenBucket(10, 3);
+
+        assertThat(bucket.tryAcquire(NOW)).isZero();
+        assertThat(bucket.tryAcquire(NOW)).isZero();
+        assertThat(bucket.tryAcquire(NOW)).isZero();
+        // Следующий токен появится через 1/10 секунды
+        assertThat(bucket.tryAcquire(NOW)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void testRefill() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+
+        assertThat(bucket.tryAcquire(NOW)).isZero();
+        assertThat(bucket.tryAcquire(NOW + TimeUnit.MILLISECONDS.toNanos(50))).isPositive();
+        assertThat(bucket.tryAcquire(NOW + TimeUnit.MILLISECONDS.toNanos(100))).isZero();
+    }
+
+    @Test
+    void testIsFull() {
+        TokenBucket bucket = new TokenBucket(10, 2);
+        assertThat(bucket.isFull(NOW)).isTrue();
+
+        bucket.tryAcquire(NOW);
+
+        assertThat(bucket.isFull(NOW)).isFalse();
+        assertThat(bucket.isFull(NOW + TimeUnit.MILLISECONDS.toNanos(100))).isTrue();
+    }
+}
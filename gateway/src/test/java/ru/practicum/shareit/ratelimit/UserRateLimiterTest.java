@@ -0,0 +1,39 @@
+package ru.practicum.shareit.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UserRateLimiterTest {
+    private static final long NOW = 1_000_000_000_000L;
+
+    @Test
+    void testUsersOverLimitShareOverflowBucket() {
+        UserRateLimiter limiter = new UserRateLimiter(1, 1, 2);
+
+        assertThat(limiter.tryAcquire("1", NOW)).isZero();
+        assertThat(limiter.tryAcquire("2", NOW)).isZero();
+        assertThat(limiter.tryAcquire("3", NOW)).isZero();
+        // Четвертый пользователь получает токены из того же общего ведра, что и третий
+        assertThat(limiter.tryAcquire("4", NOW)).isPositive();
+        assertThat(limiter.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testFullBucketsAreSweptOncePerInterval() {
+        UserRateLimiter limiter = new UserRateLimiter(1, 1, 2);
+        limiter.tryAcquire("1", NOW);
+        limiter.tryAcquire("2", NOW);
+
+        // Ведра уже полные, но интервал очистки (1 с) еще не прошел
+        long beforeSweep = NOW + TimeUnit.MILLISECONDS.toNanos(999);
+        assertThat(limiter.tryAcquire("3", beforeSweep)).isZero();
+        assertThat(limiter.size()).isEqualTo(2);
+
+        long afterSweep = NOW + TimeUnit.SECONDS.toNanos(1);
+        assertThat(limiter.tryAcquire("4", afterSweep)).isZero();
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.ExceptionControllerAdvice;
 import ru.practicum.shareit.TestUtils;
@@ -22,11 +23,13 @@ import ru.practicum.shareit.user.dto.UserDtoSimple;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -93,13 +96,17 @@ public class ItemRequestControllerTest {
 
     @Test
     void testCreateItemRequest() throws Exception {
-        when(itemRequestClient.createItemRequest(anyLong(), any())).thenReturn(itemRequestResponse);
+        when(itemRequestClient.createItemRequest(anyLong(), any())).thenReturn(CompletableFuture.completedFuture(itemRequestResponse));
 
-        mvc.perform(post("/requests")
+        MvcResult result = mvc.perform(post("/requests")
                         .content(TestUtils.asJsonString(itemRequestDto))
                         .header("X-Sharer-User-Id", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(itemRequestDto.getId()), Long.class))
                 .andExpect(jsonPath("$.description", is(itemRequestDto.getDescription())))
@@ -129,13 +136,17 @@ public class ItemRequestControllerTest {
                 HttpStatus.NOT_FOUND
         );
 
-        when(itemRequestClient.createItemRequest(anyLong(), any())).thenReturn(itemRequestResponse);
+        when(itemRequestClient.createItemRequest(anyLong(), any())).thenReturn(CompletableFuture.completedFuture(itemRequestResponse));
 
-        mvc.perform(post("/requests")
+        MvcResult result = mvc.perform(post("/requests")
                         .content(TestUtils.asJsonString(itemRequestDto))
                         .header("X-Sharer-User-Id", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isNotFound())
                 .andExpect(content().string(containsString("message")))
                 .andExpect(jsonPath("$.message", is("Пользователь c ID=1 не найден.")));
@@ -149,11 +160,15 @@ public class ItemRequestControllerTest {
                 HttpStatus.OK
         );
 
-        when(itemRequestClient.getAllItemRequestsFromUser(anyLong())).thenReturn(itemRequestResponse);
+        when(itemRequestClient.getAllItemRequestsFromUser(anyLong())).thenReturn(CompletableFuture.completedFuture(itemRequestResponse));
 
-        mvc.perform(get("/requests")
+        MvcResult result = mvc.perform(get("/requests")
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(itemRequestResponseDto.getId()), Long.class))
@@ -178,11 +193,15 @@ public class ItemRequestControllerTest {
                 HttpStatus.OK
         );
 
-        when(itemRequestClient.getAllOtherUsersRequests(anyLong(), anyInt(), anyInt())).thenReturn(itemRequestResponse);
+        when(itemRequestClient.getAllOtherUsersRequests(anyLong(), anyInt(), anyInt())).thenReturn(CompletableFuture.completedFuture(itemRequestResponse));
 
-        mvc.perform(get("/requests/all?from=0&size=4")
+        MvcResult result = mvc.perform(get("/requests/all?from=0&size=4")
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(itemRequestResponseDto.getId()), Long.class))
@@ -207,11 +226,15 @@ public class ItemRequestControllerTest {
                 HttpStatus.OK
         );
 
-        when(itemRequestClient.getAllOtherUsersRequests(anyLong(), anyInt(), anyInt())).thenReturn(itemRequestResponse);
+        when(itemRequestClient.getAllOtherUsersRequests(anyLong(), anyInt(), anyInt())).thenReturn(CompletableFuture.completedFuture(itemRequestResponse));
 
-        mvc.perform(get("/requests/all")
+        MvcResult result = mvc.perform(get("/requests/all")
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(itemRequestResponseDto.getId()), Long.class))
@@ -246,11 +269,15 @@ public class ItemRequestControllerTest {
                 HttpStatus.OK
         );
 
-        when(itemRequestClient.getItemRequestById(anyLong(), anyLong())).thenReturn(itemRequestResponse);
+        when(itemRequestClient.getItemRequestById(anyLong(), anyLong())).thenReturn(CompletableFuture.completedFuture(itemRequestResponse));
 
-        mvc.perform(get("/requests/" + 1L)
+        MvcResult result = mvc.perform(get("/requests/" + 1L)
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(itemRequestResponseDto.getId()), Long.class))
                 .andExpect(jsonPath("$.description", is(itemRequestResponseDto.getDescription())))
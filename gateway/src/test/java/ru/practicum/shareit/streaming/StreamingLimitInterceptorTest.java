@@ -0,0 +1,89 @@
+package ru.practicum.shareit.streaming;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.practicum.shareit.ExceptionControllerAdvice;
+import ru.practicum.shareit.booking.client.BookingClient;
+import ru.practicum.shareit.booking.controller.BookingController;
+import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.exception.PageableIsNotValidException;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StreamingLimitInterceptorTest {
+    @Mock
+    private BookingClient bookingClient;
+
+    @InjectMocks
+    private BookingController bookingController;
+
+    private StreamingLimitInterceptor interceptor;
+
+    private MockMvc mvc;
+
+    @BeforeEach
+    void beforeEach() {
+        interceptor = new StreamingLimitInterceptor(new SimpleMeterRegistry(), 1);
+        mvc = MockMvcBuilders
+                .standaloneSetup(bookingController)
+                .setControllerAdvice(ExceptionControllerAdvice.class)
+                .addInterceptors(interceptor)
+                .build();
+    }
+
+    @Test
+    void testRejectStreamOverLimit() throws Exception {
+        byte[] lines = "{\"id\":1}\n".getBytes(StandardCharsets.UTF_8);
+        when(bookingClient.streamUserBookings(1L, BookingState.ALL, 0, 10)).thenReturn(ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> outputStream.write(lines)));
+
+        MvcResult first = mvc.perform(get("/bookings?from=0&size=10")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(interceptor.availablePermits()).isZero();
+
+        mvc.perform(get("/bookings?from=0&size=10")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(result -> assertThat(result.getResponse().getContentAsString(StandardCharsets.UTF_8))
+                        .contains("потоковых"));
+
+        mvc.perform(asyncDispatch(first))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(lines));
+        assertThat(interceptor.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void testReleasePermitWhenStreamNotStarted() {
+        assertThatThrownBy(() -> mvc.perform(get("/bookings?from=-1&size=10")
+                .header("X-Sharer-User-Id", 1L)
+                .accept(MediaType.APPLICATION_NDJSON)))
+                .hasCauseInstanceOf(PageableIsNotValidException.class);
+
+        assertThat(interceptor.availablePermits()).isEqualTo(1);
+    }
+}
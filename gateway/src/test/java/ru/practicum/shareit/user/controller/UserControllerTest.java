@@ -10,6 +10,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.ExceptionControllerAdvice;
 import ru.practicum.shareit.TestUtils;
@@ -18,6 +19,7 @@ import ru.practicum.shareit.user.dto.UserDto;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -63,12 +65,16 @@ public class UserControllerTest {
 
     @Test
     void testCreateUser() throws Exception {
-        when(userClient.createUser(any(UserDto.class))).thenReturn(userResponse);
+        when(userClient.createUser(any(UserDto.class))).thenReturn(CompletableFuture.completedFuture(userResponse));
 
-        mvc.perform(post("/users")
+        MvcResult result = mvc.perform(post("/users")
                         .content(TestUtils.asJsonString(userDto))
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(userDto.getId()), Long.class))
                 .andExpect(jsonPath("$.name", is(userDto.getName())))
@@ -85,12 +91,16 @@ public class UserControllerTest {
                 HttpStatus.BAD_REQUEST
         );
 
-        when(userClient.createUser(any(UserDto.class))).thenReturn(userResponse);
+        when(userClient.createUser(any(UserDto.class))).thenReturn(CompletableFuture.completedFuture(userResponse));
 
-        mvc.perform(post("/users")
+        MvcResult result = mvc.perform(post("/users")
                         .content(TestUtils.asJsonString(userDto))
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isBadRequest())
                 .andExpect(content().string(containsString("email")))
                 .andExpect(jsonPath("$.email", is("Электронная почта не может быть пустой.")));
@@ -105,12 +115,16 @@ public class UserControllerTest {
                 HttpStatus.OK
         );
 
-        when(userClient.updateUser(anyLong(), any(UserDto.class))).thenReturn(userResponse);
+        when(userClient.updateUser(anyLong(), any(UserDto.class))).thenReturn(CompletableFuture.completedFuture(userResponse));
 
-        mvc.perform(patch("/users/" + 1L)
+        MvcResult result = mvc.perform(patch("/users/" + 1L)
                         .content(TestUtils.asJsonString(userDto))
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(userDto.getId()), Long.class))
                 .andExpect(jsonPath("$.name", is(userDto.getName())))
@@ -126,12 +140,16 @@ public class UserControllerTest {
                 HttpStatus.NOT_FOUND
         );
 
-        when(userClient.updateUser(anyLong(), any(UserDto.class))).thenReturn(userResponse);
+        when(userClient.updateUser(anyLong(), any(UserDto.class))).thenReturn(CompletableFuture.completedFuture(userResponse));
 
-        mvc.perform(patch("/users/" + 1L)
+        MvcResult result = mvc.perform(patch("/users/" + 1L)
                         .content(TestUtils.asJsonString(userDto))
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isNotFound())
                 .andExpect(content().string(containsString("message")))
                 .andExpect(jsonPath("$.message", is("Пользователь c ID=1 не найден.")));
@@ -144,12 +162,16 @@ public class UserControllerTest {
                 HttpStatus.OK
         );
 
-        when(userClient.deleteUser(anyLong())).thenReturn(userResponse);
+        when(userClient.deleteUser(anyLong())).thenReturn(CompletableFuture.completedFuture(userResponse));
 
-        mvc.perform(delete("/users/" + 1L)
+        MvcResult result = mvc.perform(delete("/users/" + 1L)
                         .content(TestUtils.asJsonString(userDto))
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk());
     }
 
@@ -160,12 +182,16 @@ public class UserControllerTest {
                 HttpStatus.NOT_FOUND
         );
 
-        when(userClient.deleteUser(anyLong())).thenReturn(userResponse);
+        when(userClient.deleteUser(anyLong())).thenReturn(CompletableFuture.completedFuture(userResponse));
 
-        mvc.perform(delete("/users/" + 1L)
+        MvcResult result = mvc.perform(delete("/users/" + 1L)
                         .content(TestUtils.asJsonString(userDto))
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isNotFound())
                 .andExpect(content().string(containsString("message")))
                 .andExpect(jsonPath("$.message", is("Пользователь c ID=1 не найден.")));
@@ -173,10 +199,14 @@ public class UserControllerTest {
 
     @Test
     void testGetUserById() throws Exception {
-        when(userClient.getUserById(anyLong())).thenReturn(userResponse);
+        when(userClient.getUserById(anyLong())).thenReturn(CompletableFuture.completedFuture(userResponse));
 
-        mvc.perform(get("/users/" + 1L)
+        MvcResult result = mvc.perform(get("/users/" + 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(userDto.getId()), Long.class))
                 .andExpect(jsonPath("$.name", is(userDto.getName())))
@@ -191,10 +221,14 @@ public class UserControllerTest {
                 HttpStatus.NOT_FOUND
         );
 
-        when(userClient.getUserById(anyLong())).thenReturn(userResponse);
+        when(userClient.getUserById(anyLong())).thenReturn(CompletableFuture.completedFuture(userResponse));
 
-        mvc.perform(get("/users/" + 1L)
+        MvcResult result = mvc.perform(get("/users/" + 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isNotFound())
                 .andExpect(content().string(containsString("message")))
                 .andExpect(jsonPath("$.message", is("Пользователь c ID=1 не найден.")));
@@ -207,10 +241,14 @@ public class UserControllerTest {
                 HttpStatus.OK
         );
 
-        when(userClient.getAllUsers()).thenReturn(userResponse);
+        when(userClient.getAllUsers()).thenReturn(CompletableFuture.completedFuture(userResponse));
 
-        mvc.perform(get("/users")
+        MvcResult result = mvc.perform(get("/users")
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is(userDto.getId()), Long.class))
@@ -225,10 +263,14 @@ public class UserControllerTest {
                 HttpStatus.OK
         );
 
-        when(userClient.getAllUsers()).thenReturn(userResponse);
+        when(userClient.getAllUsers()).thenReturn(CompletableFuture.completedFuture(userResponse));
 
-        mvc.perform(get("/users")
+        MvcResult result = mvc.perform(get("/users")
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(0)));
     }
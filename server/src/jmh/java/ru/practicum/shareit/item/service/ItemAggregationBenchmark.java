@@ -0,0 +1,118 @@
+package ru.practicum.shareit.item.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.practicum.shareit.collection.LongObjectHashMap;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.mapper.CommentMapper;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Сравнивает группировку комментариев по сущности Item (прежний вариант), по id вещи в HashMap
+ * и по id вещи в LongObjectHashMap.
+ * Запуск: mvn -P benchmark -pl server test-compile exec:exec -Djmh.includes=ItemAggregationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemAggregationBenchmark {
+    private static final int COMMENTS_PER_ITEM = 3;
+
+    @Param({"100", "2000", "20000"})
+    private int itemCount;
+
+    private List<Item> items;
+
+    private List<Comment> comments;
+
+    @Setup
+    public void setup() {
+        User owner = user(1L, "owner");
+        User requestor = user(2L, "requestor");
+
+        ItemRequest request = new ItemRequest();
+        request.setId(1L);
+        request.setDescription("request_description");
+        request.setRequestor(requestor);
+        request.setCreated(LocalDateTime.now());
+
+        items = new ArrayList<>(itemCount);
+        comments = new ArrayList<>(itemCount * COMMENTS_PER_ITEM);
+        for (long id = 1; id <= itemCount; id++) {
+            Item item = new Item();
+            item.setId(id);
+            item.setName("item_name_" + id);
+            item.setDescription("item_description_" + id);
+            item.setAvailable(true);
+            item.setOwner(owner);
+            item.setRequest(request);
+            items.add(item);
+
+            for (int i = 0; i < COMMENTS_PER_ITEM; i++) {
+                Comment comment = new Comment();
+                comment.setId(id * COMMENTS_PER_ITEM + i);
+                comment.setText("comment_" + i);
+                comment.setItem(item);
+                comment.setAuthor(requestor);
+                comment.setCreated(LocalDateTime.now());
+                comments.add(comment);
+            }
+        }
+    }
+
+    private static User user(long id, String name) {
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        user.setEmail(name + "@mail.com");
+
+        return user;
+    }
+
+    @Benchmark
+    public void groupByEntity(Blackhole blackhole) {
+        Map<Item, List<CommentDto>> itemToComments = comments.stream()
+                .collect(groupingBy(Comment::getItem, mapping(CommentMapper::toCommentDto, toList())));
+        for (Item item : items) {
+            blackhole.consume(itemToComments.get(item));
+        }
+    }
+
+    @Benchmark
+    public void groupByBoxedId(Blackhole blackhole) {
+        Map<Long, List<CommentDto>> itemToComments = new HashMap<>();
+        for (Comment comment : comments) {
+            itemToComments.computeIfAbsent(comment.getItem().getId(), id -> new ArrayList<>())
+                    .add(CommentMapper.toCommentDto(comment));
+        }
+        for (Item item : items) {
+            blackhole.consume(itemToComments.get(item.getId()));
+        }
+    }
+
+    @Benchmark
+    public void groupById(Blackhole blackhole) {
+        LongObjectHashMap<List<CommentDto>> itemToComments =
+                ItemServiceImpl.groupCommentsByItemId(comments, items.size());
+        for (Item item : items) {
+            blackhole.consume(itemToComments.get(item.getId()));
+        }
+    }
+}
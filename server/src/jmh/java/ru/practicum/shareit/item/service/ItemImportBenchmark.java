@@ -0,0 +1,106 @@
+package ru.practicum.shareit.item.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.dto.ItemImportEventDto;
+import ru.practicum.shareit.item.storage.ItemSearchCache;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Импорт ROWS строк NDJSON или CSV в H2 в памяти: разбор, проверка и пакетная запись порциями.
+ * Пропускная способность в строках в секунду - ROWS / время одного импорта.
+ * Запуск: mvn -P benchmark -pl server test-compile exec:exec -Djmh.includes=ItemImportBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemImportBenchmark {
+    private static final int ROWS = 10_000;
+    private static final long OWNER_ID = 1L;
+
+    @Param({"NDJSON", "CSV"})
+    private ItemImportFormat format;
+
+    @Param({"1000"})
+    private int chunkSize;
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private ItemImporter itemImporter;
+
+    private String body;
+
+    @Setup
+    public void setup() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:import_benchmark;DB_CLOSE_DELAY=-1", "test", "test"
+        );
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("schema-h2.sql"))
+                .execute(dataSource);
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        jdbcTemplate.getJdbcTemplate().update(
+                "MERGE INTO users (id, name, email) KEY (id) VALUES (?, 'owner', 'owner@mail.com')", OWNER_ID
+        );
+
+        User owner = new User();
+        owner.setId(OWNER_ID);
+        UserService userService = Mockito.mock(UserService.class);
+        Mockito.when(userService.getUserById(OWNER_ID)).thenReturn(owner);
+
+        itemImporter = new ItemImporter(
+                jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                new ObjectMapper(),
+                userService,
+                new ItemSearchIndex(null, false),
+                new ItemSearchCache(null, new SimpleMeterRegistry(), 10, Duration.ofMinutes(5)),
+                chunkSize,
+                100
+        );
+
+        StringBuilder builder = new StringBuilder();
+        if (format == ItemImportFormat.CSV) {
+            builder.append("name,description,available\n");
+        }
+        for (int i = 0; i < ROWS; i++) {
+            if (format == ItemImportFormat.CSV) {
+                builder.append("item_").append(i).append(",\"description, number ").append(i).append("\",true\n");
+            } else {
+                builder.append("{\"name\":\"item_").append(i)
+                        .append("\",\"description\":\"description, number ").append(i)
+                        .append("\",\"available\":true}\n");
+            }
+        }
+        body = builder.toString();
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearItems() {
+        jdbcTemplate.getJdbcTemplate().update("DELETE FROM items");
+    }
+
+    @Benchmark
+    public ItemImportEventDto importItems() throws IOException {
+        return itemImporter.importItems(OWNER_ID, new BufferedReader(new StringReader(body)), format, event -> {
+        });
+    }
+}
@@ -5,7 +5,11 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.practicum.shareit.booking.exception.*;
+import ru.practicum.shareit.exception.CursorIsNotValidException;
+import ru.practicum.shareit.exception.PageableIsNotValidException;
+import ru.practicum.shareit.item.exception.AvailabilityPeriodIsNotValidException;
 import ru.practicum.shareit.item.exception.CannotLeaveCommentException;
+import ru.practicum.shareit.item.exception.ItemImportHeaderIsNotValidException;
 import ru.practicum.shareit.item.exception.ItemNotFoundException;
 import ru.practicum.shareit.item.exception.UserIsNotOwnerException;
 import ru.practicum.shareit.request.exception.ItemRequestNotFoundException;
@@ -16,16 +20,24 @@ import java.util.Map;
 
 @RestControllerAdvice
 public class ExceptionControllerAdvice {
-    @ExceptionHandler(DuplicateEmailException.class)
+    @ExceptionHandler({
+            DuplicateEmailException.class,
+            BookingPeriodIsAlreadyTakenException.class,
+            BookingWasModifiedException.class
+    })
     @ResponseStatus(HttpStatus.CONFLICT)
-    public Map<String, String> handleDuplicateEmailExceptions(RuntimeException ex) {
+    public Map<String, String> handleConflictExceptions(RuntimeException ex) {
         return Map.of("message", ex.getMessage());
     }
 
     @ExceptionHandler({
             CannotBookUnavailableItemException.class,
             SameApproveStatusException.class,
-            CannotLeaveCommentException.class
+            CannotLeaveCommentException.class,
+            CursorIsNotValidException.class,
+            PageableIsNotValidException.class,
+            ItemImportHeaderIsNotValidException.class,
+            AvailabilityPeriodIsNotValidException.class
     })
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleBadRequestExceptions(RuntimeException ex) {
@@ -1,27 +1,40 @@
 package ru.practicum.shareit.booking.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.CreateBookingBatchDto;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.storage.BookingView;
+import ru.practicum.shareit.pagination.SeekCursor;
+import ru.practicum.shareit.streaming.NdjsonWriter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping(path = "/bookings")
 public class BookingController {
-
     private final BookingService bookingService;
 
+    private final ObjectMapper objectMapper;
+
     @Autowired
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, ObjectMapper objectMapper) {
         this.bookingService = bookingService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -33,6 +46,16 @@ public class BookingController {
         return BookingMapper.toBookingDto(createdBooking);
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> createBookings(
+            @RequestHeader(value = "X-Sharer-User-Id") long userId,
+            @RequestBody CreateBookingBatchDto newBookingsDto
+    ) {
+        return bookingService.createBookings(userId, newBookingsDto.getBookings()).stream()
+                .map(BookingMapper::toBookingBatchResultDto)
+                .collect(Collectors.toList());
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingDto approveBooking(
             @RequestHeader("X-Sharer-User-Id") long userId,
@@ -53,15 +76,35 @@ public class BookingController {
     }
 
     @GetMapping
-    public Collection<BookingDto> getUserBookings(
+    public ResponseEntity<Collection<BookingDto>> getUserBookings(
             @RequestHeader("X-Sharer-User-Id") long userId,
             @RequestParam(defaultValue = "ALL") BookingState state,
             @RequestParam(defaultValue = "0") int from,
-            @RequestParam(defaultValue = "2000") int size
+            @RequestParam(defaultValue = "2000") int size,
+            @RequestParam(required = false) String cursor
     ) {
-        return bookingService.getUserBookings(userId, state, PageRequest.of(from, size)).stream()
-                .map(BookingMapper::toBookingDto)
-                .collect(Collectors.toList());
+        Collection<BookingView> bookings;
+        if (cursor != null) {
+            bookings = bookingService.getUserBookings(userId, state, SeekCursor.decode(cursor), size);
+        } else {
+            bookings = bookingService.getUserBookings(userId, state, PageRequest.of(from, size));
+        }
+
+        return withNextCursor(bookings, size);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamUserBookings(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(defaultValue = "ALL") BookingState state,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "2000") int size,
+            HttpServletResponse response
+    ) throws IOException {
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response);
+        bookingService.streamUserBookings(userId, state, PageRequest.of(from, size),
+                booking -> writer.write(BookingMapper.toBookingDto(booking)));
+        writer.finish();
     }
 
     @GetMapping("/owner")
@@ -76,4 +119,33 @@ public class BookingController {
                 .map(BookingMapper::toBookingDto)
                 .collect(Collectors.toList());
     }
+
+    @GetMapping(path = "/owner", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamOwnedItemsBookings(
+            @RequestHeader("X-Sharer-User-Id") long ownerId,
+            @RequestParam(defaultValue = "ALL") BookingState state,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "2000") int size,
+            HttpServletResponse response
+    ) throws IOException {
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response);
+        bookingService.streamOwnedItemsBookings(ownerId, state, PageRequest.of(from, size),
+                booking -> writer.write(BookingMapper.toBookingDto(booking)));
+        writer.finish();
+    }
+
+    private ResponseEntity<Collection<BookingDto>> withNextCursor(Collection<BookingView> bookings, int size) {
+        List<BookingDto> bookingDtos = bookings.stream()
+                .map(BookingMapper::toBookingDto)
+                .collect(Collectors.toList());
+
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.ok();
+        // Курсор отдается только для полной страницы - дальше могут быть еще записи
+        if (!bookingDtos.isEmpty() && bookingDtos.size() == size) {
+            BookingDto last = bookingDtos.get(bookingDtos.size() - 1);
+            responseBuilder.header(SeekCursor.NEXT_CURSOR_HEADER, new SeekCursor(last.getStart(), last.getId()).encode());
+        }
+
+        return responseBuilder.body(bookingDtos);
+    }
 }
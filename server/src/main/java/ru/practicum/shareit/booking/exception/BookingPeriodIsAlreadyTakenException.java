@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.exception;
+
+import java.time.LocalDateTime;
+
+public class BookingPeriodIsAlreadyTakenException extends RuntimeException {
+    public BookingPeriodIsAlreadyTakenException(long itemId, LocalDateTime start, LocalDateTime end) {
+        super(String.format("Вещь с ID=%s уже забронирована на период с %s по %s.", itemId, start, end));
+    }
+}
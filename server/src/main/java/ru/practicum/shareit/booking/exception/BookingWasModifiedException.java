@@ -0,0 +1,7 @@
+package ru.practicum.shareit.booking.exception;
+
+public class BookingWasModifiedException extends RuntimeException {
+    public BookingWasModifiedException(long bookingId) {
+        super(String.format("Бронирование c ID=%s было изменено параллельно, повторите запрос.", bookingId));
+    }
+}
@@ -1,10 +1,13 @@
 package ru.practicum.shareit.booking.mapper;
 
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.booking.dto.BookingTimeIntervalDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingBatchResult;
+import ru.practicum.shareit.booking.storage.BookingView;
 import ru.practicum.shareit.item.dto.ItemDtoSimple;
 import ru.practicum.shareit.user.dto.UserDtoSimple;
 
@@ -30,6 +33,26 @@ public class BookingMapper {
                 .build();
     }
 
+    public static BookingDto toBookingDto(BookingView booking) {
+        ItemDtoSimple itemDto = ItemDtoSimple.builder()
+                .id(booking.getItemId())
+                .name(booking.getItemName())
+                .build();
+        UserDtoSimple userDto = UserDtoSimple.builder()
+                .id(booking.getBookerId())
+                .name(booking.getBookerName())
+                .build();
+
+        return BookingDto.builder()
+                .id(booking.getId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .item(itemDto)
+                .booker(userDto)
+                .status(BookingState.valueOf(booking.getStatus().toString()))
+                .build();
+    }
+
     public static BookingTimeIntervalDto toBookingTimeIntervalDto(Booking booking) {
         return BookingTimeIntervalDto.builder()
                 .id(booking.getId())
@@ -38,4 +61,12 @@ public class BookingMapper {
                 .bookerId(booking.getBooker().getId())
                 .build();
     }
-}
\ No newline at end of file
+
+    public static BookingBatchResultDto toBookingBatchResultDto(BookingBatchResult result) {
+        return BookingBatchResultDto.builder()
+                .index(result.getIndex())
+                .booking(result.getBooking() != null ? toBookingDto(result.getBooking()) : null)
+                .error(result.getError())
+                .build();
+    }
+}
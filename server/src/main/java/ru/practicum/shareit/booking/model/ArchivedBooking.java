@@ -0,0 +1,51 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Завершенная бронь, перенесенная из bookings в архив. Связи с вещью и пользователем хранятся только как ID.
+ */
+@Entity
+@Table(name = "bookings_archive", schema = "public")
+@Getter
+@Setter
+@ToString
+public class ArchivedBooking {
+    @Id
+    private long id;
+
+    @Column(name = "start_ts", nullable = false)
+    private LocalDateTime start;
+
+    @Column(name = "end_ts", nullable = false)
+    private LocalDateTime end;
+
+    @Column(name = "item", nullable = false)
+    private long itemId;
+
+    @Column(name = "booker")
+    private Long bookerId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private BookingStatus status;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ArchivedBooking)) return false;
+        ArchivedBooking that = (ArchivedBooking) o;
+        return id == that.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.storage.BookingEdgesProjection;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Переносит брони, завершившиеся раньше горизонта архивации, из bookings в bookings_archive.
+ * Перенос идет порциями, каждая порция - отдельная транзакция.
+ * <p>
+ * Архивная бронь по-прежнему доступна по ID, дает право оставить отзыв и попадает в списки бронирований
+ * вместе с живыми бронями.
+ */
+@Component
+@Slf4j
+public class BookingArchiver {
+    private static final String SELECT_FINISHED =
+            "SELECT id FROM bookings WHERE end_ts < :threshold ORDER BY id LIMIT :limit";
+    private static final String COPY_TO_ARCHIVE =
+            "INSERT INTO bookings_archive (id, start_ts, end_ts, item, booker, status) " +
+                    "SELECT id, start_ts, end_ts, item, booker, status FROM bookings " +
+                    "WHERE id IN (:ids) AND end_ts < :threshold";
+    // Условие на end_ts позволяет PostgreSQL не просматривать секции со свежими бронями
+    private static final String DELETE_ARCHIVED =
+            "DELETE FROM bookings WHERE id IN (:ids) AND end_ts < :threshold";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final BookingEdgesProjection bookingEdgesProjection;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration horizon;
+    private final int batchSize;
+
+    @Autowired
+    public BookingArchiver(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            BookingEdgesProjection bookingEdgesProjection,
+            TransactionTemplate transactionTemplate,
+            @Value("${shareit.booking.archive.horizon:P180D}") Duration horizon,
+            @Value("${shareit.booking.archive.batch-size:1000}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookingEdgesProjection = bookingEdgesProjection;
+        this.transactionTemplate = transactionTemplate;
+        this.horizon = horizon;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${shareit.booking.archive.cron:0 30 3 * * *}")
+    public void archiveFinishedBookings() {
+        int archived = archiveFinishedBefore(LocalDateTime.now().minus(horizon));
+        log.info("Перенесено в архив бронирований: {}", archived);
+    }
+
+    public int archiveFinishedBefore(LocalDateTime threshold) {
+        int archived = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> {
+                List<Long> ids = jdbcTemplate.queryForList(
+                        SELECT_FINISHED,
+                        new MapSqlParameterSource("threshold", threshold).addValue("limit", batchSize),
+                        Long.class
+                );
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+
+                MapSqlParameterSource parameters = new MapSqlParameterSource("ids", ids).addValue("threshold", threshold);
+                jdbcTemplate.update(COPY_TO_ARCHIVE, parameters);
+                return jdbcTemplate.update(DELETE_ARCHIVED, parameters);
+            });
+            archived += moved;
+        } while (moved == batchSize);
+
+        if (archived > 0) {
+            // Последняя бронь вещи могла уйти в архив
+            bookingEdgesProjection.evictAll();
+        }
+
+        return archived;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.model.Booking;
+
+/**
+ * Результат создания одной брони из пакета: созданная бронь либо причина отказа.
+ */
+@Value
+public class BookingBatchResult {
+    int index;
+    Booking booking;
+    String error;
+
+    public static BookingBatchResult created(int index, Booking booking) {
+        return new BookingBatchResult(index, booking, null);
+    }
+
+    public static BookingBatchResult failed(int index, String error) {
+        return new BookingBatchResult(index, null, error);
+    }
+}
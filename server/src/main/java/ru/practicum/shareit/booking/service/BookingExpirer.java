@@ -0,0 +1,95 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingEdgesProjection;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Отменяет брони, которые так и не были подтверждены к моменту начала.
+ * Статус меняется одним UPDATE на порцию броней, каждая порция - отдельная транзакция.
+ * После фиксации порции сбрасываются последняя и следующая брони затронутых вещей.
+ */
+@Component
+@Slf4j
+public class BookingExpirer {
+    private final BookingRepository bookingStorage;
+    private final BookingEdgesProjection bookingEdgesProjection;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration gracePeriod;
+    private final int batchSize;
+    private final Counter expiredCounter;
+    private final DistributionSummary expiredPerRun;
+    private final Timer runTimer;
+
+    @Autowired
+    public BookingExpirer(
+            BookingRepository bookingStorage,
+            BookingEdgesProjection bookingEdgesProjection,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${shareit.booking.expiry.grace-period:PT1H}") Duration gracePeriod,
+            @Value("${shareit.booking.expiry.batch-size:500}") int batchSize
+    ) {
+        this.bookingStorage = bookingStorage;
+        this.bookingEdgesProjection = bookingEdgesProjection;
+        this.transactionTemplate = transactionTemplate;
+        this.gracePeriod = gracePeriod;
+        this.batchSize = batchSize;
+        this.expiredCounter = Counter.builder("shareit.bookings.expired")
+                .description("Брони, отмененные из-за отсутствия подтверждения")
+                .register(meterRegistry);
+        this.expiredPerRun = DistributionSummary.builder("shareit.bookings.expiry.run.expired")
+                .description("Число броней, отмененных за один запуск")
+                .baseUnit("bookings")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("shareit.bookings.expiry.duration")
+                .description("Длительность запуска отмены неподтвержденных броней")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.interval:PT5M}")
+    public void expireWaitingBookings() {
+        int expired = runTimer.record(() -> expireStartedBefore(LocalDateTime.now().minus(gracePeriod)));
+        expiredPerRun.record(expired);
+        if (expired > 0) {
+            log.info("Отменено неподтвержденных бронирований: {}", expired);
+        }
+    }
+
+    public int expireStartedBefore(LocalDateTime threshold) {
+        int expired = 0;
+        int updated;
+        do {
+            updated = transactionTemplate.execute(status -> {
+                List<Long> ids = bookingStorage.findBookingIdsByStatusAndStartBefore(
+                        BookingStatus.WAITING, threshold, PageRequest.of(0, batchSize)
+                );
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+
+                bookingStorage.findItemIdsByBookingIds(ids).forEach(bookingEdgesProjection::evict);
+                return bookingStorage.updateStatus(ids, BookingStatus.WAITING, BookingStatus.CANCELED);
+            });
+            expired += updated;
+            expiredCounter.increment(updated);
+        } while (updated == batchSize);
+
+        return expired;
+    }
+}
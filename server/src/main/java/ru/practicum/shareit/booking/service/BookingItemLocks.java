@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.transaction.StripedLocks;
+
+/**
+ * Блокировки по ID вещи: подтверждения бронирований одной вещи выполняются последовательно,
+ * разных вещей - параллельно.
+ */
+@Component
+public class BookingItemLocks extends StripedLocks {
+    @Autowired
+    public BookingItemLocks(@Value("${shareit.booking.item-lock-stripes:64}") int stripeCount) {
+        super(stripeCount);
+    }
+}
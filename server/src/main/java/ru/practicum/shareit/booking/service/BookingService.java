@@ -4,17 +4,29 @@ import org.springframework.data.domain.Pageable;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingView;
+import ru.practicum.shareit.pagination.SeekCursor;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
     Booking createBooking(long userId, CreateBookingDto newBooking);
 
+    List<BookingBatchResult> createBookings(long userId, List<CreateBookingDto> newBookings);
+
     Booking approveBooking(long userId, long bookingId, boolean isApproved);
 
     Booking getBookingById(long userId, long bookingId);
 
-    Collection<Booking> getUserBookings(long userId, BookingState state, Pageable pageable);
+    Collection<BookingView> getUserBookings(long userId, BookingState state, Pageable pageable);
+
+    Collection<BookingView> getUserBookings(long userId, BookingState state, SeekCursor after, int size);
+
+    Collection<BookingView> getOwnedItemsBookings(long ownerId, BookingState state, Pageable pageable);
+
+    void streamUserBookings(long userId, BookingState state, Pageable pageable, Consumer<Booking> consumer);
 
-    Collection<Booking> getOwnedItemsBookings(long ownerId, BookingState state, Pageable pageable);
+    void streamOwnedItemsBookings(long ownerId, BookingState state, Pageable pageable, Consumer<Booking> consumer);
 }
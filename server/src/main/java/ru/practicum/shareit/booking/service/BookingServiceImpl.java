@@ -2,55 +2,145 @@ package ru.practicum.shareit.booking.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
 import ru.practicum.shareit.booking.exception.*;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.storage.BookingEdgesProjection;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.BookingView;
+import ru.practicum.shareit.item.exception.ItemNotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.SeekCursor;
+import ru.practicum.shareit.streaming.EntityStreams;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
-import java.util.Collection;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 public class BookingServiceImpl implements BookingService {
 
     private final BookingRepository bookingStorage;
 
+    private final ArchivedBookingRepository archivedBookingStorage;
+
+    private final BookingIntervalIndex bookingIntervalIndex;
+
+    private final BookingEdgesProjection bookingEdgesProjection;
+
+    private final BookingItemLocks bookingItemLocks;
+
     private final ItemService itemService;
 
     private final UserService userService;
 
+    private final EntityStreams entityStreams;
+
     @Autowired
     public BookingServiceImpl(
             BookingRepository bookingStorage,
+            ArchivedBookingRepository archivedBookingStorage,
+            BookingIntervalIndex bookingIntervalIndex,
+            BookingEdgesProjection bookingEdgesProjection,
+            BookingItemLocks bookingItemLocks,
             ItemService itemService,
-            UserService userService
+            UserService userService,
+            EntityStreams entityStreams
     ) {
         this.bookingStorage = bookingStorage;
+        this.archivedBookingStorage = archivedBookingStorage;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.bookingEdgesProjection = bookingEdgesProjection;
+        this.bookingItemLocks = bookingItemLocks;
         this.itemService = itemService;
         this.userService = userService;
+        this.entityStreams = entityStreams;
     }
 
     @Override
     @Transactional
     public Booking createBooking(long userId, CreateBookingDto newBooking) {
         Item itemToBook = itemService.getItemById(newBooking.getItemId());
+        checkCanBook(userId, itemToBook, newBooking);
+
+        User booker = userService.getUserById(userId);
+
+        Booking savedBooking = bookingStorage.save(toWaitingBooking(booker, itemToBook, newBooking));
+        bookingEdgesProjection.evict(itemToBook.getId());
+
+        return savedBooking;
+    }
+
+    @Override
+    @Transactional
+    public List<BookingBatchResult> createBookings(long userId, List<CreateBookingDto> newBookings) {
+        User booker = userService.getUserById(userId);
+        Map<Long, Item> itemsById = itemService.getItemsByIds(
+                newBookings.stream().map(CreateBookingDto::getItemId).filter(Objects::nonNull).collect(Collectors.toSet())
+        );
+
+        BookingBatchResult[] results = new BookingBatchResult[newBookings.size()];
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        List<Booking> acceptedBookings = new ArrayList<>();
+
+        for (int i = 0; i < newBookings.size(); i++) {
+            CreateBookingDto newBooking = newBookings.get(i);
+            Item itemToBook = itemsById.get(newBooking.getItemId());
+            try {
+                if (itemToBook == null) {
+                    throw new ItemNotFoundException(newBooking.getItemId());
+                }
+                checkCanBook(userId, itemToBook, newBooking);
+            } catch (ItemNotFoundException | CannotBookUnavailableItemException | CannotBookOwnedItemException |
+                     BookingPeriodIsAlreadyTakenException ex) {
+                results[i] = BookingBatchResult.failed(i, ex.getMessage());
+                continue;
+            }
+
+            acceptedIndexes.add(i);
+            acceptedBookings.add(toWaitingBooking(booker, itemToBook, newBooking));
+        }
+
+        // Все принятые брони сохраняются одним пакетом INSERT
+        List<Booking> savedBookings = bookingStorage.saveAll(acceptedBookings);
+        for (int i = 0; i < savedBookings.size(); i++) {
+            int index = acceptedIndexes.get(i);
+            results[index] = BookingBatchResult.created(index, savedBookings.get(i));
+        }
+
+        savedBookings.stream()
+                .map(booking -> booking.getItem().getId())
+                .distinct()
+                .forEach(bookingEdgesProjection::evict);
+
+        return Arrays.asList(results);
+    }
+
+    private void checkCanBook(long userId, Item itemToBook, CreateBookingDto newBooking) {
         if (!itemToBook.getAvailable()) {
             throw new CannotBookUnavailableItemException(itemToBook.getId());
         }
         if (itemToBook.getOwner().getId() == userId) {
             throw new CannotBookOwnedItemException(userId, itemToBook.getId());
         }
+        if (bookingIntervalIndex.hasOverlap(itemToBook.getId(), newBooking.getStart(), newBooking.getEnd(), 0)) {
+            throw new BookingPeriodIsAlreadyTakenException(itemToBook.getId(), newBooking.getStart(), newBooking.getEnd());
+        }
+    }
 
-        User booker = userService.getUserById(userId);
-
+    private Booking toWaitingBooking(User booker, Item itemToBook, CreateBookingDto newBooking) {
         Booking booking = new Booking();
         booking.setStart(newBooking.getStart());
         booking.setEnd(newBooking.getEnd());
@@ -58,14 +148,18 @@ public class BookingServiceImpl implements BookingService {
         booking.setBooker(booker);
         booking.setStatus(BookingStatus.WAITING);
 
-        return bookingStorage.save(booking);
+        return booking;
     }
 
     @Override
     @Transactional
     public Booking approveBooking(long userId, long bookingId, boolean isApproved) {
         User owner = userService.getUserById(userId);
-        Booking bookingToApprove = getBookingById(owner.getId(), bookingId);
+        // Архивные брони не меняются, поэтому ищем только среди актуальных
+        Booking bookingToApprove = bookingStorage
+                .findById(bookingId)
+                .orElseThrow(() -> new BookingNotFoundException(bookingId));
+        checkHasAccess(owner.getId(), bookingToApprove);
 
         if (bookingToApprove.getItem().getOwner().getId() != owner.getId()) {
             throw new CannotApproveBookingException(bookingToApprove.getItem().getId(), owner.getId());
@@ -75,67 +169,115 @@ public class BookingServiceImpl implements BookingService {
             throw new SameApproveStatusException(bookingToApprove.getId(), bookingToApprove.getStatus());
         }
 
+        // Проверка пересечения и сохранение должны идти без параллельных подтверждений той же вещи
+        bookingItemLocks.lockUntilCompletion(bookingToApprove.getItem().getId());
+
+        if (isApproved && bookingIntervalIndex.hasOverlap(
+                bookingToApprove.getItem().getId(),
+                bookingToApprove.getStart(),
+                bookingToApprove.getEnd(),
+                bookingToApprove.getId()
+        )) {
+            throw new BookingPeriodIsAlreadyTakenException(
+                    bookingToApprove.getItem().getId(), bookingToApprove.getStart(), bookingToApprove.getEnd()
+            );
+        }
+
         if (isApproved) {
             bookingToApprove.setStatus(BookingStatus.APPROVED);
         } else {
             bookingToApprove.setStatus(BookingStatus.REJECTED);
         }
 
-        return bookingStorage.save(bookingToApprove);
+        Booking savedBooking;
+        try {
+            savedBooking = bookingStorage.saveAndFlush(bookingToApprove);
+        } catch (ObjectOptimisticLockingFailureException ex) {
+            throw new BookingWasModifiedException(bookingToApprove.getId());
+        }
+        if (isApproved) {
+            bookingIntervalIndex.add(savedBooking);
+        } else {
+            bookingIntervalIndex.remove(savedBooking);
+        }
+        bookingEdgesProjection.evict(savedBooking.getItem().getId());
+
+        return savedBooking;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Booking getBookingById(long userId, long bookingId) {
         Booking booking = bookingStorage
                 .findById(bookingId)
+                .or(() -> archivedBookingStorage.findById(bookingId).map(this::fromArchive))
                 .orElseThrow(() -> new BookingNotFoundException(bookingId));
+        checkHasAccess(userId, booking);
 
+        return booking;
+    }
+
+    private void checkHasAccess(long userId, Booking booking) {
         if (booking.getBooker().getId() != userId && booking.getItem().getOwner().getId() != userId) {
             throw new UserHasNoAccessToBookingException(userId, booking.getId());
         }
+    }
+
+    private Booking fromArchive(ArchivedBooking archivedBooking) {
+        Booking booking = new Booking();
+        booking.setId(archivedBooking.getId());
+        booking.setStart(archivedBooking.getStart());
+        booking.setEnd(archivedBooking.getEnd());
+        booking.setItem(itemService.getItemById(archivedBooking.getItemId()));
+        booking.setBooker(userService.getUserById(archivedBooking.getBookerId()));
+        booking.setStatus(archivedBooking.getStatus());
 
         return booking;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Collection<Booking> getUserBookings(long userId, BookingState state, Pageable pageable) {
+    public Collection<BookingView> getUserBookings(long userId, BookingState state, Pageable pageable) {
         User user = userService.getUserById(userId);
 
-        if (state.equals(BookingState.ALL)) {
-            return bookingStorage.findBookingsByBookerOrderByStartDesc(user, pageable);
-        }
-        if (state.equals(BookingState.FUTURE)) {
-            return bookingStorage.findBookingsByBookerAndStartAfterOrderByStartDesc(user, LocalDateTime.now(), pageable);
-        }
-        if (state.equals(BookingState.PAST)) {
-            return bookingStorage.findBookingsByBookerAndEndBeforeOrderByStartDesc(user, LocalDateTime.now(), pageable);
-        }
-        if (state.equals(BookingState.CURRENT)) {
-            return bookingStorage.findBookingsByBookerAndStartBeforeAndEndAfterOrderByStartDesc(user, LocalDateTime.now(), LocalDateTime.now(), pageable);
-        }
+        return bookingStorage.findBookerBookings(user.getId(), state, LocalDateTime.now(), pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<BookingView> getUserBookings(long userId, BookingState state, SeekCursor after, int size) {
+        User user = userService.getUserById(userId);
 
-        return bookingStorage.findBookingsByBookerAndStatusOrderByStartDesc(user, BookingStatus.valueOf(state.toString()), pageable);
+        return bookingStorage.findBookerBookingsAfter(user.getId(), state, LocalDateTime.now(), after, size);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Collection<Booking> getOwnedItemsBookings(long ownerId, BookingState state, Pageable pageable) {
-        Collection<Item> items = itemService.getUserItems(ownerId);
+    public Collection<BookingView> getOwnedItemsBookings(long ownerId, BookingState state, Pageable pageable) {
+        User owner = userService.getUserById(ownerId);
 
-        if (state.equals(BookingState.ALL)) {
-            return bookingStorage.findBookingsByItemInOrderByStartDesc(items, pageable);
-        }
-        if (state.equals(BookingState.FUTURE)) {
-            return bookingStorage.findBookingsByItemInAndStartAfterOrderByStartDesc(items, LocalDateTime.now(), pageable);
-        }
-        if (state.equals(BookingState.PAST)) {
-            return bookingStorage.findBookingsByItemInAndEndBeforeOrderByStartDesc(items, LocalDateTime.now(), pageable);
-        }
-        if (state.equals(BookingState.CURRENT)) {
-            return bookingStorage.findBookingsByItemInAndStartBeforeAndEndAfterOrderByStartDesc(items, LocalDateTime.now(), LocalDateTime.now(), pageable);
-        }
+        return bookingStorage.findOwnerBookings(owner.getId(), state, LocalDateTime.now(), pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamUserBookings(long userId, BookingState state, Pageable pageable, Consumer<Booking> consumer) {
+        User user = userService.getUserById(userId);
+
+        entityStreams.forEachChunk(
+                bookingStorage.streamBookerBookings(user.getId(), state, LocalDateTime.now(), pageable),
+                bookings -> bookings.forEach(consumer)
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamOwnedItemsBookings(long ownerId, BookingState state, Pageable pageable, Consumer<Booking> consumer) {
+        User owner = userService.getUserById(ownerId);
 
-        return bookingStorage.findBookingsByItemInAndStatusOrderByStartDesc(items, BookingStatus.valueOf(state.toString()), pageable);
+        entityStreams.forEachChunk(
+                bookingStorage.streamOwnerBookings(owner.getId(), state, LocalDateTime.now(), pageable),
+                bookings -> bookings.forEach(consumer)
+        );
     }
 }
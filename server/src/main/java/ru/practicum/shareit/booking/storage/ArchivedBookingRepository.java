@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+    boolean existsByBookerIdAndItemIdAndEndBeforeAndStatus(long bookerId, long itemId, LocalDateTime currentTime, BookingStatus status);
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.dto.BookingTimeIntervalDto;
+
+import java.time.LocalDateTime;
+
+@Value
+public class BookingEdges {
+    BookingTimeIntervalDto lastBooking;
+    BookingTimeIntervalDto nextBooking;
+    // Момент начала следующей брони: после него последняя и следующая брони меняются
+    LocalDateTime validUntil;
+
+    public boolean isEmpty() {
+        return lastBooking == null && nextBooking == null;
+    }
+}
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingTimeIntervalDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.transaction.TransactionCallbacks;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Последняя и следующая брони каждой вещи. Запись действительна до начала следующей брони,
+ * при создании или смене статуса брони запись вещи сбрасывается.
+ */
+@Component
+public class BookingEdgesProjection {
+    private static final List<BookingStatus> EXCLUDED_STATUSES = List.of(BookingStatus.REJECTED, BookingStatus.CANCELED);
+
+    private final BookingRepository bookingStorage;
+    private final Map<Long, BookingEdges> edgesByItem = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public BookingEdgesProjection(BookingRepository bookingStorage) {
+        this.bookingStorage = bookingStorage;
+    }
+
+    public Map<Long, BookingEdges> getEdges(Collection<Long> itemIds, LocalDateTime currentTime) {
+        Map<Long, BookingEdges> result = new HashMap<>();
+        List<Long> missingItemIds = new ArrayList<>();
+
+        for (Long itemId : itemIds) {
+            BookingEdges edges = edgesByItem.get(itemId);
+            if (edges != null && currentTime.isBefore(edges.getValidUntil())) {
+                result.put(itemId, edges);
+            } else {
+                missingItemIds.add(itemId);
+            }
+        }
+
+        if (!missingItemIds.isEmpty()) {
+            long evictionsBeforeLoad = evictions.get();
+            Map<Long, BookingEdges> loaded = load(missingItemIds, currentTime);
+            // Если во время загрузки запись сбросили, загруженные данные могли устареть
+            if (evictions.get() == evictionsBeforeLoad) {
+                edgesByItem.putAll(loaded);
+            }
+            result.putAll(loaded);
+        }
+
+        return result;
+    }
+
+    public BookingEdges getEdges(long itemId, LocalDateTime currentTime) {
+        return getEdges(List.of(itemId), currentTime).get(itemId);
+    }
+
+    public void evict(long itemId) {
+        evictions.incrementAndGet();
+        edgesByItem.remove(itemId);
+        TransactionCallbacks.afterCommit(() -> {
+            evictions.incrementAndGet();
+            edgesByItem.remove(itemId);
+        });
+    }
+
+    public void evictAll() {
+        evictions.incrementAndGet();
+        edgesByItem.clear();
+    }
+
+    private Map<Long, BookingEdges> load(Collection<Long> itemIds, LocalDateTime currentTime) {
+        Map<Long, ItemBookingInterval> lastBookings = new HashMap<>();
+        for (ItemBookingInterval interval : bookingStorage.findLastBookingIntervals(itemIds, EXCLUDED_STATUSES, currentTime)) {
+            lastBookings.merge(interval.getItemId(), interval, (a, b) -> a.getId() > b.getId() ? a : b);
+        }
+
+        Map<Long, ItemBookingInterval> nextBookings = new HashMap<>();
+        for (ItemBookingInterval interval : bookingStorage.findNextBookingIntervals(itemIds, EXCLUDED_STATUSES, currentTime)) {
+            nextBookings.merge(interval.getItemId(), interval, (a, b) -> a.getId() < b.getId() ? a : b);
+        }
+
+        Map<Long, BookingEdges> result = new HashMap<>();
+        for (Long itemId : itemIds) {
+            ItemBookingInterval last = lastBookings.get(itemId);
+            ItemBookingInterval next = nextBookings.get(itemId);
+
+            result.put(itemId, new BookingEdges(
+                    toBookingTimeIntervalDto(last),
+                    toBookingTimeIntervalDto(next),
+                    next != null ? next.getStart() : LocalDateTime.MAX
+            ));
+        }
+
+        return result;
+    }
+
+    private static BookingTimeIntervalDto toBookingTimeIntervalDto(ItemBookingInterval interval) {
+        if (interval == null) {
+            return null;
+        }
+
+        return BookingTimeIntervalDto.builder()
+                .id(interval.getId())
+                .start(interval.getStart())
+                .end(interval.getEnd())
+                .bookerId(interval.getBookerId())
+                .build();
+    }
+}
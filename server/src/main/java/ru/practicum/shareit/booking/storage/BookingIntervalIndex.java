@@ -0,0 +1,135 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.transaction.TransactionCallbacks;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс подтвержденных бронирований по вещам. Интервалы одной вещи не пересекаются,
+ * поэтому для проверки пересечения достаточно найти ближайший интервал, начинающийся раньше
+ * конца проверяемого периода. Интервалы вещи загружаются из БД при первом обращении; если среди них
+ * есть пересекающиеся (данные, записанные до появления проверки), для этой вещи интервалы перебираются.
+ * Изменения применяются после коммита транзакции - до снятия блокировки вещи, которую держит подтверждение.
+ */
+@Component
+@Slf4j
+public class BookingIntervalIndex {
+    private final BookingRepository bookingStorage;
+    private final Map<Long, ItemIntervals> intervalsByItem = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BookingIntervalIndex(BookingRepository bookingStorage) {
+        this.bookingStorage = bookingStorage;
+    }
+
+    public boolean hasOverlap(long itemId, LocalDateTime start, LocalDateTime end, long excludedBookingId) {
+        return getItemIntervals(itemId).hasOverlap(start, end, excludedBookingId);
+    }
+
+    public boolean isFree(long itemId, LocalDateTime start, LocalDateTime end) {
+        return !hasOverlap(itemId, start, end, 0);
+    }
+
+    public void add(Booking booking) {
+        long itemId = booking.getItem().getId();
+        Interval interval = new Interval(booking.getStart(), booking.getEnd(), booking.getId());
+        TransactionCallbacks.afterCommit(() -> getItemIntervals(itemId).add(interval));
+    }
+
+    public void remove(Booking booking) {
+        long itemId = booking.getItem().getId();
+        Interval interval = new Interval(booking.getStart(), booking.getEnd(), booking.getId());
+        TransactionCallbacks.afterCommit(() -> getItemIntervals(itemId).remove(interval));
+    }
+
+    public void evict(long itemId) {
+        intervalsByItem.remove(itemId);
+    }
+
+    private ItemIntervals getItemIntervals(long itemId) {
+        ItemIntervals intervals = intervalsByItem.get(itemId);
+        if (intervals != null) {
+            return intervals;
+        }
+
+        ItemIntervals loaded = new ItemIntervals();
+        bookingStorage.findBookingsByItemIdAndStatusAndEndAfter(itemId, BookingStatus.APPROVED, LocalDateTime.now())
+                .forEach(booking -> loaded.add(new Interval(booking.getStart(), booking.getEnd(), booking.getId())));
+        if (!loaded.isDisjoint()) {
+            log.warn("Подтвержденные бронирования вещи {} пересекаются, проверка пересечений идет перебором", itemId);
+        }
+
+        intervals = intervalsByItem.putIfAbsent(itemId, loaded);
+        return intervals != null ? intervals : loaded;
+    }
+
+    private static class Interval {
+        private static final Comparator<Interval> ORDER = Comparator
+                .comparing((Interval interval) -> interval.start)
+                .thenComparingLong(interval -> interval.bookingId);
+
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final long bookingId;
+
+        private Interval(LocalDateTime start, LocalDateTime end, long bookingId) {
+            this.start = start;
+            this.end = end;
+            this.bookingId = bookingId;
+        }
+    }
+
+    private static class ItemIntervals {
+        private final TreeSet<Interval> intervals = new TreeSet<>(Interval.ORDER);
+        private boolean disjoint = true;
+
+        synchronized boolean hasOverlap(LocalDateTime start, LocalDateTime end, long excludedBookingId) {
+            Interval bound = new Interval(end, end, Long.MIN_VALUE);
+            if (!disjoint) {
+                return intervals.headSet(bound).stream()
+                        .anyMatch(interval -> interval.bookingId != excludedBookingId && interval.end.isAfter(start));
+            }
+
+            Interval candidate = intervals.lower(bound);
+            if (candidate != null && candidate.bookingId == excludedBookingId) {
+                candidate = intervals.lower(candidate);
+            }
+
+            return candidate != null && candidate.end.isAfter(start);
+        }
+
+        synchronized void add(Interval interval) {
+            // Завершившиеся интервалы больше не влияют на новые бронирования
+            LocalDateTime now = LocalDateTime.now();
+            while (!intervals.isEmpty() && intervals.first().end.isBefore(now)) {
+                intervals.pollFirst();
+            }
+            if (!intervals.add(interval)) {
+                return;
+            }
+
+            Interval lower = intervals.lower(interval);
+            Interval higher = intervals.higher(interval);
+            if ((lower != null && lower.end.isAfter(interval.start)) || (higher != null && interval.end.isAfter(higher.start))) {
+                disjoint = false;
+            }
+        }
+
+        synchronized boolean isDisjoint() {
+            return disjoint;
+        }
+
+        synchronized void remove(Interval interval) {
+            intervals.remove(interval);
+        }
+    }
+}
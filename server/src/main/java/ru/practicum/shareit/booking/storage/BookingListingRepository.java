@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.pagination.SeekCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface BookingListingRepository {
+    List<BookingView> findBookerBookings(long bookerId, BookingState state, LocalDateTime currentTime, Pageable pageable);
+
+    List<BookingView> findOwnerBookings(long ownerId, BookingState state, LocalDateTime currentTime, Pageable pageable);
+
+    List<BookingView> findBookerBookingsAfter(
+            long bookerId,
+            BookingState state,
+            LocalDateTime currentTime,
+            @Nullable SeekCursor after,
+            int limit
+    );
+
+    Stream<Booking> streamBookerBookings(long bookerId, BookingState state, LocalDateTime currentTime, Pageable pageable);
+
+    Stream<Booking> streamOwnerBookings(long ownerId, BookingState state, LocalDateTime currentTime, Pageable pageable);
+}
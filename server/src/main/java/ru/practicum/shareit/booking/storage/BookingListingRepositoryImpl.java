@@ -0,0 +1,370 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.SeekCursor;
+import ru.practicum.shareit.streaming.EntityStreams;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Списки бронирований пользователя и владельца. Для состояний, под которые подходят завершенные брони,
+ * к живым броням подмешиваются архивные: обе выборки идут в порядке start DESC, id DESC и сливаются.
+ * Каждая выборка читает до offset + size строк, поэтому страница по смещению стоит как OFFSET по объединению.
+ */
+public class BookingListingRepositoryImpl implements BookingListingRepository {
+    private static final Comparator<BookingView> VIEW_ORDER =
+            Comparator.comparing(BookingView::getStart).thenComparing(BookingView::getId).reversed();
+    private static final Comparator<Booking> BOOKING_ORDER =
+            Comparator.comparing(Booking::getStart).thenComparing(Booking::getId).reversed();
+    private static final String BOOKER_ARCHIVE_CONDITION = "a.bookerId = :userId";
+    private static final String OWNER_ARCHIVE_CONDITION = "i.owner.id = :userId";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<BookingView> findBookerBookings(long bookerId, BookingState state, LocalDateTime currentTime, Pageable pageable) {
+        return findViews((booking, item) -> booking.get("booker").get("id"), BOOKER_ARCHIVE_CONDITION,
+                bookerId, state, currentTime, pageable);
+    }
+
+    @Override
+    public List<BookingView> findOwnerBookings(long ownerId, BookingState state, LocalDateTime currentTime, Pageable pageable) {
+        return findViews((booking, item) -> item.get("owner").get("id"), OWNER_ARCHIVE_CONDITION,
+                ownerId, state, currentTime, pageable);
+    }
+
+    @Override
+    public List<BookingView> findBookerBookingsAfter(
+            long bookerId,
+            BookingState state,
+            LocalDateTime currentTime,
+            @Nullable SeekCursor after,
+            int limit
+    ) {
+        List<BookingView> live = createViewQuery((booking, item) -> booking.get("booker").get("id"),
+                bookerId, state, currentTime, after)
+                .setMaxResults(limit)
+                .getResultList();
+        if (!includesArchive(state)) {
+            return live;
+        }
+
+        List<BookingView> archived = createArchiveViewQuery(BOOKER_ARCHIVE_CONDITION, bookerId, state, currentTime, after)
+                .setMaxResults(limit)
+                .getResultList();
+        return mergeViews(live, archived, 0, limit);
+    }
+
+    @Override
+    public Stream<Booking> streamBookerBookings(long bookerId, BookingState state, LocalDateTime currentTime, Pageable pageable) {
+        return streamBookings(booking -> booking.get("booker").get("id"), BOOKER_ARCHIVE_CONDITION,
+                bookerId, state, currentTime, pageable);
+    }
+
+    @Override
+    public Stream<Booking> streamOwnerBookings(long ownerId, BookingState state, LocalDateTime currentTime, Pageable pageable) {
+        return streamBookings(booking -> booking.get("item").get("owner").get("id"), OWNER_ARCHIVE_CONDITION,
+                ownerId, state, currentTime, pageable);
+    }
+
+    private List<BookingView> findViews(
+            BiFunction<Root<Booking>, Join<Booking, Item>, Path<Long>> userPath,
+            String archiveCondition,
+            long userId,
+            BookingState state,
+            LocalDateTime currentTime,
+            Pageable pageable
+    ) {
+        if (!includesArchive(state)) {
+            return createViewQuery(userPath, userId, state, currentTime, null)
+                    .setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize())
+                    .getResultList();
+        }
+
+        int limit = (int) pageable.getOffset() + pageable.getPageSize();
+        List<BookingView> live = createViewQuery(userPath, userId, state, currentTime, null)
+                .setMaxResults(limit)
+                .getResultList();
+        List<BookingView> archived = createArchiveViewQuery(archiveCondition, userId, state, currentTime, null)
+                .setMaxResults(limit)
+                .getResultList();
+        return mergeViews(live, archived, (int) pageable.getOffset(), pageable.getPageSize());
+    }
+
+    private Stream<Booking> streamBookings(
+            Function<Root<Booking>, Path<Long>> userPath,
+            String archiveCondition,
+            long userId,
+            BookingState state,
+            LocalDateTime currentTime,
+            Pageable pageable
+    ) {
+        if (!includesArchive(state)) {
+            return createBookingQuery(userPath, userId, state, currentTime)
+                    .setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize())
+                    .getResultStream();
+        }
+
+        int limit = (int) pageable.getOffset() + pageable.getPageSize();
+        Stream<Booking> live = createBookingQuery(userPath, userId, state, currentTime)
+                .setMaxResults(limit)
+                .getResultStream();
+        Stream<Booking> archived = createArchiveQuery(archiveCondition, userId, state, currentTime)
+                .setMaxResults(limit)
+                .getResultStream()
+                .map(BookingListingRepositoryImpl::fromArchiveRow);
+        return mergeSorted(live, archived, BOOKING_ORDER)
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize());
+    }
+
+    private TypedQuery<Booking> createBookingQuery(
+            Function<Root<Booking>, Path<Long>> userPath,
+            long userId,
+            BookingState state,
+            LocalDateTime currentTime
+    ) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Booking> query = cb.createQuery(Booking.class);
+        Root<Booking> booking = query.from(Booking.class);
+        booking.fetch("item", JoinType.INNER);
+        booking.fetch("booker", JoinType.LEFT);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(userPath.apply(booking), userId));
+        predicates.addAll(statePredicates(cb, booking, state, currentTime));
+
+        query.select(booking)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(booking.get("start")), cb.desc(booking.get("id")));
+
+        return em.createQuery(query)
+                .setHint(QueryHints.HINT_FETCH_SIZE, EntityStreams.CHUNK_SIZE);
+    }
+
+    // Выборка сразу в BookingView: сущности не попадают в контекст персистентности и не проверяются на изменения
+    private TypedQuery<BookingView> createViewQuery(
+            BiFunction<Root<Booking>, Join<Booking, Item>, Path<Long>> userPath,
+            long userId,
+            BookingState state,
+            LocalDateTime currentTime,
+            @Nullable SeekCursor after
+    ) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<BookingView> query = cb.createQuery(BookingView.class);
+        Root<Booking> booking = query.from(Booking.class);
+        Join<Booking, Item> item = booking.join("item", JoinType.INNER);
+        Join<Booking, User> booker = booking.join("booker", JoinType.LEFT);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(userPath.apply(booking, item), userId));
+        predicates.addAll(statePredicates(cb, booking, state, currentTime));
+        if (after != null) {
+            predicates.add(seekPredicate(cb, booking, after));
+        }
+
+        query.select(cb.construct(
+                        BookingView.class,
+                        booking.get("id"),
+                        booking.get("start"),
+                        booking.get("end"),
+                        item.get("id"),
+                        item.get("name"),
+                        booker.get("id"),
+                        booker.get("name"),
+                        booking.get("status")
+                ))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(booking.get("start")), cb.desc(booking.get("id")));
+
+        return em.createQuery(query);
+    }
+
+    // Архивная бронь хранит вещь и пользователя только как ID, поэтому запрос строится соединением по ID
+    private TypedQuery<BookingView> createArchiveViewQuery(
+            String userCondition,
+            long userId,
+            BookingState state,
+            LocalDateTime currentTime,
+            @Nullable SeekCursor after
+    ) {
+        StringBuilder jpql = new StringBuilder("SELECT new ru.practicum.shareit.booking.storage.BookingView(" +
+                "a.id, a.start, a.end, i.id, i.name, u.id, u.name, a.status) " +
+                "FROM ArchivedBooking a JOIN Item i ON i.id = a.itemId LEFT JOIN User u ON u.id = a.bookerId " +
+                "WHERE ").append(userCondition);
+        appendArchiveStateCondition(jpql, state);
+        if (after != null) {
+            jpql.append(" AND a.start <= :seekStart AND (a.start < :seekStart OR (a.start = :seekStart AND a.id < :seekId))");
+        }
+        jpql.append(" ORDER BY a.start DESC, a.id DESC");
+
+        TypedQuery<BookingView> query = em.createQuery(jpql.toString(), BookingView.class);
+        setArchiveParameters(query, userId, state, currentTime);
+        if (after != null) {
+            query.setParameter("seekStart", after.getPosition()).setParameter("seekId", after.getId());
+        }
+
+        return query;
+    }
+
+    private TypedQuery<Object[]> createArchiveQuery(
+            String userCondition,
+            long userId,
+            BookingState state,
+            LocalDateTime currentTime
+    ) {
+        StringBuilder jpql = new StringBuilder("SELECT a, i, u " +
+                "FROM ArchivedBooking a JOIN Item i ON i.id = a.itemId LEFT JOIN User u ON u.id = a.bookerId " +
+                "WHERE ").append(userCondition);
+        appendArchiveStateCondition(jpql, state);
+        jpql.append(" ORDER BY a.start DESC, a.id DESC");
+
+        TypedQuery<Object[]> query = em.createQuery(jpql.toString(), Object[].class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, EntityStreams.CHUNK_SIZE);
+        setArchiveParameters(query, userId, state, currentTime);
+
+        return query;
+    }
+
+    private static void appendArchiveStateCondition(StringBuilder jpql, BookingState state) {
+        if (state == BookingState.PAST) {
+            jpql.append(" AND a.end < :currentTime");
+        } else if (state != BookingState.ALL) {
+            jpql.append(" AND a.status = :status");
+        }
+    }
+
+    private static void setArchiveParameters(TypedQuery<?> query, long userId, BookingState state, LocalDateTime currentTime) {
+        query.setParameter("userId", userId);
+        if (state == BookingState.PAST) {
+            query.setParameter("currentTime", currentTime);
+        } else if (state != BookingState.ALL) {
+            query.setParameter("status", BookingStatus.valueOf(state.toString()));
+        }
+    }
+
+    private static Booking fromArchiveRow(Object[] row) {
+        ArchivedBooking archivedBooking = (ArchivedBooking) row[0];
+        Booking booking = new Booking();
+        booking.setId(archivedBooking.getId());
+        booking.setStart(archivedBooking.getStart());
+        booking.setEnd(archivedBooking.getEnd());
+        booking.setItem((Item) row[1]);
+        booking.setBooker((User) row[2]);
+        booking.setStatus(archivedBooking.getStatus());
+
+        return booking;
+    }
+
+    // Текущие и будущие брони не могут оказаться в архиве
+    private static boolean includesArchive(BookingState state) {
+        return state != BookingState.FUTURE && state != BookingState.CURRENT;
+    }
+
+    private static List<BookingView> mergeViews(List<BookingView> live, List<BookingView> archived, int offset, int size) {
+        List<BookingView> merged = new ArrayList<>(live.size() + archived.size());
+        merged.addAll(live);
+        merged.addAll(archived);
+        merged.sort(VIEW_ORDER);
+
+        return merged.subList(Math.min(offset, merged.size()), Math.min(offset + size, merged.size()));
+    }
+
+    private static <T> Stream<T> mergeSorted(Stream<T> first, Stream<T> second, Comparator<T> order) {
+        Iterator<T> firstIterator = first.iterator();
+        Iterator<T> secondIterator = second.iterator();
+        Iterator<T> merged = new Iterator<>() {
+            private T firstNext = advance(firstIterator);
+            private T secondNext = advance(secondIterator);
+
+            @Override
+            public boolean hasNext() {
+                return firstNext != null || secondNext != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T result;
+                if (secondNext == null || (firstNext != null && order.compare(firstNext, secondNext) <= 0)) {
+                    result = firstNext;
+                    firstNext = advance(firstIterator);
+                } else {
+                    result = secondNext;
+                    secondNext = advance(secondIterator);
+                }
+
+                return result;
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                .onClose(first::close)
+                .onClose(second::close);
+    }
+
+    private static <T> T advance(Iterator<T> iterator) {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private List<Predicate> statePredicates(
+            CriteriaBuilder cb,
+            Root<Booking> booking,
+            BookingState state,
+            LocalDateTime currentTime
+    ) {
+        Path<LocalDateTime> start = booking.get("start");
+        Path<LocalDateTime> end = booking.get("end");
+
+        switch (state) {
+            case ALL:
+                return List.of();
+            case FUTURE:
+                // Условие на end избыточно, но позволяет отсечь секции таблицы с завершенными бронями
+                return List.of(cb.greaterThan(start, currentTime), cb.greaterThan(end, currentTime));
+            case PAST:
+                return List.of(cb.lessThan(end, currentTime));
+            case CURRENT:
+                return List.of(cb.lessThan(start, currentTime), cb.greaterThan(end, currentTime));
+            default:
+                return List.of(cb.equal(booking.get("status"), BookingStatus.valueOf(state.toString())));
+        }
+    }
+
+    // (start, id) < (cursor.start, cursor.id) для порядка start DESC, id DESC.
+    // Избыточное start <= cursor.start дает планировщику границу диапазона по индексу, которую он не выводит из OR
+    private Predicate seekPredicate(CriteriaBuilder cb, Root<Booking> booking, SeekCursor after) {
+        Path<LocalDateTime> start = booking.get("start");
+        Path<Long> id = booking.get("id");
+
+        return cb.and(
+                cb.lessThanOrEqualTo(start, after.getPosition()),
+                cb.or(
+                        cb.lessThan(start, after.getPosition()),
+                        cb.and(cb.equal(start, after.getPosition()), cb.lessThan(id, after.getId()))
+                )
+        );
+    }
+}
@@ -0,0 +1,134 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Поддерживает помесячные секции таблицы bookings (PostgreSQL, секционирование по end_ts).
+ * Создает секции на несколько месяцев вперед, перенося в них строки из секции по умолчанию,
+ * и удаляет пустые секции старше горизонта архивации.
+ * Таблица bookings, созданная до перехода на секционирование, остается обычной - тогда секции не обслуживаются.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "shareit.booking.partitioning.enabled", havingValue = "true")
+public class BookingPartitionMaintainer {
+    private static final String PARTITION_PREFIX = "bookings_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final Duration archiveHorizon;
+
+    @Autowired
+    public BookingPartitionMaintainer(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${shareit.booking.partitioning.months-ahead:3}") int monthsAhead,
+            @Value("${shareit.booking.archive.horizon:P180D}") Duration archiveHorizon
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.monthsAhead = monthsAhead;
+        this.archiveHorizon = archiveHorizon;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${shareit.booking.partitioning.cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        if (!isBookingsPartitioned()) {
+            log.warn("Таблица bookings не секционирована, обслуживание секций пропущено");
+            return;
+        }
+
+        YearMonth currentMonth = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(currentMonth.plusMonths(i));
+        }
+
+        dropEmptyPartitionsBefore(YearMonth.from(LocalDateTime.now().minus(archiveHorizon)));
+    }
+
+    private boolean isBookingsPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('bookings'))",
+                Boolean.class
+        ));
+    }
+
+    private void createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition);
+            if (Boolean.TRUE.equals(exists)) {
+                return;
+            }
+
+            // Строки этого месяца могли попасть в секцию по умолчанию - переносим их до подключения секции
+            jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE bookings INCLUDING DEFAULTS)");
+            jdbcTemplate.update(
+                    "WITH moved AS (DELETE FROM bookings_default WHERE end_ts >= ? AND end_ts < ? RETURNING *) " +
+                            "INSERT INTO " + partition + " SELECT * FROM moved",
+                    from.atStartOfDay(), to.atStartOfDay()
+            );
+            jdbcTemplate.execute("ALTER TABLE bookings ATTACH PARTITION " + partition +
+                    " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+            log.info("Создана секция {} для бронирований с {} по {}", partition, from, to);
+        });
+    }
+
+    private void dropEmptyPartitionsBefore(YearMonth month) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "JOIN pg_class p ON p.oid = i.inhparent " +
+                        "WHERE p.relname = 'bookings' AND c.relname LIKE '" + PARTITION_PREFIX + "%'",
+                String.class
+        );
+
+        for (String partition : partitions) {
+            YearMonth partitionMonth = YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+            if (!partitionMonth.isBefore(month)) {
+                continue;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                Boolean isEmpty = jdbcTemplate.queryForObject(
+                        "SELECT NOT EXISTS (SELECT 1 FROM " + partition + ")", Boolean.class
+                );
+                if (Boolean.TRUE.equals(isEmpty)) {
+                    jdbcTemplate.execute("ALTER TABLE bookings DETACH PARTITION " + partition);
+                    jdbcTemplate.execute("DROP TABLE " + partition);
+                    log.info("Удалена пустая секция {}", partition);
+                }
+            });
+        }
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -2,6 +2,9 @@ package ru.practicum.shareit.booking.storage;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
@@ -11,28 +14,61 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findBookingsByBookerOrderByStartDesc(User user, Pageable pageable);
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingListingRepository {
+    List<Booking> findBookingsByItemIdAndStatusAndEndAfter(long itemId, BookingStatus status, LocalDateTime currentTime);
 
-    List<Booking> findBookingsByBookerAndStatusOrderByStartDesc(User user, BookingStatus status, Pageable pageable);
+    @Query("SELECT new ru.practicum.shareit.booking.storage.ItemBookingInterval(b.item.id, b.id, b.start, b.end, b.booker.id) " +
+            "FROM Booking b " +
+            "WHERE b.item.id IN :itemIds AND b.status NOT IN :excludedStatuses AND b.start < :currentTime " +
+            "AND b.end = (SELECT MAX(lb.end) FROM Booking lb " +
+            "WHERE lb.item = b.item AND lb.status NOT IN :excludedStatuses AND lb.start < :currentTime)")
+    List<ItemBookingInterval> findLastBookingIntervals(
+            @Param("itemIds") Collection<Long> itemIds,
+            @Param("excludedStatuses") Collection<BookingStatus> excludedStatuses,
+            @Param("currentTime") LocalDateTime currentTime
+    );
 
-    List<Booking> findBookingsByBookerAndStartAfterOrderByStartDesc(User user, LocalDateTime currentTime, Pageable pageable);
+    @Query("SELECT new ru.practicum.shareit.booking.storage.ItemBookingInterval(b.item.id, b.id, b.start, b.end, b.booker.id) " +
+            "FROM Booking b " +
+            "WHERE b.item.id IN :itemIds AND b.status NOT IN :excludedStatuses AND b.start > :currentTime AND b.end > :currentTime " +
+            "AND b.start = (SELECT MIN(nb.start) FROM Booking nb " +
+            "WHERE nb.item = b.item AND nb.status NOT IN :excludedStatuses AND nb.start > :currentTime AND nb.end > :currentTime)")
+    List<ItemBookingInterval> findNextBookingIntervals(
+            @Param("itemIds") Collection<Long> itemIds,
+            @Param("excludedStatuses") Collection<BookingStatus> excludedStatuses,
+            @Param("currentTime") LocalDateTime currentTime
+    );
 
-    List<Booking> findBookingsByBookerAndEndBeforeOrderByStartDesc(User user, LocalDateTime currentTime, Pageable pageable);
+    @Query("SELECT new ru.practicum.shareit.booking.storage.BookingPeriod(b.start, b.end) " +
+            "FROM Booking b " +
+            "WHERE b.item.id = :itemId AND b.status IN :statuses AND b.start < :to AND b.end > :from " +
+            "ORDER BY b.start")
+    List<BookingPeriod> findBookingPeriods(
+            @Param("itemId") long itemId,
+            @Param("statuses") Collection<BookingStatus> statuses,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
 
-    List<Booking> findBookingsByBookerAndStartBeforeAndEndAfterOrderByStartDesc(User user, LocalDateTime currentTime1, LocalDateTime currentTime2, Pageable pageable);
+    @Query("SELECT DISTINCT b.item.id FROM Booking b WHERE b.id IN :ids")
+    List<Long> findItemIdsByBookingIds(@Param("ids") Collection<Long> ids);
 
-    List<Booking> findBookingsByItemInAndStatusNot(Collection<Item> items, BookingStatus status);
-
-    List<Booking> findBookingsByItemInOrderByStartDesc(Collection<Item> items, Pageable pageable);
-
-    List<Booking> findBookingsByItemInAndStatusOrderByStartDesc(Collection<Item> items, BookingStatus status, Pageable pageable);
-
-    List<Booking> findBookingsByItemInAndStartAfterOrderByStartDesc(Collection<Item> items, LocalDateTime currentTime, Pageable pageable);
-
-    List<Booking> findBookingsByItemInAndEndBeforeOrderByStartDesc(Collection<Item> items, LocalDateTime currentTime, Pageable pageable);
+    Collection<Booking> getBookingsByBookerAndItemAndEndIsBeforeAndStatus(User user, Item item, LocalDateTime currentTime, BookingStatus status);
 
-    List<Booking> findBookingsByItemInAndStartBeforeAndEndAfterOrderByStartDesc(Collection<Item> items, LocalDateTime currentTime1, LocalDateTime currentTime2, Pageable pageable);
+    @Query("SELECT b.id FROM Booking b WHERE b.status = :status AND b.start < :currentTime ORDER BY b.id")
+    List<Long> findBookingIdsByStatusAndStartBefore(
+            @Param("status") BookingStatus status,
+            @Param("currentTime") LocalDateTime currentTime,
+            Pageable pageable
+    );
 
-    Collection<Booking> getBookingsByBookerAndItemAndEndIsBeforeAndStatus(User user, Item item, LocalDateTime currentTime, BookingStatus status);
+    // Версия увеличивается вручную: массовый UPDATE обходит @Version
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = :newStatus, b.version = b.version + 1 " +
+            "WHERE b.id IN :ids AND b.status = :currentStatus")
+    int updateStatus(
+            @Param("ids") Collection<Long> ids,
+            @Param("currentStatus") BookingStatus currentStatus,
+            @Param("newStatus") BookingStatus newStatus
+    );
 }
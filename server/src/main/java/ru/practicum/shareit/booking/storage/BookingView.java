@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка списка бронирований: только поля, которые уходят клиенту, без загрузки сущностей.
+ */
+@Data
+@AllArgsConstructor
+public class BookingView {
+    private long id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private long itemId;
+    private String itemName;
+    private Long bookerId;
+    private String bookerName;
+    private BookingStatus status;
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class ItemBookingInterval {
+    private long itemId;
+    private long id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private long bookerId;
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class CursorIsNotValidException extends RuntimeException {
+    public CursorIsNotValidException(String cursor) {
+        super(String.format("Курсор пагинации %s некорректен.", cursor));
+    }
+}
@@ -1,17 +1,37 @@
 package ru.practicum.shareit.item.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.exception.PageableIsNotValidException;
+import ru.practicum.shareit.item.dto.AvailabilityWindowDto;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSummaryDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemImportFormat;
+import ru.practicum.shareit.item.service.ItemImporter;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.SeekCursor;
+import ru.practicum.shareit.streaming.NdjsonWriter;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @RestController
@@ -20,9 +40,15 @@ public class ItemController {
 
     private final ItemService itemService;
 
+    private final ItemImporter itemImporter;
+
+    private final ObjectMapper objectMapper;
+
     @Autowired
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, ItemImporter itemImporter, ObjectMapper objectMapper) {
         this.itemService = itemService;
+        this.itemImporter = itemImporter;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -34,6 +60,29 @@ public class ItemController {
         return ItemMapper.toItemDto(createdItem);
     }
 
+    @PostMapping(
+            path = "/import",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, ItemImportFormat.TEXT_CSV_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    void importItems(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        itemImporter.importItems(userId, reader, ItemImportFormat.of(contentType), event -> {
+            writer.write(event);
+            // Ход импорта отправляется сразу после записи каждой порции
+            if (event.getImported() != null) {
+                writer.flush();
+            }
+        });
+        writer.finish();
+    }
+
     @PostMapping("/{itemId}/comment")
     public CommentDto addComment(
             @RequestHeader(value = "X-Sharer-User-Id") long userId,
@@ -62,6 +111,40 @@ public class ItemController {
         return itemService.getItemByIdWithBookingIntervals(userId, itemId);
     }
 
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<List<CommentDto>> getItemComments(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @PathVariable long itemId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        if (size < 1) {
+            throw new PageableIsNotValidException();
+        }
+
+        SeekCursor after = cursor != null ? SeekCursor.decode(cursor) : null;
+        List<CommentDto> comments = itemService.getItemComments(userId, itemId, after, size);
+
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.ok();
+        // Курсор отдается только для полной страницы - дальше могут быть еще комментарии
+        if (!comments.isEmpty() && comments.size() == size) {
+            CommentDto last = comments.get(comments.size() - 1);
+            responseBuilder.header(SeekCursor.NEXT_CURSOR_HEADER, new SeekCursor(last.getCreated(), last.getId()).encode());
+        }
+
+        return responseBuilder.body(comments);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public List<AvailabilityWindowDto> getItemAvailability(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @PathVariable long itemId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return itemService.getItemAvailability(userId, itemId, from, to);
+    }
+
     @GetMapping
     Collection<ItemDto> getUserItems(
             @RequestHeader("X-Sharer-User-Id") long userId,
@@ -71,6 +154,27 @@ public class ItemController {
         return itemService.getUserItemsWithBookingIntervals(userId, PageRequest.of(from, size));
     }
 
+    @GetMapping(params = "summary=true")
+    Collection<ItemSummaryDto> getUserItemSummaries(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "2000") int size
+    ) {
+        return itemService.getUserItemSummaries(userId, PageRequest.of(from, size));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    void streamUserItems(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "2000") int size,
+            HttpServletResponse response
+    ) throws IOException {
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response);
+        itemService.streamUserItemsWithBookingIntervals(userId, PageRequest.of(from, size), writer::write);
+        writer.finish();
+    }
+
     @GetMapping("/search")
     Collection<ItemDto> searchItems(
             @RequestHeader("X-Sharer-User-Id") long userId,
@@ -82,4 +186,27 @@ public class ItemController {
                 .map(ItemMapper::toItemDto)
                 .collect(Collectors.toList());
     }
+
+    @GetMapping(path = "/search", params = "summary=true")
+    Collection<ItemSummaryDto> searchItemSummaries(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam String text,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "2000") int size
+    ) {
+        return itemService.searchItemSummaries(text, PageRequest.of(from, size));
+    }
+
+    @GetMapping(path = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    void streamSearchItems(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam String text,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "2000") int size,
+            HttpServletResponse response
+    ) throws IOException {
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response);
+        itemService.streamSearchItems(text, PageRequest.of(from, size), item -> writer.write(ItemMapper.toItemDto(item)));
+        writer.finish();
+    }
 }
@@ -21,5 +21,6 @@ public class ItemDto {
     private BookingTimeIntervalDto lastBooking;
     private BookingTimeIntervalDto nextBooking;
     private Collection<CommentDto> comments;
+    private String commentsCursor;
     private Long requestId;
 }
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Событие импорта вещей: ошибка в строке (line, error) либо ход импорта (imported, failed, finished).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ItemImportEventDto {
+    private Long line;
+    private String error;
+    private Long imported;
+    private Long failed;
+    private Boolean finished;
+}
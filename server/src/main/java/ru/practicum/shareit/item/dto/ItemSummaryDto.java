@@ -0,0 +1,20 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemSummaryDto {
+    private long id;
+    private String name;
+    private String description;
+    private Boolean available;
+    private Long requestId;
+    private int commentCount;
+    private CommentDto lastComment;
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.item.exception;
+
+import java.time.LocalDateTime;
+
+public class AvailabilityPeriodIsNotValidException extends RuntimeException {
+    public AvailabilityPeriodIsNotValidException(LocalDateTime from, LocalDateTime to) {
+        super(String.format("Некорректный период поиска свободных окон: с %s по %s.", from, to));
+    }
+}
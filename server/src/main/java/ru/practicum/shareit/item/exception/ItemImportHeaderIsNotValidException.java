@@ -0,0 +1,7 @@
+package ru.practicum.shareit.item.exception;
+
+public class ItemImportHeaderIsNotValidException extends RuntimeException {
+    public ItemImportHeaderIsNotValidException(String header) {
+        super(String.format("Заголовок CSV \"%s\" некорректен: ожидаются колонки name, description, available, requestId.", header));
+    }
+}
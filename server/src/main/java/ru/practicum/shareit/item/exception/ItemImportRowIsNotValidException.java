@@ -0,0 +1,7 @@
+package ru.practicum.shareit.item.exception;
+
+public class ItemImportRowIsNotValidException extends RuntimeException {
+    public ItemImportRowIsNotValidException(String message) {
+        super(message);
+    }
+}
@@ -1,8 +1,12 @@
 package ru.practicum.shareit.item.mapper;
 
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoSimpleWithStatus;
+import ru.practicum.shareit.item.dto.ItemSummaryDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemSummary;
+import ru.practicum.shareit.item.storage.ItemView;
 import ru.practicum.shareit.request.model.ItemRequest;
 
 public class ItemMapper {
@@ -23,6 +27,38 @@ public class ItemMapper {
                 .build();
     }
 
+    public static ItemDto toItemDto(ItemView item) {
+        return ItemDto.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .requestId(item.getRequestId())
+                .build();
+    }
+
+    public static ItemSummaryDto toItemSummaryDto(ItemSummary item) {
+        CommentDto lastComment = null;
+        if (item.getLastCommentId() != null) {
+            lastComment = CommentDto.builder()
+                    .id(item.getLastCommentId())
+                    .text(item.getLastCommentText())
+                    .authorName(item.getLastCommentAuthorName())
+                    .created(item.getLastCommentCreated())
+                    .build();
+        }
+
+        return ItemSummaryDto.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .requestId(item.getRequestId())
+                .commentCount(item.getCommentCount())
+                .lastComment(lastComment)
+                .build();
+    }
+
     public static ItemDtoSimpleWithStatus toItemDtoSimpleWithStatus(Item item) {
         return ItemDtoSimpleWithStatus.builder()
                 .id(item.getId())
@@ -33,6 +69,16 @@ public class ItemMapper {
                 .build();
     }
 
+    public static ItemDtoSimpleWithStatus toItemDtoSimpleWithStatus(ItemView item) {
+        return ItemDtoSimpleWithStatus.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .requestId(item.getRequestId())
+                .build();
+    }
+
     public static Item fromItemDto(ItemDto itemDto) {
         Item item = new Item();
         item.setId(itemDto.getId());
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.item.model;
 
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.DynamicUpdate;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
@@ -32,6 +33,12 @@ public class Item {
     @ManyToOne
     @JoinColumn(name = "request", referencedColumnName = "id")
     private ItemRequest request;
+    // Счетчик и последний комментарий меняются только запросом ItemCommentCounterRepository.registerComment
+    @ColumnDefault("0")
+    @Column(name = "comment_count", nullable = false, insertable = false, updatable = false)
+    private int commentCount;
+    @Column(name = "last_comment", insertable = false, updatable = false)
+    private Long lastCommentId;
 
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item.service;
+
+import org.springframework.http.MediaType;
+
+public enum ItemImportFormat {
+    NDJSON,
+    CSV;
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    public static ItemImportFormat of(String contentType) {
+        return MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))
+                ? CSV
+                : NDJSON;
+    }
+}
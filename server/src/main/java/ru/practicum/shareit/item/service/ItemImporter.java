@@ -0,0 +1,367 @@
+package ru.practicum.shareit.item.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportEventDto;
+import ru.practicum.shareit.item.exception.ItemImportHeaderIsNotValidException;
+import ru.practicum.shareit.item.exception.ItemImportRowIsNotValidException;
+import ru.practicum.shareit.item.storage.ItemSearchCache;
+import ru.practicum.shareit.item.storage.ItemSearchEntry;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
+import ru.practicum.shareit.request.exception.ItemRequestNotFoundException;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Массовый импорт вещей одного владельца из потока NDJSON или CSV.
+ * Строки читаются и проверяются порциями, каждая порция записывается пакетным INSERT в отдельной транзакции,
+ * поэтому ошибка в одной строке не отменяет остальные, а память не зависит от размера файла.
+ * После первых maxReportedErrors ошибки только считаются: отчет должен оставаться небольшим,
+ * пока клиент еще передает файл.
+ */
+@Component
+@Slf4j
+public class ItemImporter {
+    private static final String INSERT_ITEM =
+            "INSERT INTO items (name, description, available, owner, request) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_REQUEST_IDS = "SELECT id FROM item_requests WHERE id IN (:ids)";
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int MAX_DESCRIPTION_LENGTH = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final UserService userService;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemSearchCache itemSearchCache;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    @Autowired
+    public ItemImporter(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            UserService userService,
+            ItemSearchIndex itemSearchIndex,
+            ItemSearchCache itemSearchCache,
+            @Value("${shareit.item.import.chunk-size:1000}") int chunkSize,
+            @Value("${shareit.item.import.max-reported-errors:100}") int maxReportedErrors
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.userService = userService;
+        this.itemSearchIndex = itemSearchIndex;
+        this.itemSearchCache = itemSearchCache;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Импортирует вещи пользователя userId, сообщая listener об ошибках в строках и о каждой записанной порции.
+     * Возвращает итоговое событие, которое также передается listener последним.
+     */
+    public ItemImportEventDto importItems(
+            long userId,
+            BufferedReader reader,
+            ItemImportFormat format,
+            Consumer<ItemImportEventDto> listener
+    ) throws IOException {
+        User owner = userService.getUserById(userId);
+
+        long lineNumber = 0;
+        Function<String, ItemDto> rowParser;
+        if (format == ItemImportFormat.CSV) {
+            lineNumber++;
+            rowParser = csvRowParser(reader.readLine());
+        } else {
+            rowParser = this::parseJsonRow;
+        }
+
+        ImportProgress progress = new ImportProgress(listener);
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            try {
+                ItemDto item = rowParser.apply(line);
+                validate(item);
+                chunk.add(new ImportRow(lineNumber, item));
+            } catch (ItemImportRowIsNotValidException e) {
+                progress.rowFailed(lineNumber, e.getMessage());
+            }
+
+            if (chunk.size() == chunkSize) {
+                writeChunk(owner.getId(), chunk, progress);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(owner.getId(), chunk, progress);
+        }
+
+        log.info("Импорт вещей пользователя {}: добавлено {}, отклонено {}", owner.getId(), progress.imported, progress.failed);
+        return progress.finish();
+    }
+
+    private void writeChunk(long ownerId, List<ImportRow> chunk, ImportProgress progress) {
+        int written = transactionTemplate.execute(status -> {
+            Set<Long> existingRequestIds = findExistingRequestIds(chunk);
+            List<ImportRow> accepted = new ArrayList<>(chunk.size());
+            for (ImportRow row : chunk) {
+                Long requestId = row.item.getRequestId();
+                if (requestId != null && !existingRequestIds.contains(requestId)) {
+                    progress.rowFailed(row.line, new ItemRequestNotFoundException(requestId).getMessage());
+                } else {
+                    accepted.add(row);
+                }
+            }
+            if (accepted.isEmpty()) {
+                return 0;
+            }
+
+            List<Long> ids = insert(ownerId, accepted);
+            List<ItemSearchEntry> searchEntries = new ArrayList<>(accepted.size());
+            for (int i = 0; i < accepted.size(); i++) {
+                ItemDto item = accepted.get(i).item;
+                if (item.getAvailable()) {
+                    searchEntries.add(new ItemSearchEntry(
+                            ids.get(i), item.getName(), item.getDescription(), item.getRequestId()
+                    ));
+                }
+            }
+            itemSearchIndex.addAll(searchEntries);
+            // Порция вещей может попасть в любой закэшированный результат поиска
+            itemSearchCache.invalidateAll();
+
+            return accepted.size();
+        });
+
+        progress.chunkWritten(written);
+    }
+
+    private Set<Long> findExistingRequestIds(List<ImportRow> chunk) {
+        Set<Long> requestIds = chunk.stream()
+                .map(row -> row.item.getRequestId())
+                .filter(Objects::nonNull)
+                .collect(toSet());
+        if (requestIds.isEmpty()) {
+            return Set.of();
+        }
+
+        return new HashSet<>(jdbcTemplate.queryForList(
+                SELECT_REQUEST_IDS, new MapSqlParameterSource("ids", requestIds), Long.class
+        ));
+    }
+
+    private List<Long> insert(long ownerId, List<ImportRow> rows) {
+        return jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_ITEM, new String[]{"id"})) {
+                for (ImportRow row : rows) {
+                    statement.setString(1, row.item.getName());
+                    statement.setString(2, row.item.getDescription());
+                    statement.setBoolean(3, row.item.getAvailable());
+                    statement.setLong(4, ownerId);
+                    statement.setObject(5, row.item.getRequestId(), Types.BIGINT);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                List<Long> ids = new ArrayList<>(rows.size());
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+
+    // Строки null, массивы и скаляры - тоже ошибка строки: Jackson читает null в null, а не в исключение
+    private ItemDto parseJsonRow(String line) {
+        try (JsonParser parser = objectMapper.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ItemImportRowIsNotValidException("Строка не является JSON-описанием вещи.");
+            }
+            return objectMapper.readValue(parser, ItemDto.class);
+        } catch (IOException e) {
+            throw new ItemImportRowIsNotValidException("Строка не является JSON-описанием вещи.");
+        }
+    }
+
+    private static Function<String, ItemDto> csvRowParser(String header) {
+        if (header == null) {
+            throw new ItemImportHeaderIsNotValidException("");
+        }
+
+        List<String> columns = splitCsv(header);
+        int nameIndex = columns.indexOf("name");
+        int descriptionIndex = columns.indexOf("description");
+        int availableIndex = columns.indexOf("available");
+        int requestIdIndex = columns.indexOf("requestId");
+        if (nameIndex < 0 || descriptionIndex < 0 || availableIndex < 0) {
+            throw new ItemImportHeaderIsNotValidException(header);
+        }
+
+        return line -> {
+            List<String> fields = splitCsv(line);
+            if (fields.size() != columns.size()) {
+                throw new ItemImportRowIsNotValidException(String.format(
+                        "Ожидалось полей: %d, получено: %d.", columns.size(), fields.size()
+                ));
+            }
+
+            return ItemDto.builder()
+                    .name(fields.get(nameIndex))
+                    .description(fields.get(descriptionIndex))
+                    .available(parseAvailable(fields.get(availableIndex)))
+                    .requestId(requestIdIndex >= 0 ? parseRequestId(fields.get(requestIdIndex)) : null)
+                    .build();
+        };
+    }
+
+    // Поля разделены запятыми; поле в двойных кавычках может содержать запятые и удвоенные кавычки
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new ItemImportRowIsNotValidException("В строке CSV не закрыта кавычка.");
+        }
+        fields.add(field.toString());
+
+        return fields;
+    }
+
+    private static Boolean parseAvailable(String value) {
+        if (value.isBlank()) {
+            return null;
+        }
+        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+            throw new ItemImportRowIsNotValidException("Статус доступности вещи должен быть true или false.");
+        }
+
+        return Boolean.parseBoolean(value);
+    }
+
+    private static Long parseRequestId(String value) {
+        if (value.isBlank()) {
+            return null;
+        }
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ItemImportRowIsNotValidException(String.format("Некорректный ID запроса: %s.", value));
+        }
+    }
+
+    // Те же ограничения, что проверяет шлюз при создании одной вещи
+    private static void validate(ItemDto item) {
+        if (item.getName() == null || item.getName().isBlank()) {
+            throw new ItemImportRowIsNotValidException("Название вещи не может быть пустым.");
+        }
+        if (item.getName().length() > MAX_NAME_LENGTH) {
+            throw new ItemImportRowIsNotValidException("Длина названия вещи не может превышать 255 символов.");
+        }
+        if (item.getDescription() == null || item.getDescription().isBlank()) {
+            throw new ItemImportRowIsNotValidException("Описание вещи не может быть пустым.");
+        }
+        if (item.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            throw new ItemImportRowIsNotValidException("Длина описания вещи не может превышать 1000 символов.");
+        }
+        if (item.getAvailable() == null) {
+            throw new ItemImportRowIsNotValidException("Статус доступности вещи должен быть указан.");
+        }
+    }
+
+    private static class ImportRow {
+        private final long line;
+        private final ItemDto item;
+
+        private ImportRow(long line, ItemDto item) {
+            this.line = line;
+            this.item = item;
+        }
+    }
+
+    private class ImportProgress {
+        private final Consumer<ItemImportEventDto> listener;
+        private long imported;
+        private long failed;
+
+        private ImportProgress(Consumer<ItemImportEventDto> listener) {
+            this.listener = listener;
+        }
+
+        private void rowFailed(long line, String error) {
+            failed++;
+            if (failed <= maxReportedErrors) {
+                listener.accept(ItemImportEventDto.builder().line(line).error(error).build());
+            }
+        }
+
+        private void chunkWritten(int written) {
+            imported += written;
+            listener.accept(ItemImportEventDto.builder().imported(imported).failed(failed).build());
+        }
+
+        private ItemImportEventDto finish() {
+            ItemImportEventDto result = ItemImportEventDto.builder()
+                    .imported(imported)
+                    .failed(failed)
+                    .finished(true)
+                    .build();
+            listener.accept(result);
+
+            return result;
+        }
+    }
+}
@@ -1,11 +1,20 @@
 package ru.practicum.shareit.item.service;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+import ru.practicum.shareit.item.dto.AvailabilityWindowDto;
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSummaryDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.SeekCursor;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ItemService {
     Item createItem(long userId, ItemDto newItemDto);
@@ -16,11 +25,25 @@ public interface ItemService {
 
     Item getItemById(long itemId);
 
+    Map<Long, Item> getItemsByIds(Collection<Long> itemIds);
+
     ItemDto getItemByIdWithBookingIntervals(long userId, long itemId);
 
+    List<CommentDto> getItemComments(long userId, long itemId, @Nullable SeekCursor after, int size);
+
+    List<AvailabilityWindowDto> getItemAvailability(long userId, long itemId, LocalDateTime from, LocalDateTime to);
+
     Collection<Item> getUserItems(long userId);
 
     Collection<ItemDto> getUserItemsWithBookingIntervals(long userId, Pageable pageable);
 
+    void streamUserItemsWithBookingIntervals(long userId, Pageable pageable, Consumer<ItemDto> consumer);
+
+    List<ItemSummaryDto> getUserItemSummaries(long userId, Pageable pageable);
+
     Collection<Item> searchItems(String text, Pageable pageable);
+
+    void streamSearchItems(String text, Pageable pageable, Consumer<Item> consumer);
+
+    List<ItemSummaryDto> searchItemSummaries(String text, Pageable pageable);
 }
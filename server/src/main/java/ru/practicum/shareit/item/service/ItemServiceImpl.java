@@ -1,14 +1,24 @@
 package ru.practicum.shareit.item.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.storage.BookingEdges;
+import ru.practicum.shareit.booking.storage.BookingEdgesProjection;
+import ru.practicum.shareit.booking.storage.BookingPeriod;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.collection.LongObjectHashMap;
+import ru.practicum.shareit.item.dto.AvailabilityWindowDto;
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSummaryDto;
+import ru.practicum.shareit.item.exception.AvailabilityPeriodIsNotValidException;
 import ru.practicum.shareit.item.exception.CannotLeaveCommentException;
 import ru.practicum.shareit.item.exception.ItemNotFoundException;
 import ru.practicum.shareit.item.exception.UserIsNotOwnerException;
@@ -17,24 +27,40 @@ import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.CommentRepository;
+import ru.practicum.shareit.item.storage.ItemDetails;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemSearchCache;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
+import ru.practicum.shareit.item.storage.ItemSummary;
+import ru.practicum.shareit.item.storage.ItemView;
+import ru.practicum.shareit.pagination.SeekCursor;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.streaming.EntityStreams;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 
-import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 
 @Service
 public class ItemServiceImpl implements ItemService {
+    private static final List<BookingStatus> BUSY_STATUSES = List.of(BookingStatus.APPROVED, BookingStatus.WAITING);
+    // Остальные комментарии карточки догружаются постранично через /items/{itemId}/comments
+    static final int EMBEDDED_COMMENTS_LIMIT = 10;
 
     private final ItemRepository itemStorage;
     private final CommentRepository commentStorage;
     private final BookingRepository bookingStorage;
+    private final ArchivedBookingRepository archivedBookingStorage;
+    private final BookingEdgesProjection bookingEdgesProjection;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemSearchCache itemSearchCache;
+    private final EntityStreams entityStreams;
     private final UserService userService;
     private final ItemRequestService itemRequestService;
 
@@ -44,12 +70,22 @@ public class ItemServiceImpl implements ItemService {
             ItemRepository itemStorage,
             CommentRepository commentStorage,
             BookingRepository bookingStorage,
+            ArchivedBookingRepository archivedBookingStorage,
+            BookingEdgesProjection bookingEdgesProjection,
+            ItemSearchIndex itemSearchIndex,
+            ItemSearchCache itemSearchCache,
+            EntityStreams entityStreams,
             UserService userService,
             ItemRequestService itemRequestService
     ) {
         this.itemStorage = itemStorage;
         this.commentStorage = commentStorage;
         this.bookingStorage = bookingStorage;
+        this.archivedBookingStorage = archivedBookingStorage;
+        this.bookingEdgesProjection = bookingEdgesProjection;
+        this.itemSearchIndex = itemSearchIndex;
+        this.itemSearchCache = itemSearchCache;
+        this.entityStreams = entityStreams;
         this.userService = userService;
         this.itemRequestService = itemRequestService;
     }
@@ -69,8 +105,11 @@ public class ItemServiceImpl implements ItemService {
         item.setAvailable(newItemDto.getAvailable());
         item.setOwner(owner);
 
+        Item createdItem = itemStorage.save(item);
+        itemSearchIndex.update(createdItem);
+        itemSearchCache.invalidate(createdItem);
 
-        return itemStorage.save(item);
+        return createdItem;
     }
 
     @Override
@@ -82,7 +121,10 @@ public class ItemServiceImpl implements ItemService {
                 user, item, LocalDateTime.now(), BookingStatus.APPROVED
         );
 
-        if (finishedBookings.isEmpty()) {
+        // Давние брони могли быть перенесены в архив
+        if (finishedBookings.isEmpty() && !archivedBookingStorage.existsByBookerIdAndItemIdAndEndBeforeAndStatus(
+                user.getId(), item.getId(), LocalDateTime.now(), BookingStatus.APPROVED
+        )) {
             throw new CannotLeaveCommentException(userId, itemId);
         }
 
@@ -90,11 +132,10 @@ public class ItemServiceImpl implements ItemService {
         newComment.setAuthor(user);
         newComment.setCreated(LocalDateTime.now());
 
-        return commentStorage.save(newComment);
-    }
+        Comment savedComment = commentStorage.save(newComment);
+        itemStorage.registerComment(item.getId(), savedComment.getId());
 
-    private Collection<Comment> getCommentsByItems(Collection<Item> items) {
-        return commentStorage.getCommentsByItemIn(items);
+        return savedComment;
     }
 
     @Override
@@ -114,6 +155,8 @@ public class ItemServiceImpl implements ItemService {
         patchedItem.setAvailable(itemToUpdate.getAvailable());
         patchedItem.setOwner(itemToUpdate.getOwner());
         patchedItem.setRequest(itemToUpdate.getRequest());
+        patchedItem.setCommentCount(itemToUpdate.getCommentCount());
+        patchedItem.setLastCommentId(itemToUpdate.getLastCommentId());
 
         if (newItem.getName() != null) {
             patchedItem.setName(newItem.getName());
@@ -125,7 +168,11 @@ public class ItemServiceImpl implements ItemService {
             patchedItem.setAvailable(newItem.getAvailable());
         }
 
-        return itemStorage.save(patchedItem);
+        Item updatedItem = itemStorage.save(patchedItem);
+        itemSearchIndex.update(updatedItem);
+        itemSearchCache.invalidate(updatedItem);
+
+        return updatedItem;
     }
 
     @Override
@@ -134,33 +181,76 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
+    public Map<Long, Item> getItemsByIds(Collection<Long> itemIds) {
+        return itemStorage.findAllById(itemIds)
+                .stream()
+                .collect(toMap(Item::getId, item -> item));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public ItemDto getItemByIdWithBookingIntervals(long userId, long itemId) {
-        User user = userService.getUserById(userId);
-        Item item = getItemById(itemId);
-        ItemDto itemDto = ItemMapper.toItemDto(item);
-        Collection<Comment> comments = getCommentsByItems(List.of(item));
-        itemDto.setComments(comments.stream().map(CommentMapper::toCommentDto).collect(toList()));
+        ItemDetails itemDetails = itemStorage.findItemDetails(itemId, userId, LocalDateTime.now(), EMBEDDED_COMMENTS_LIMIT)
+                .orElse(null);
 
-        Collection<Booking> itemBookings = bookingStorage.findBookingsByItemInAndStatusNot(List.of(item), BookingStatus.REJECTED);
+        // Отдельные запросы нужны только для ошибки: сначала проверяется пользователь, затем вещь
+        if (itemDetails == null || !itemDetails.isUserExists()) {
+            userService.getUserById(userId);
+            throw new ItemNotFoundException(itemId);
+        }
+
+        return itemDetails.getItem();
+    }
 
-        if (item.getOwner().getId() == user.getId() && !itemBookings.isEmpty()) {
-            LocalDateTime currentTime = LocalDateTime.now();
-            getLastAndNextBookings(itemDto, itemBookings, currentTime);
+    @Override
+    @Transactional(readOnly = true)
+    public List<CommentDto> getItemComments(long userId, long itemId, @Nullable SeekCursor after, int size) {
+        userService.getUserById(userId);
+        if (!itemStorage.existsById(itemId)) {
+            throw new ItemNotFoundException(itemId);
+        }
+
+        if (after == null) {
+            return commentStorage.findItemComments(itemId, PageRequest.ofSize(size));
         }
 
-        return itemDto;
+        return commentStorage.findItemCommentsAfter(itemId, after.getPosition(), after.getId(), PageRequest.ofSize(size));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Collection<Item> getUserItems(long userId) {
-        User user = userService.getUserById(userId);
-        return itemStorage.findItemsByOwner(user);
+    public List<AvailabilityWindowDto> getItemAvailability(long userId, long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new AvailabilityPeriodIsNotValidException(from, to);
+        }
+
+        userService.getUserById(userId);
+        Item item = getItemById(itemId);
+
+        // Брони отсортированы по началу: пересекающиеся сливаются на лету, между ними - свободные окна
+        List<AvailabilityWindowDto> freeWindows = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+        for (BookingPeriod busy : bookingStorage.findBookingPeriods(item.getId(), BUSY_STATUSES, from, to)) {
+            if (busy.getStart().isAfter(freeFrom)) {
+                freeWindows.add(AvailabilityWindowDto.builder().start(freeFrom).end(busy.getStart()).build());
+            }
+            if (busy.getEnd().isAfter(freeFrom)) {
+                freeFrom = busy.getEnd();
+            }
+            if (!freeFrom.isBefore(to)) {
+                return freeWindows;
+            }
+        }
+        freeWindows.add(AvailabilityWindowDto.builder().start(freeFrom).end(to).build());
+
+        return freeWindows;
     }
 
-    private Collection<Item> getUserItemsPageable(long userId, Pageable pageable) {
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<Item> getUserItems(long userId) {
         User user = userService.getUserById(userId);
-        return itemStorage.findItemsByOwnerId(user.getId(), pageable);
+        return itemStorage.findItemsByOwner(user);
     }
 
     @Override
@@ -170,33 +260,10 @@ public class ItemServiceImpl implements ItemService {
         List<ItemDto> itemDtosNullIntervals = new ArrayList<>();
 
         User user = userService.getUserById(userId);
-        Collection<Item> items = getUserItemsPageable(user.getId(), pageable);
-        Collection<Booking> bookings = bookingStorage.findBookingsByItemInAndStatusNot(items, BookingStatus.REJECTED);
-        Collection<Comment> comments = commentStorage.getCommentsByItemIn(items);
+        List<ItemView> items = itemStorage.findItemViewsByOwnerId(user.getId(), pageable);
 
-        // Загрузим комментарии в Map
-        Map<Item, List<Comment>> itemToComments = comments
-                .stream()
-                .collect(groupingBy(Comment::getItem, toList()));
-
-        // Загрузим бронирования в Map
-        Map<Item, List<Booking>> itemToBookings = bookings
-                .stream()
-                .collect(groupingBy(Booking::getItem, toList()));
-
-        LocalDateTime currentTime = LocalDateTime.now();
-        for (Item item : items) {
-            ItemDto itemDto = ItemMapper.toItemDto(item);
-
-            List<Comment> itemComments = itemToComments.get(item);
-            if (itemComments != null) {
-                itemDto.setComments(itemComments.stream().map(CommentMapper::toCommentDto).collect(toList()));
-            }
-
-            List<Booking> itemBookings = itemToBookings.get(item);
-            if (itemBookings != null) {
-                getLastAndNextBookings(itemDto, itemBookings, currentTime);
-            } else {
+        for (ItemDto itemDto : toItemDtosWithBookingIntervals(items)) {
+            if (itemDto.getLastBooking() == null && itemDto.getNextBooking() == null) {
                 itemDtosNullIntervals.add(itemDto);
                 continue;
             }
@@ -210,37 +277,135 @@ public class ItemServiceImpl implements ItemService {
         return itemDtos;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void streamUserItemsWithBookingIntervals(long userId, Pageable pageable, Consumer<ItemDto> consumer) {
+        User user = userService.getUserById(userId);
+
+        // Порядок как в getUserItemsWithBookingIntervals: вещи без интервалов откладываются в конец.
+        // Отложенных вещей не больше размера страницы
+        List<ItemDto> itemDtosNullIntervals = new ArrayList<>();
+        entityStreams.forEachChunk(
+                itemStorage.streamItemViewsByOwnerId(user.getId(), pageable),
+                items -> {
+                    for (ItemDto itemDto : toItemDtosWithBookingIntervals(items)) {
+                        if (itemDto.getLastBooking() == null && itemDto.getNextBooking() == null) {
+                            itemDtosNullIntervals.add(itemDto);
+                        } else {
+                            consumer.accept(itemDto);
+                        }
+                    }
+                }
+        );
+        itemDtosNullIntervals.forEach(consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemSummaryDto> getUserItemSummaries(long userId, Pageable pageable) {
+        User user = userService.getUserById(userId);
+
+        return itemStorage.findItemSummariesByOwnerId(user.getId(), pageable).stream()
+                .map(ItemMapper::toItemSummaryDto)
+                .collect(toList());
+    }
+
+    private List<ItemDto> toItemDtosWithBookingIntervals(Collection<ItemView> items) {
+        List<Long> itemIds = items.stream().map(ItemView::getId).collect(toList());
+        LongObjectHashMap<List<CommentDto>> itemToComments = groupCommentsByItemId(
+                commentStorage.getCommentsByItemIdIn(itemIds), items.size()
+        );
+
+        // Последние и следующие бронирования берем из проекции
+        Map<Long, BookingEdges> itemToBookingEdges = bookingEdgesProjection.getEdges(itemIds, LocalDateTime.now());
+
+        List<ItemDto> itemDtos = new ArrayList<>(items.size());
+        for (ItemView item : items) {
+            ItemDto itemDto = ItemMapper.toItemDto(item);
+            itemDto.setComments(itemToComments.get(item.getId()));
+
+            BookingEdges bookingEdges = itemToBookingEdges.get(item.getId());
+            if (bookingEdges != null && !bookingEdges.isEmpty()) {
+                setBookingEdges(itemDto, bookingEdges);
+            }
+
+            itemDtos.add(itemDto);
+        }
+
+        return itemDtos;
+    }
+
+    // Группировка по id: хэш сущности Item рекурсивно считает хэши владельца и запроса
+    static LongObjectHashMap<List<CommentDto>> groupCommentsByItemId(Collection<Comment> comments, int expectedItems) {
+        LongObjectHashMap<List<CommentDto>> itemToComments = new LongObjectHashMap<>(expectedItems);
+        for (Comment comment : comments) {
+            itemToComments.computeIfAbsent(comment.getItem().getId(), itemId -> new ArrayList<>())
+                    .add(CommentMapper.toCommentDto(comment));
+        }
+
+        return itemToComments;
+    }
+
     @Override
     public Collection<Item> searchItems(String text, Pageable pageable) {
         if (text.isBlank()) {
             return List.of();
         }
 
-        return itemStorage.searchItems(text.toLowerCase(), pageable);
+        if (itemSearchIndex.isReady()) {
+            return itemSearchIndex.search(text.toLowerCase(), pageable);
+        }
+
+        return itemSearchCache.search(text.toLowerCase(), pageable);
     }
 
-    private Optional<Booking> findLastBooking(Collection<Booking> bookings, LocalDateTime currentTime) {
-        return bookings
-                .stream()
-                .filter(booking ->
-                        booking.getEnd().isBefore(currentTime) ||
-                                (booking.getStart().isBefore(currentTime) && booking.getEnd().isAfter(currentTime))
-                ).max(Comparator.comparing(Booking::getEnd));
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemSummaryDto> searchItemSummaries(String text, Pageable pageable) {
+        List<Long> itemIds = searchItems(text, pageable).stream().map(Item::getId).collect(toList());
+        if (itemIds.isEmpty()) {
+            return List.of();
+        }
 
+        // Порядок задает поиск, карточки догружаются одним запросом
+        Map<Long, ItemSummary> summaries = itemStorage.findItemSummariesByIdIn(itemIds).stream()
+                .collect(toMap(ItemSummary::getId, summary -> summary));
+
+        List<ItemSummaryDto> result = new ArrayList<>(itemIds.size());
+        for (Long itemId : itemIds) {
+            ItemSummary summary = summaries.get(itemId);
+            if (summary != null) {
+                result.add(ItemMapper.toItemSummaryDto(summary));
+            }
+        }
+
+        return result;
     }
 
-    private Optional<Booking> findNextBooking(Collection<Booking> bookings, LocalDateTime currentTime) {
-        return bookings
-                .stream()
-                .filter(booking -> booking.getStart().isAfter(currentTime))
-                .min(Comparator.comparing(Booking::getStart));
+    @Override
+    @Transactional(readOnly = true)
+    public void streamSearchItems(String text, Pageable pageable, Consumer<Item> consumer) {
+        if (text.isBlank()) {
+            return;
+        }
+
+        if (itemSearchIndex.isReady()) {
+            itemSearchIndex.search(text.toLowerCase(), pageable).forEach(consumer);
+            return;
+        }
+
+        entityStreams.forEachChunk(
+                itemStorage.streamSearchItems(text.toLowerCase(), pageable),
+                items -> items.forEach(consumer)
+        );
     }
 
-    private void getLastAndNextBookings(ItemDto itemDto, Collection<Booking> itemBookings, LocalDateTime currentTime) {
-        Optional<Booking> lastBooking = findLastBooking(itemBookings, currentTime);
-        Optional<Booking> nextBooking = findNextBooking(itemBookings, currentTime);
+    private void setBookingEdges(ItemDto itemDto, BookingEdges bookingEdges) {
+        if (bookingEdges == null) {
+            return;
+        }
 
-        lastBooking.ifPresent(booking -> itemDto.setLastBooking(BookingMapper.toBookingTimeIntervalDto(booking)));
-        nextBooking.ifPresent(booking -> itemDto.setNextBooking(BookingMapper.toBookingTimeIntervalDto(booking)));
+        itemDto.setLastBooking(bookingEdges.getLastBooking());
+        itemDto.setNextBooking(bookingEdges.getNextBooking());
     }
 }
@@ -1,11 +1,35 @@
 package ru.practicum.shareit.item.storage;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.model.Comment;
-import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    Collection<Comment> getCommentsByItemIn(Collection<Item> items);
+    String ITEM_COMMENT_SELECT =
+            "SELECT new ru.practicum.shareit.item.dto.CommentDto(c.id, c.text, a.name, c.created) " +
+                    "FROM Comment c JOIN c.author a " +
+                    "WHERE c.item.id = :itemId ";
+
+    Collection<Comment> getCommentsByItemIdIn(Collection<Long> itemIds);
+
+    @Query(ITEM_COMMENT_SELECT + "ORDER BY c.created DESC, c.id DESC")
+    List<CommentDto> findItemComments(@Param("itemId") long itemId, Pageable pageable);
+
+    // (created, id) < (cursor.created, cursor.id) для порядка created DESC, id DESC
+    @Query(ITEM_COMMENT_SELECT +
+            "AND (c.created < :created OR (c.created = :created AND c.id < :id)) " +
+            "ORDER BY c.created DESC, c.id DESC")
+    List<CommentDto> findItemCommentsAfter(
+            @Param("itemId") long itemId,
+            @Param("created") LocalDateTime created,
+            @Param("id") long id,
+            Pageable pageable
+    );
 }
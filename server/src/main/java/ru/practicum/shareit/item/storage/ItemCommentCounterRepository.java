@@ -0,0 +1,5 @@
+package ru.practicum.shareit.item.storage;
+
+public interface ItemCommentCounterRepository {
+    int registerComment(long itemId, long commentId);
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.item.storage;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Атомарно увеличивает счетчик комментариев вещи и переставляет указатель на последний комментарий.
+ * Последним считается комментарий с наибольшим id, поэтому порядок параллельных обновлений не важен.
+ */
+public class ItemCommentCounterRepositoryImpl implements ItemCommentCounterRepository {
+    private static final String REGISTER_COMMENT =
+            "UPDATE items SET comment_count = comment_count + 1, " +
+                    "last_comment = GREATEST(COALESCE(last_comment, 0), :commentId) " +
+                    "WHERE id = :itemId";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public int registerComment(long itemId, long commentId) {
+        return em.createNativeQuery(REGISTER_COMMENT)
+                .setParameter("itemId", itemId)
+                .setParameter("commentId", commentId)
+                .executeUpdate();
+    }
+}
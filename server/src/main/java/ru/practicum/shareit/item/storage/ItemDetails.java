@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.Value;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+@Value
+public class ItemDetails {
+    ItemDto item;
+    // Пользователь проверяется тем же запросом, что и вещь
+    boolean userExists;
+}
@@ -0,0 +1,8 @@
+package ru.practicum.shareit.item.storage;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface ItemDetailsRepository {
+    Optional<ItemDetails> findItemDetails(long itemId, long userId, LocalDateTime currentTime, int commentsLimit);
+}
@@ -0,0 +1,135 @@
+package ru.practicum.shareit.item.storage;
+
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.LocalDateTimeType;
+import org.hibernate.type.StandardBasicTypes;
+import ru.practicum.shareit.booking.dto.BookingTimeIntervalDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.pagination.SeekCursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Карточка вещи одним SQL-запросом: вещь, новейшие комментарии с именами авторов и, если запрашивает владелец,
+ * последняя и следующая брони. Строк столько, сколько комментариев (минимум одна), поля вещи и броней повторяются.
+ * Комментарии выбираются с запасом в одну строку: если она пришла, в карточку кладется курсор продолжения.
+ */
+public class ItemDetailsRepositoryImpl implements ItemDetailsRepository {
+    private static final List<String> EXCLUDED_STATUSES =
+            List.of(BookingStatus.REJECTED.name(), BookingStatus.CANCELED.name());
+
+    private static final String ITEM_DETAILS =
+            "SELECT it.id AS item_id, it.name AS item_name, it.description AS item_description, " +
+                    "it.available AS item_available, it.request AS request_id, " +
+                    "EXISTS (SELECT 1 FROM users u WHERE u.id = :userId) AS user_exists, " +
+                    "c.id AS comment_id, c.text AS comment_text, a.name AS author_name, c.created AS comment_created, " +
+                    "lb.id AS last_id, lb.start_ts AS last_start, lb.end_ts AS last_end, lb.booker AS last_booker, " +
+                    "nb.id AS next_id, nb.start_ts AS next_start, nb.end_ts AS next_end, nb.booker AS next_booker " +
+                    "FROM items it " +
+                    "LEFT JOIN comments c ON c.id IN (" +
+                    "SELECT ic.id FROM comments ic WHERE ic.item = it.id " +
+                    "ORDER BY ic.created DESC, ic.id DESC LIMIT :commentsLimit) " +
+                    "LEFT JOIN users a ON a.id = c.author " +
+                    "LEFT JOIN bookings lb ON it.owner = :userId AND lb.id = (" +
+                    "SELECT b.id FROM bookings b " +
+                    "WHERE b.item = it.id AND b.status NOT IN (:excludedStatuses) AND b.start_ts < :currentTime " +
+                    "ORDER BY b.end_ts DESC, b.id DESC LIMIT 1) " +
+                    "LEFT JOIN bookings nb ON it.owner = :userId AND nb.id = (" +
+                    "SELECT b.id FROM bookings b " +
+                    "WHERE b.item = it.id AND b.status NOT IN (:excludedStatuses) " +
+                    "AND b.start_ts > :currentTime AND b.end_ts > :currentTime " +
+                    "ORDER BY b.start_ts, b.id LIMIT 1) " +
+                    "WHERE it.id = :itemId " +
+                    "ORDER BY c.created DESC, c.id DESC";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<ItemDetails> findItemDetails(long itemId, long userId, LocalDateTime currentTime, int commentsLimit) {
+        List<Object[]> rows = em.createNativeQuery(ITEM_DETAILS)
+                .setParameter("itemId", itemId)
+                .setParameter("userId", userId)
+                .setParameter("excludedStatuses", EXCLUDED_STATUSES)
+                .setParameter("currentTime", currentTime)
+                .setParameter("commentsLimit", commentsLimit + 1)
+                .unwrap(NativeQuery.class)
+                .addScalar("item_id", StandardBasicTypes.LONG)
+                .addScalar("item_name", StandardBasicTypes.STRING)
+                .addScalar("item_description", StandardBasicTypes.STRING)
+                .addScalar("item_available", StandardBasicTypes.BOOLEAN)
+                .addScalar("request_id", StandardBasicTypes.LONG)
+                .addScalar("user_exists", StandardBasicTypes.BOOLEAN)
+                .addScalar("comment_id", StandardBasicTypes.LONG)
+                .addScalar("comment_text", StandardBasicTypes.STRING)
+                .addScalar("author_name", StandardBasicTypes.STRING)
+                .addScalar("comment_created", LocalDateTimeType.INSTANCE)
+                .addScalar("last_id", StandardBasicTypes.LONG)
+                .addScalar("last_start", LocalDateTimeType.INSTANCE)
+                .addScalar("last_end", LocalDateTimeType.INSTANCE)
+                .addScalar("last_booker", StandardBasicTypes.LONG)
+                .addScalar("next_id", StandardBasicTypes.LONG)
+                .addScalar("next_start", LocalDateTimeType.INSTANCE)
+                .addScalar("next_end", LocalDateTimeType.INSTANCE)
+                .addScalar("next_booker", StandardBasicTypes.LONG)
+                .getResultList();
+
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Object[] first = rows.get(0);
+        List<CommentDto> comments = new ArrayList<>();
+        String commentsCursor = null;
+        for (Object[] row : rows) {
+            if (comments.size() == commentsLimit) {
+                CommentDto last = comments.get(comments.size() - 1);
+                commentsCursor = new SeekCursor(last.getCreated(), last.getId()).encode();
+                break;
+            }
+            if (row[6] != null) {
+                comments.add(CommentDto.builder()
+                        .id((Long) row[6])
+                        .text((String) row[7])
+                        .authorName((String) row[8])
+                        .created((LocalDateTime) row[9])
+                        .build());
+            }
+        }
+
+        ItemDto item = ItemDto.builder()
+                .id((Long) first[0])
+                .name((String) first[1])
+                .description((String) first[2])
+                .available((Boolean) first[3])
+                .requestId((Long) first[4])
+                .comments(comments)
+                .commentsCursor(commentsCursor)
+                .lastBooking(toBookingTimeIntervalDto(first, 10))
+                .nextBooking(toBookingTimeIntervalDto(first, 14))
+                .build();
+
+        return Optional.of(new ItemDetails(item, (Boolean) first[5]));
+    }
+
+    private static BookingTimeIntervalDto toBookingTimeIntervalDto(Object[] row, int offset) {
+        if (row[offset] == null) {
+            return null;
+        }
+
+        return BookingTimeIntervalDto.builder()
+                .id((Long) row[offset])
+                .start((LocalDateTime) row[offset + 1])
+                .end((LocalDateTime) row[offset + 2])
+                .bookerId((Long) row[offset + 3])
+                .build();
+    }
+}
@@ -3,26 +3,62 @@ package ru.practicum.shareit.item.storage;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.streaming.EntityStreams;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.QueryHint;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemSearchRepository, ItemDetailsRepository,
+        ItemCommentCounterRepository {
+    String ITEM_SUMMARY_SELECT =
+            "SELECT new ru.practicum.shareit.item.storage.ItemSummary(i.id, i.name, i.description, i.available, r.id, " +
+                    "i.commentCount, c.id, c.text, a.name, c.created) " +
+                    "FROM Item i LEFT JOIN i.request r " +
+                    "LEFT JOIN Comment c ON c.id = i.lastCommentId " +
+                    "LEFT JOIN c.author a ";
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
     Collection<Item> findItemsByOwner(User owner);
 
-    List<Item> findItemsByOwnerId(long ownerId, Pageable pageable);
+    @Query("SELECT new ru.practicum.shareit.item.storage.ItemView(i.id, i.name, i.description, i.available, r.id) " +
+            "FROM Item i LEFT JOIN i.request r " +
+            "WHERE i.owner.id = :ownerId " +
+            "ORDER BY i.id")
+    List<ItemView> findItemViewsByOwnerId(@Param("ownerId") long ownerId, Pageable pageable);
+
+    @Query("SELECT new ru.practicum.shareit.item.storage.ItemView(i.id, i.name, i.description, i.available, r.id) " +
+            "FROM Item i LEFT JOIN i.request r " +
+            "WHERE i.owner.id = :ownerId " +
+            "ORDER BY i.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EntityStreams.CHUNK_SIZE_HINT))
+    Stream<ItemView> streamItemViewsByOwnerId(@Param("ownerId") long ownerId, Pageable pageable);
 
     Collection<Item> findItemsByRequestIn(Collection<ItemRequest> itemRequests);
 
+    @Query(ITEM_SUMMARY_SELECT + "WHERE i.owner.id = :ownerId ORDER BY i.id")
+    List<ItemSummary> findItemSummariesByOwnerId(@Param("ownerId") long ownerId, Pageable pageable);
+
+    @Query(ITEM_SUMMARY_SELECT + "WHERE i.id IN :ids")
+    List<ItemSummary> findItemSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new ru.practicum.shareit.item.storage.ItemView(i.id, i.name, i.description, i.available, r.id) " +
+            "FROM Item i JOIN i.request r " +
+            "WHERE r.id IN :requestIds")
+    List<ItemView> findItemViewsByRequestIdIn(@Param("requestIds") Collection<Long> requestIds);
+
     Collection<Item> findItemsByRequestInAndOwnerIsNot(Collection<ItemRequest> itemRequests, User requestor);
 
-    @Query(value =
-            "SELECT it.id, it.name, it.description, it.available, it.owner, it.request " +
-                    "FROM items it " +
-                    "WHERE it.available IS TRUE AND (LOWER(it.name) LIKE '%' || ?1 || '%' OR LOWER(it.description) LIKE '%' || ?1 || '%')",
-            nativeQuery = true)
-    List<Item> searchItems(String query, Pageable pageable);
+    @Query("SELECT new ru.practicum.shareit.item.storage.ItemSearchEntry(i.id, i.name, i.description, r.id) " +
+            "FROM Item i LEFT JOIN i.request r " +
+            "WHERE i.available = true AND i.id > :afterId " +
+            "ORDER BY i.id")
+    List<ItemSearchEntry> findSearchEntriesAfter(@Param("afterId") long afterId, Pageable pageable);
 }
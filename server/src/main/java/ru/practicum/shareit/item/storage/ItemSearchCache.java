@@ -0,0 +1,170 @@
+package ru.practicum.shareit.item.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.transaction.TransactionCallbacks;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Кэш результатов поиска вещей: для пары (запрос, страница) хранятся id найденных вещей.
+ * Размер кэша ограничен (вытесняются давно не использованные записи), записи живут не дольше ttl.
+ * При создании или изменении вещи сбрасываются запросы, которым вещь соответствует до или после изменения.
+ */
+@Component
+public class ItemSearchCache {
+    private final ItemRepository itemStorage;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expirations;
+    private final Counter itemInvalidations;
+
+    @Autowired
+    public ItemSearchCache(
+            ItemRepository itemStorage,
+            MeterRegistry meterRegistry,
+            @Value("${shareit.item.search.cache.max-size:10000}") int maxSize,
+            @Value("${shareit.item.search.cache.ttl:PT5M}") Duration ttl
+    ) {
+        this.itemStorage = itemStorage;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.hits = meterRegistry.counter("shareit.items.search.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("shareit.items.search.cache.requests", "result", "miss");
+        this.sizeEvictions = meterRegistry.counter("shareit.items.search.cache.evictions", "cause", "size");
+        this.expirations = meterRegistry.counter("shareit.items.search.cache.evictions", "cause", "expired");
+        this.itemInvalidations = meterRegistry.counter("shareit.items.search.cache.evictions", "cause", "invalidated");
+    }
+
+    public List<Item> search(String query, Pageable pageable) {
+        Key key = new Key(query, pageable.getOffset(), pageable.getPageSize());
+
+        List<Long> cachedIds = get(key);
+        if (cachedIds != null) {
+            hits.increment();
+            Map<Long, Item> items = itemStorage.findAllById(cachedIds).stream()
+                    .collect(toMap(Item::getId, item -> item));
+            return cachedIds.stream()
+                    .map(items::get)
+                    .filter(Objects::nonNull)
+                    .collect(toList());
+        }
+
+        misses.increment();
+        long invalidationsBeforeLoad = invalidations.get();
+        List<Item> found = itemStorage.searchItems(query, pageable);
+        put(key, found.stream().map(Item::getId).collect(toList()), invalidationsBeforeLoad);
+
+        return found;
+    }
+
+    public void invalidate(Item item) {
+        long itemId = item.getId();
+        List<String> texts = Boolean.TRUE.equals(item.getAvailable())
+                ? List.of(item.getName().toLowerCase(), item.getDescription().toLowerCase())
+                : List.of();
+
+        invalidate(itemId, texts);
+        TransactionCallbacks.afterCommit(() -> invalidate(itemId, texts));
+    }
+
+    public void invalidateAll() {
+        clear();
+        TransactionCallbacks.afterCommit(this::clear);
+    }
+
+    private synchronized List<Long> get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.createdAt >= ttlNanos) {
+            entries.remove(key);
+            expirations.increment();
+            return null;
+        }
+
+        return entry.itemIds;
+    }
+
+    private synchronized void put(Key key, List<Long> itemIds, long invalidationsBeforeLoad) {
+        // Если во время поиска кэш сбрасывали, найденные вещи могли устареть
+        if (invalidations.get() != invalidationsBeforeLoad) {
+            return;
+        }
+
+        entries.put(key, new Entry(List.copyOf(itemIds), System.nanoTime()));
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxSize) {
+            eldest.next();
+            eldest.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    private synchronized void invalidate(long itemId, List<String> texts) {
+        invalidations.incrementAndGet();
+        // Вещь уже была в результате или теперь должна в него попасть. Сбрасываются все страницы запроса:
+        // появление или исчезновение вещи сдвигает и следующие страницы
+        Set<String> affectedQueries = new HashSet<>();
+        for (Map.Entry<Key, Entry> cached : entries.entrySet()) {
+            String query = cached.getKey().query;
+            if (cached.getValue().itemIds.contains(itemId) || texts.stream().anyMatch(text -> text.contains(query))) {
+                affectedQueries.add(query);
+            }
+        }
+        if (affectedQueries.isEmpty()) {
+            return;
+        }
+
+        Iterator<Key> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (affectedQueries.contains(iterator.next().query)) {
+                iterator.remove();
+                itemInvalidations.increment();
+            }
+        }
+    }
+
+    private synchronized void clear() {
+        invalidations.incrementAndGet();
+        itemInvalidations.increment(entries.size());
+        entries.clear();
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Key {
+        private final String query;
+        private final long offset;
+        private final int size;
+    }
+
+    private static class Entry {
+        private final List<Long> itemIds;
+        private final long createdAt;
+
+        private Entry(List<Long> itemIds, long createdAt) {
+            this.itemIds = itemIds;
+            this.createdAt = createdAt;
+        }
+    }
+}
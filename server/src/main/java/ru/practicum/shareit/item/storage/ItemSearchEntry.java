@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ItemSearchEntry {
+    private long id;
+    private String name;
+    private String description;
+    private Long requestId;
+}
@@ -0,0 +1,335 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.transaction.TransactionCallbacks;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс доступных вещей по триграммам названия и описания.
+ * Кандидаты - пересечение списков вещей по триграммам запроса, затем проверка вхождения подстроки,
+ * поэтому результат совпадает с LIKE-поиском в БД. Запросы короче триграммы проверяются перебором.
+ * Строится при старте приложения и обновляется после коммита создания или изменения вещи.
+ * Изменения, пришедшие во время построения, применяются сразу, а прочитанные для этих вещей строки скана
+ * отбрасываются: они могли быть прочитаны до коммита изменения.
+ */
+@Component
+@Slf4j
+public class ItemSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    private final ItemRepository itemStorage;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, ItemSearchEntry> entries = new HashMap<>();
+    // Вещи, измененные после начала построения; null, когда индекс не строится
+    private Set<Long> changedDuringBuild;
+    private volatile boolean ready;
+
+    @Autowired
+    public ItemSearchIndex(
+            ItemRepository itemStorage,
+            @Value("${shareit.item.search.index.enabled:false}") boolean enabled
+    ) {
+        this.itemStorage = itemStorage;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            changedDuringBuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long lastId = 0;
+        List<ItemSearchEntry> batch;
+        do {
+            batch = itemStorage.findSearchEntriesAfter(lastId, PageRequest.of(0, BUILD_BATCH_SIZE));
+            lock.writeLock().lock();
+            try {
+                for (ItemSearchEntry entry : batch) {
+                    if (!changedDuringBuild.contains(entry.getId())) {
+                        put(entry);
+                    }
+                    lastId = entry.getId();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } while (batch.size() == BUILD_BATCH_SIZE);
+
+        lock.writeLock().lock();
+        try {
+            changedDuringBuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Поисковый индекс вещей построен, проиндексировано вещей: {}", entries.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void update(Item item) {
+        if (!enabled) {
+            return;
+        }
+
+        long itemId = item.getId();
+        if (!Boolean.TRUE.equals(item.getAvailable())) {
+            TransactionCallbacks.afterCommit(() -> removeChanged(itemId));
+            return;
+        }
+
+        ItemRequest request = item.getRequest();
+        ItemSearchEntry entry = new ItemSearchEntry(
+                itemId, item.getName(), item.getDescription(), request != null ? request.getId() : null
+        );
+        TransactionCallbacks.afterCommit(() -> putChanged(entry));
+    }
+
+    // Для массового импорта: все доступные вещи порции добавляются одним обновлением после коммита
+    public void addAll(List<ItemSearchEntry> newEntries) {
+        if (!enabled || newEntries.isEmpty()) {
+            return;
+        }
+
+        TransactionCallbacks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                newEntries.forEach(this::putChanged);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Возвращает вещи, в названии или описании которых есть подстрока query (в нижнем регистре), по возрастанию id.
+     * Вещи собираются из индекса и содержат только поля, нужные для выдачи поиска.
+     */
+    public List<Item> search(String query, Pageable pageable) {
+        long toSkip = pageable.getOffset();
+        int limit = pageable.getPageSize();
+        List<Item> found = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            for (long itemId : candidates(query)) {
+                ItemSearchEntry entry = entries.get(itemId);
+                if (!matches(entry, query)) {
+                    continue;
+                }
+                if (toSkip > 0) {
+                    toSkip--;
+                    continue;
+                }
+
+                found.add(toItem(entry));
+                if (found.size() == limit) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return found;
+    }
+
+    private long[] candidates(String query) {
+        if (query.length() < GRAM_LENGTH) {
+            return entries.keySet().stream()
+                    .mapToLong(Long::longValue)
+                    .sorted()
+                    .toArray();
+        }
+
+        List<PostingList> lists = new ArrayList<>();
+        for (String gram : grams(query)) {
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                return new long[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        // Пересекаем начиная с самого короткого списка
+        long[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int size = result.length;
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            PostingList list = lists.get(i);
+            int kept = 0;
+            for (int j = 0; j < size; j++) {
+                if (list.contains(result[j])) {
+                    result[kept++] = result[j];
+                }
+            }
+            size = kept;
+        }
+
+        return Arrays.copyOf(result, size);
+    }
+
+    private void putChanged(ItemSearchEntry entry) {
+        lock.writeLock().lock();
+        try {
+            markChanged(entry.getId());
+            put(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeChanged(long itemId) {
+        lock.writeLock().lock();
+        try {
+            markChanged(itemId);
+            remove(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void markChanged(long itemId) {
+        if (changedDuringBuild != null) {
+            changedDuringBuild.add(itemId);
+        }
+    }
+
+    private void put(ItemSearchEntry entry) {
+        lock.writeLock().lock();
+        try {
+            ItemSearchEntry previous = entries.put(entry.getId(), entry);
+            Set<String> oldGrams = previous != null ? entryGrams(previous) : Set.of();
+            Set<String> newGrams = entryGrams(entry);
+
+            for (String gram : oldGrams) {
+                if (!newGrams.contains(gram)) {
+                    removePosting(gram, entry.getId());
+                }
+            }
+            for (String gram : newGrams) {
+                if (!oldGrams.contains(gram)) {
+                    postings.computeIfAbsent(gram, key -> new PostingList()).add(entry.getId());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(long itemId) {
+        lock.writeLock().lock();
+        try {
+            ItemSearchEntry previous = entries.remove(itemId);
+            if (previous == null) {
+                return;
+            }
+            for (String gram : entryGrams(previous)) {
+                removePosting(gram, itemId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removePosting(String gram, long itemId) {
+        PostingList list = postings.get(gram);
+        if (list != null && list.remove(itemId) && list.size == 0) {
+            postings.remove(gram);
+        }
+    }
+
+    private static boolean matches(ItemSearchEntry entry, String query) {
+        return entry.getName().toLowerCase().contains(query) || entry.getDescription().toLowerCase().contains(query);
+    }
+
+    private static Set<String> entryGrams(ItemSearchEntry entry) {
+        Set<String> grams = grams(entry.getName().toLowerCase());
+        grams.addAll(grams(entry.getDescription().toLowerCase()));
+        return grams;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static Item toItem(ItemSearchEntry entry) {
+        Item item = new Item();
+        item.setId(entry.getId());
+        item.setName(entry.getName());
+        item.setDescription(entry.getDescription());
+        item.setAvailable(true);
+        if (entry.getRequestId() != null) {
+            ItemRequest request = new ItemRequest();
+            request.setId(entry.getRequestId());
+            item.setRequest(request);
+        }
+
+        return item;
+    }
+
+    /**
+     * Отсортированный по возрастанию список id вещей с запасом емкости.
+     */
+    private static class PostingList {
+        private long[] ids = new long[4];
+        private int size;
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void add(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+}
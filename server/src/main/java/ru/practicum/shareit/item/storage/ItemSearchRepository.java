@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.storage;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ItemSearchRepository {
+    List<Item> searchItems(String query, Pageable pageable);
+
+    Stream<Item> streamSearchItems(String query, Pageable pageable);
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.item.storage;
+
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.streaming.EntityStreams;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Поиск доступных вещей по подстроке в названии или описании.
+ * На PostgreSQL условие LIKE обслуживается GIN-индексами pg_trgm, а результат упорядочен по похожести
+ * названия, затем описания, при равной похожести - по id; на остальных БД (H2 в профилях ci и test)
+ * выполняется тот же LIKE без ранжирования, по возрастанию id. Порядок детерминирован в обоих случаях,
+ * поэтому страницы по смещению не пересекаются.
+ */
+public class ItemSearchRepositoryImpl implements ItemSearchRepository {
+    private static final String MATCH_CONDITION =
+            "WHERE it.available IS TRUE " +
+                    "AND (LOWER(it.name) LIKE '%' || :query || '%' OR LOWER(it.description) LIKE '%' || :query || '%') ";
+
+    private static final String LIKE_SEARCH =
+            "SELECT it.* FROM items it " + MATCH_CONDITION + "ORDER BY it.id";
+
+    private static final String TRIGRAM_SEARCH =
+            "SELECT it.* FROM items it " + MATCH_CONDITION +
+                    "ORDER BY similarity(LOWER(it.name), :query) DESC, " +
+                    "similarity(LOWER(it.description), :query) DESC, it.id";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Value("${shareit.item.search.trigram.enabled:false}")
+    private boolean trigramEnabled;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Item> searchItems(String query, Pageable pageable) {
+        return createSearchQuery(query, pageable).getResultList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<Item> streamSearchItems(String query, Pageable pageable) {
+        return createSearchQuery(query, pageable)
+                .setHint(QueryHints.HINT_FETCH_SIZE, EntityStreams.CHUNK_SIZE)
+                .getResultStream();
+    }
+
+    private Query createSearchQuery(String query, Pageable pageable) {
+        return em.createNativeQuery(trigramEnabled ? TRIGRAM_SEARCH : LIKE_SEARCH, Item.class)
+                .setParameter("query", query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize());
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Карточка вещи для списков: число комментариев и последний комментарий без загрузки остальных.
+ */
+@Data
+@AllArgsConstructor
+public class ItemSummary {
+    private long id;
+    private String name;
+    private String description;
+    private Boolean available;
+    private Long requestId;
+    private int commentCount;
+    private Long lastCommentId;
+    private String lastCommentText;
+    private String lastCommentAuthorName;
+    private LocalDateTime lastCommentCreated;
+}
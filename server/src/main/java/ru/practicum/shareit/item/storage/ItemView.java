@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Поля вещи для списков без загрузки владельца и запроса.
+ */
+@Data
+@AllArgsConstructor
+public class ItemView {
+    private long id;
+    private String name;
+    private String description;
+    private Boolean available;
+    private Long requestId;
+}
@@ -3,9 +3,11 @@ package ru.practicum.shareit.request.mapper;
 import ru.practicum.shareit.item.dto.ItemDtoSimpleWithStatus;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemView;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.ItemRequestView;
 import ru.practicum.shareit.user.dto.UserDtoSimple;
 
 import java.util.Collection;
@@ -39,6 +41,19 @@ public class ItemRequestMapper {
                 .build();
     }
 
+    public static ItemRequestResponseDto toItemRequestResponseDto(ItemRequestView itemRequest, Collection<ItemView> items) {
+        Collection<ItemDtoSimpleWithStatus> itemDtos = items.stream()
+                .map(ItemMapper::toItemDtoSimpleWithStatus)
+                .collect(Collectors.toList());
+
+        return ItemRequestResponseDto.builder()
+                .id(itemRequest.getId())
+                .description(itemRequest.getDescription())
+                .created(itemRequest.getCreated())
+                .items(itemDtos)
+                .build();
+    }
+
     public static ItemRequest fromItemRequestDto(ItemRequestDto itemRequestDto) {
         ItemRequest itemRequest = new ItemRequest();
         itemRequest.setDescription(itemRequestDto.getDescription());
@@ -6,11 +6,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemView;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 import ru.practicum.shareit.request.exception.ItemRequestNotFoundException;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.request.storage.ItemRequestView;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
@@ -68,10 +70,24 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Transactional(readOnly = true)
     public Collection<ItemRequestResponseDto> getAllOtherUsersRequests(long userId, Pageable pageable) {
         User user = userService.getUserById(userId);
-        Collection<ItemRequest> otherUsersRequests = itemRequestStorage.findItemRequestsByRequestorNot(user, pageable);
-        Collection<Item> otherUsersRequestedItems = itemStorage.findItemsByRequestIn(otherUsersRequests);
+        List<ItemRequestView> otherUsersRequests = itemRequestStorage.findItemRequestViewsByRequestorIdNot(user.getId(), pageable);
+        if (otherUsersRequests.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> requestIds = otherUsersRequests.stream().map(ItemRequestView::getId).collect(toList());
+        Map<Long, List<ItemView>> requestToItems = itemStorage.findItemViewsByRequestIdIn(requestIds).stream()
+                .collect(groupingBy(ItemView::getRequestId, toList()));
 
-        return getItemRequestsWithResponses(otherUsersRequestedItems);
+        // Как и прежде, в ответ попадают только запросы, на которые уже откликнулись
+        Collection<ItemRequestResponseDto> result = new ArrayList<>();
+        for (ItemRequestView request : otherUsersRequests) {
+            List<ItemView> requestedItems = requestToItems.get(request.getId());
+            if (requestedItems != null) {
+                result.add(ItemRequestMapper.toItemRequestResponseDto(request, requestedItems));
+            }
+        }
+        return result;
     }
 
     @Override
@@ -2,6 +2,8 @@ package ru.practicum.shareit.request.storage;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
@@ -11,5 +13,8 @@ import java.util.List;
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
     Collection<ItemRequest> findItemRequestsByRequestor(User requestor);
 
-    List<ItemRequest> findItemRequestsByRequestorNot(User requestor, Pageable pageable);
+    @Query("SELECT new ru.practicum.shareit.request.storage.ItemRequestView(r.id, r.description, r.created) " +
+            "FROM ItemRequest r " +
+            "WHERE r.requestor.id <> :requestorId")
+    List<ItemRequestView> findItemRequestViewsByRequestorIdNot(@Param("requestorId") long requestorId, Pageable pageable);
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.request.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Поля запроса для списков без загрузки автора.
+ */
+@Data
+@AllArgsConstructor
+public class ItemRequestView {
+    private long id;
+    private String description;
+    private LocalDateTime created;
+}
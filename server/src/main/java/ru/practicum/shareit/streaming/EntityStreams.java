@@ -0,0 +1,43 @@
+package ru.practicum.shareit.streaming;
+
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Обработка потоков сущностей из БД порциями. После каждой порции контекст персистентности очищается,
+ * чтобы прочитанные сущности не накапливались до конца транзакции.
+ */
+@Component
+public class EntityStreams {
+    public static final int CHUNK_SIZE = 100;
+    // Размер порции строкой - для @QueryHint в репозиториях
+    public static final String CHUNK_SIZE_HINT = "" + CHUNK_SIZE;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public <T> void forEachChunk(Stream<T> stream, Consumer<List<T>> chunkConsumer) {
+        try (stream) {
+            Iterator<T> iterator = stream.iterator();
+            List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE) {
+                    chunkConsumer.accept(chunk);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                    em.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunkConsumer.accept(chunk);
+            }
+        }
+    }
+}
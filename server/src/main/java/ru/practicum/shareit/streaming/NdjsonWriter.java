@@ -0,0 +1,60 @@
+package ru.practicum.shareit.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Пишет объекты в ответ построчно в формате NDJSON: одна строка - один JSON-документ.
+ * Заголовки ответа выставляются при первой записи, поэтому ошибка до нее обрабатывается как обычно.
+ */
+public class NdjsonWriter {
+    private final ObjectMapper objectMapper;
+    private final HttpServletResponse response;
+    private JsonGenerator generator;
+
+    public NdjsonWriter(ObjectMapper objectMapper, HttpServletResponse response) {
+        this.objectMapper = objectMapper;
+        this.response = response;
+    }
+
+    public void write(Object value) {
+        try {
+            if (generator == null) {
+                start();
+            }
+            generator.writeObject(value);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Отправляет клиенту уже записанные строки, не дожидаясь конца ответа
+    public void flush() {
+        try {
+            if (generator != null) {
+                generator.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finish() throws IOException {
+        if (generator == null) {
+            start();
+        }
+        generator.close();
+    }
+
+    private void start() throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        generator = objectMapper.createGenerator(response.getOutputStream());
+        generator.setRootValueSeparator(null);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.practicum.shareit.transaction;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Фиксированный набор блокировок, ключ отображается на одну из них. Блокировка берется внутри транзакции
+ * и отпускается после ее завершения, чтобы конкурирующая транзакция увидела уже зафиксированные данные.
+ */
+public class StripedLocks {
+    private final ReentrantLock[] stripes;
+
+    public StripedLocks(int stripeCount) {
+        if (stripeCount <= 0 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Число блокировок должно быть положительной степенью двойки: " + stripeCount);
+        }
+
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public void lockUntilCompletion(long key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Блокировка по ключу " + key + " запрошена вне транзакции.");
+        }
+
+        ReentrantLock lock = stripeFor(key);
+        lock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    int stripeIndex(long key) {
+        // Перемешиваем биты, чтобы соседние ID попадали в разные блокировки
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (stripes.length - 1);
+    }
+
+    private ReentrantLock stripeFor(long key) {
+        return stripes[stripeIndex(key)];
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.user.exception.UserNotFoundException;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserCache;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.util.Collection;
@@ -11,10 +12,12 @@ import java.util.Collection;
 @Service
 public class UserServiceImpl implements UserService {
     private final UserRepository userStorage;
+    private final UserCache userCache;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, UserCache userCache) {
         this.userStorage = userRepository;
+        this.userCache = userCache;
     }
 
     @Override
@@ -37,17 +40,21 @@ public class UserServiceImpl implements UserService {
             patchedUser.setName(newUser.getName());
         }
 
-        return userStorage.save(patchedUser);
+        User savedUser = userStorage.save(patchedUser);
+        userCache.invalidate(userId);
+
+        return savedUser;
     }
 
     @Override
     public void deleteUser(long userId) {
         userStorage.deleteById(userId);
+        userCache.invalidate(userId);
     }
 
     @Override
     public User getUserById(long userId) {
-        return userStorage.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
+        return userCache.get(userId).orElseThrow(() -> new UserNotFoundException(userId));
     }
 
     @Override
@@ -0,0 +1,162 @@
+package ru.practicum.shareit.user.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.practicum.shareit.transaction.TransactionCallbacks;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш пользователей по id в два уровня. В пределах HTTP-запроса пользователь читается не больше одного раза,
+ * общий кэш хранит пользователей между запросами: размер ограничен (вытесняются давно не использованные),
+ * записи живут не дольше ttl. Прочитанный пользователь попадает в общий кэш только после коммита транзакции,
+ * изменение или удаление пользователя сбрасывает его запись на обоих уровнях.
+ * Наружу отдаются копии, поэтому изменение полученного пользователя не портит кэш.
+ */
+@Component
+public class UserCache {
+    private static final String REQUEST_ATTRIBUTE = UserCache.class.getName() + ".users";
+
+    private final UserRepository userStorage;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Long, Entry> entries;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Counter requestHits;
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public UserCache(
+            UserRepository userStorage,
+            MeterRegistry meterRegistry,
+            @Value("${shareit.user.cache.max-size:10000}") int maxSize,
+            @Value("${shareit.user.cache.ttl:PT1M}") Duration ttl
+    ) {
+        this.userStorage = userStorage;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.requestHits = meterRegistry.counter("shareit.users.cache.requests", "result", "request-hit");
+        this.hits = meterRegistry.counter("shareit.users.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("shareit.users.cache.requests", "result", "miss");
+    }
+
+    public Optional<User> get(long userId) {
+        Map<Long, User> requestUsers = requestUsers();
+        User user = requestUsers != null ? requestUsers.get(userId) : null;
+        if (user != null) {
+            requestHits.increment();
+            return Optional.of(copy(user));
+        }
+
+        user = getShared(userId);
+        if (user != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            long invalidationsBeforeLoad = invalidations.get();
+            user = userStorage.findById(userId).map(UserCache::copy).orElse(null);
+            if (user == null) {
+                return Optional.empty();
+            }
+
+            User loaded = user;
+            TransactionCallbacks.afterCommit(() -> putShared(loaded, invalidationsBeforeLoad));
+        }
+
+        if (requestUsers != null) {
+            requestUsers.put(userId, user);
+        }
+        return Optional.of(copy(user));
+    }
+
+    public void invalidate(long userId) {
+        Map<Long, User> requestUsers = requestUsers();
+        if (requestUsers != null) {
+            requestUsers.remove(userId);
+        }
+
+        invalidateShared(userId);
+        TransactionCallbacks.afterCommit(() -> invalidateShared(userId));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Long, User> requestUsers() {
+        // Вне HTTP-запроса (планировщик, тесты сервисов) работает только общий кэш
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+
+        Map<Long, User> users = (Map<Long, User>) attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (users == null) {
+            users = new HashMap<>();
+            attributes.setAttribute(REQUEST_ATTRIBUTE, users, RequestAttributes.SCOPE_REQUEST);
+        }
+        return users;
+    }
+
+    private synchronized User getShared(long userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.createdAt >= ttlNanos) {
+            entries.remove(userId);
+            return null;
+        }
+
+        return entry.user;
+    }
+
+    private synchronized void putShared(User user, long invalidationsBeforeLoad) {
+        // Если во время чтения кэш сбрасывали, прочитанный пользователь мог устареть
+        if (invalidations.get() != invalidationsBeforeLoad) {
+            return;
+        }
+
+        entries.put(user.getId(), new Entry(user, System.nanoTime()));
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxSize) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private synchronized void invalidateShared(long userId) {
+        invalidations.incrementAndGet();
+        entries.remove(userId);
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+
+        return copy;
+    }
+
+    private static class Entry {
+        private final User user;
+        private final long createdAt;
+
+        private Entry(User user, long createdAt) {
+            this.user = user;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+CREATE TABLE IF NOT EXISTS bookings
+(
+    id       BIGINT                      NOT NULL,
+    start_ts TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_ts   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item     BIGINT                      NOT NULL,
+    booker   BIGINT,
+    status   VARCHAR(20),
+    version  BIGINT                      NOT NULL DEFAULT 0,
+    CONSTRAINT pk_booking_id PRIMARY KEY (id),
+    CONSTRAINT fk_booking_item FOREIGN KEY (item) REFERENCES items (id),
+    CONSTRAINT fk_booking_booker FOREIGN KEY (booker) REFERENCES users (id)
+);
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_start ON bookings (booker, start_ts DESC, id DESC);
+CREATE INDEX IF NOT EXISTS ix_bookings_item_start ON bookings (item, start_ts DESC);
+
+-- Hibernate выдает id пачками по 50 начиная со значения последовательности: сдвигаем ее за уже занятые id
+ALTER SEQUENCE booking_seq RESTART WITH (SELECT GREATEST(
+    (SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'BOOKING_SEQ'),
+    (SELECT COALESCE(MAX(id), 0) + 50 FROM (SELECT id FROM bookings UNION ALL SELECT id FROM bookings_archive) ids)));
@@ -0,0 +1,38 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS ix_items_name_trgm ON items USING GIN (LOWER(name) gin_trgm_ops) WHERE available;
+CREATE INDEX IF NOT EXISTS ix_items_description_trgm ON items USING GIN (LOWER(description) gin_trgm_ops) WHERE available;
+
+CREATE TABLE IF NOT EXISTS bookings
+(
+    id       BIGINT                      NOT NULL,
+    start_ts TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_ts   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item     BIGINT                      NOT NULL,
+    booker   BIGINT,
+    status   VARCHAR(20),
+    version  BIGINT                      NOT NULL DEFAULT 0,
+    CONSTRAINT pk_booking_id PRIMARY KEY (id, end_ts),
+    CONSTRAINT fk_booking_item FOREIGN KEY (item) REFERENCES items (id),
+    CONSTRAINT fk_booking_booker FOREIGN KEY (booker) REFERENCES users (id)
+) PARTITION BY RANGE (end_ts);
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- Таблица, созданная до секционирования, остается обычной: секция по умолчанию нужна только секционированной.
+-- Тело блока в одинарных кавычках, чтобы инициализатор схемы не делил его по точкам с запятой
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(''bookings'')) THEN
+        CREATE TABLE IF NOT EXISTS bookings_default PARTITION OF bookings DEFAULT;
+    END IF;
+END';
+
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_start ON bookings (booker, start_ts DESC, id DESC);
+CREATE INDEX IF NOT EXISTS ix_bookings_item_start ON bookings (item, start_ts DESC);
+CREATE INDEX IF NOT EXISTS ix_bookings_waiting_start ON bookings (start_ts) WHERE status = 'WAITING';
+
+-- Hibernate выдает id пачками по 50 начиная со значения последовательности: сдвигаем ее за уже занятые id
+SELECT setval('booking_seq', GREATEST(
+    (SELECT last_value FROM booking_seq),
+    (SELECT COALESCE(MAX(id), 0) FROM (SELECT id FROM bookings UNION ALL SELECT id FROM bookings_archive) ids)));
@@ -0,0 +1,168 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.exception.BookingPeriodIsAlreadyTakenException;
+import ru.practicum.shareit.booking.exception.BookingWasModifiedException;
+import ru.practicum.shareit.booking.exception.SameApproveStatusException;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.LongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = ShareItServer.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class BookingApprovalConcurrencyTest {
+    private static final int THREADS = 16;
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final BookingService bookingService;
+    private final BookingRepository bookingStorage;
+
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+    private final LocalDateTime end = start.plusDays(1);
+
+    private ExecutorService executor;
+    private User owner;
+    private User booker;
+
+    @BeforeEach
+    void beforeEach() {
+        executor = Executors.newFixedThreadPool(THREADS);
+
+        owner = new User();
+        owner.setName("John Owner");
+        owner.setEmail("john.owner@mail.com");
+
+        booker = new User();
+        booker.setName("John Booker");
+        booker.setEmail("john.booker@mail.com");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(owner);
+            em.persist(booker);
+        });
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+    }
+
+    private Item createItem(String name) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription("item_description");
+        item.setAvailable(true);
+        item.setOwner(owner);
+
+        transactionTemplate.executeWithoutResult(status -> em.persist(item));
+        return item;
+    }
+
+    private Booking createWaitingBooking(Item item) {
+        Booking booking = new Booking();
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingStatus.WAITING);
+
+        transactionTemplate.executeWithoutResult(status -> em.persist(booking));
+        return booking;
+    }
+
+    private List<Object> approveConcurrently(List<Long> bookingIds) throws Exception {
+        return runConcurrently(bookingIds.size(), i -> bookingService.approveBooking(owner.getId(), bookingIds.get((int) i), true));
+    }
+
+    // Возвращает результат или исключение каждого вызова
+    private List<Object> runConcurrently(int calls, LongFunction<Object> action) throws Exception {
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            long call = i;
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                try {
+                    return action.apply(call);
+                } catch (RuntimeException ex) {
+                    return ex;
+                }
+            }));
+        }
+
+        startSignal.countDown();
+
+        List<Object> results = new ArrayList<>();
+        for (Future<Object> future : futures) {
+            results.add(future.get(30, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    @Test
+    void testOverlappingApprovalsOfSameItemApproveExactlyOne() throws Exception {
+        Item item = createItem("item_name");
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            bookingIds.add(createWaitingBooking(item).getId());
+        }
+
+        List<Object> results = approveConcurrently(bookingIds);
+
+        assertThat(results).filteredOn(Booking.class::isInstance).hasSize(1);
+        assertThat(results).filteredOn(BookingPeriodIsAlreadyTakenException.class::isInstance).hasSize(THREADS - 1);
+        assertThat(bookingStorage.findAll()).filteredOn(booking -> booking.getStatus() == BookingStatus.APPROVED).hasSize(1);
+    }
+
+    @Test
+    void testConcurrentApprovalsOfSameBookingApplyOnce() throws Exception {
+        Item item = createItem("item_name");
+        long bookingId = createWaitingBooking(item).getId();
+
+        List<Object> results = runConcurrently(THREADS, i -> bookingService.approveBooking(owner.getId(), bookingId, true));
+
+        assertThat(results).filteredOn(Booking.class::isInstance).hasSize(1);
+        assertThat(results)
+                .filteredOn(result -> !(result instanceof Booking))
+                .allMatch(result -> result instanceof BookingWasModifiedException || result instanceof SameApproveStatusException);
+
+        Booking approvedBooking = bookingStorage.findById(bookingId).orElseThrow();
+        assertThat(approvedBooking.getStatus()).isEqualTo(BookingStatus.APPROVED);
+        assertThat(approvedBooking.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void testApprovalsOfDifferentItemsAllSucceed() throws Exception {
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            bookingIds.add(createWaitingBooking(createItem("item_" + i)).getId());
+        }
+
+        List<Object> results = approveConcurrently(bookingIds);
+
+        assertThat(results).allMatch(Booking.class::isInstance);
+        assertThat(bookingStorage.findAll()).allMatch(booking -> booking.getStatus() == BookingStatus.APPROVED);
+    }
+}
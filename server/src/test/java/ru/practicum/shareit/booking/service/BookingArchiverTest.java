@@ -0,0 +1,186 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingView;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.SeekCursor;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = ShareItServer.class)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class BookingArchiverTest {
+    private final EntityManager em;
+
+    private final BookingArchiver bookingArchiver;
+
+    private final ItemService itemService;
+
+    private final BookingService bookingService;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private User booker;
+
+    private Item item;
+
+    private Booking oldBooking;
+
+    private Booking recentBooking;
+
+    private Booking booking(LocalDateTime start, LocalDateTime end) {
+        Booking booking = new Booking();
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingStatus.APPROVED);
+
+        return booking;
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        User owner = new User();
+        owner.setName("John Owner");
+        owner.setEmail("john.owner@mail.com");
+
+        booker = new User();
+        booker.setName("John Booker");
+        booker.setEmail("john.booker@mail.com");
+
+        item = new Item();
+        item.setName("item_name");
+        item.setDescription("item_description");
+        item.setAvailable(true);
+        item.setOwner(owner);
+
+        oldBooking = booking(now.minusDays(210), now.minusDays(200));
+        recentBooking = booking(now.minusDays(10), now.minusDays(5));
+
+        em.persist(owner);
+        em.persist(booker);
+        em.persist(item);
+        em.persist(oldBooking);
+        em.persist(recentBooking);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void testArchiveFinishedBefore() {
+        int archived = bookingArchiver.archiveFinishedBefore(now.minusDays(180));
+
+        assertThat(archived).isEqualTo(1);
+
+        List<Booking> bookings = em.createQuery("Select b from Booking b", Booking.class).getResultList();
+        assertThat(bookings).extracting(Booking::getId).containsExactly(recentBooking.getId());
+
+        ArchivedBooking archivedBooking = em.find(ArchivedBooking.class, oldBooking.getId());
+        assertThat(archivedBooking).isNotNull();
+        assertThat(archivedBooking.getStart()).isEqualTo(oldBooking.getStart());
+        assertThat(archivedBooking.getEnd()).isEqualTo(oldBooking.getEnd());
+        assertThat(archivedBooking.getItemId()).isEqualTo(item.getId());
+        assertThat(archivedBooking.getBookerId()).isEqualTo(booker.getId());
+        assertThat(archivedBooking.getStatus()).isEqualTo(BookingStatus.APPROVED);
+    }
+
+    @Test
+    void testAddCommentWithArchivedBooking() {
+        bookingArchiver.archiveFinishedBefore(now);
+
+        Comment comment = new Comment();
+        comment.setText("comment");
+
+        Comment addedComment = itemService.addComment(booker.getId(), item.getId(), comment);
+
+        assertThat(addedComment.getId()).isPositive();
+    }
+
+    @Test
+    void testGetArchivedBookingById() {
+        bookingArchiver.archiveFinishedBefore(now.minusDays(180));
+
+        Booking booking = bookingService.getBookingById(booker.getId(), oldBooking.getId());
+
+        assertThat(booking.getId()).isEqualTo(oldBooking.getId());
+        assertThat(booking.getEnd()).isEqualTo(oldBooking.getEnd());
+        assertThat(booking.getItem().getId()).isEqualTo(item.getId());
+        assertThat(booking.getBooker().getId()).isEqualTo(booker.getId());
+        assertThat(booking.getStatus()).isEqualTo(BookingStatus.APPROVED);
+    }
+
+    @Test
+    void testListingsContainArchivedBookings() {
+        Booking olderBooking = booking(now.minusDays(400), now.minusDays(390));
+        olderBooking.setStatus(BookingStatus.REJECTED);
+        em.persist(olderBooking);
+        em.flush();
+        bookingArchiver.archiveFinishedBefore(now.minusDays(180));
+
+        for (BookingState state : List.of(BookingState.ALL, BookingState.PAST)) {
+            assertThat(bookingService.getUserBookings(booker.getId(), state, PageRequest.of(0, 10)))
+                    .extracting(BookingView::getId)
+                    .containsExactly(recentBooking.getId(), oldBooking.getId(), olderBooking.getId());
+            assertThat(bookingService.getOwnedItemsBookings(item.getOwner().getId(), state, PageRequest.of(0, 10)))
+                    .extracting(BookingView::getId)
+                    .containsExactly(recentBooking.getId(), oldBooking.getId(), olderBooking.getId());
+        }
+        assertThat(bookingService.getUserBookings(booker.getId(), BookingState.ALL, PageRequest.of(1, 2)))
+                .extracting(BookingView::getId)
+                .containsExactly(olderBooking.getId());
+        assertThat(bookingService.getUserBookings(booker.getId(), BookingState.REJECTED, PageRequest.of(0, 10)))
+                .extracting(BookingView::getId)
+                .containsExactly(olderBooking.getId());
+        assertThat(bookingService.getUserBookings(booker.getId(), BookingState.FUTURE, PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    void testSeekListingContinuesIntoArchive() {
+        bookingArchiver.archiveFinishedBefore(now.minusDays(180));
+
+        Collection<BookingView> firstPage = bookingService.getUserBookings(booker.getId(), BookingState.ALL, null, 1);
+        assertThat(firstPage).extracting(BookingView::getId).containsExactly(recentBooking.getId());
+
+        SeekCursor after = new SeekCursor(recentBooking.getStart(), recentBooking.getId());
+        assertThat(bookingService.getUserBookings(booker.getId(), BookingState.ALL, after, 10))
+                .extracting(BookingView::getId)
+                .containsExactly(oldBooking.getId());
+    }
+
+    @Test
+    void testStreamContainsArchivedBookings() {
+        bookingArchiver.archiveFinishedBefore(now.minusDays(180));
+
+        List<Booking> streamed = new ArrayList<>();
+        bookingService.streamOwnedItemsBookings(item.getOwner().getId(), BookingState.PAST, PageRequest.of(0, 10), streamed::add);
+
+        assertThat(streamed).extracting(Booking::getId).containsExactly(recentBooking.getId(), oldBooking.getId());
+        assertThat(streamed.get(1).getItem().getName()).isEqualTo(item.getName());
+        assertThat(streamed.get(1).getBooker().getName()).isEqualTo(booker.getName());
+    }
+}
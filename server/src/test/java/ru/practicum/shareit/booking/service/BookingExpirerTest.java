@@ -0,0 +1,149 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingEdgesProjection;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = ShareItServer.class, properties = "shareit.booking.expiry.batch-size=2")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class BookingExpirerTest {
+    private final EntityManager em;
+
+    private final BookingExpirer bookingExpirer;
+
+    private final MeterRegistry meterRegistry;
+
+    private final BookingEdgesProjection bookingEdgesProjection;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private User booker;
+
+    private Item item;
+
+    private Booking booking(LocalDateTime start, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setStart(start);
+        booking.setEnd(start.plusDays(1));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(status);
+
+        return booking;
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        User owner = new User();
+        owner.setName("John Owner");
+        owner.setEmail("john.owner@mail.com");
+
+        booker = new User();
+        booker.setName("John Booker");
+        booker.setEmail("john.booker@mail.com");
+
+        item = new Item();
+        item.setName("item_name");
+        item.setDescription("item_description");
+        item.setAvailable(true);
+        item.setOwner(owner);
+
+        em.persist(owner);
+        em.persist(booker);
+        em.persist(item);
+    }
+
+    @Test
+    void testExpireStartedBefore() {
+        Booking firstStale = booking(now.minusDays(3), BookingStatus.WAITING);
+        Booking secondStale = booking(now.minusDays(2), BookingStatus.WAITING);
+        Booking thirdStale = booking(now.minusHours(2), BookingStatus.WAITING);
+        Booking future = booking(now.plusDays(1), BookingStatus.WAITING);
+        Booking approved = booking(now.minusDays(2), BookingStatus.APPROVED);
+        em.persist(firstStale);
+        em.persist(secondStale);
+        em.persist(thirdStale);
+        em.persist(future);
+        em.persist(approved);
+        em.flush();
+        em.clear();
+
+        double expiredBefore = meterRegistry.counter("shareit.bookings.expired").count();
+
+        int expired = bookingExpirer.expireStartedBefore(now.minusHours(1));
+
+        assertThat(expired).isEqualTo(3);
+        assertThat(meterRegistry.counter("shareit.bookings.expired").count() - expiredBefore).isEqualTo(3);
+
+        Booking expiredBooking = em.find(Booking.class, firstStale.getId());
+        assertThat(expiredBooking.getStatus()).isEqualTo(BookingStatus.CANCELED);
+        assertThat(expiredBooking.getVersion()).isEqualTo(firstStale.getVersion() + 1);
+        assertThat(em.find(Booking.class, secondStale.getId()).getStatus()).isEqualTo(BookingStatus.CANCELED);
+        assertThat(em.find(Booking.class, thirdStale.getId()).getStatus()).isEqualTo(BookingStatus.CANCELED);
+        assertThat(em.find(Booking.class, future.getId()).getStatus()).isEqualTo(BookingStatus.WAITING);
+        assertThat(em.find(Booking.class, approved.getId()).getStatus()).isEqualTo(BookingStatus.APPROVED);
+    }
+
+    @Test
+    void testExpireStartedBeforeEvictsItemEdges() {
+        Booking stale = booking(now.minusDays(3), BookingStatus.WAITING);
+        em.persist(stale);
+        em.flush();
+        em.clear();
+
+        assertThat(bookingEdgesProjection.getEdges(item.getId(), now).getLastBooking().getId()).isEqualTo(stale.getId());
+
+        bookingExpirer.expireStartedBefore(now.minusHours(1));
+
+        assertThat(bookingEdgesProjection.getEdges(item.getId(), now).getLastBooking()).isNull();
+    }
+
+    @Test
+    void testExpireWaitingBookingsRecordsExpiredPerRun() {
+        em.persist(booking(now.minusDays(3), BookingStatus.WAITING));
+        em.persist(booking(now.minusDays(2), BookingStatus.WAITING));
+        em.persist(booking(now.minusDays(1), BookingStatus.WAITING));
+        em.flush();
+        em.clear();
+
+        DistributionSummary expiredPerRun = meterRegistry.summary("shareit.bookings.expiry.run.expired");
+        long runsBefore = expiredPerRun.count();
+        double totalBefore = expiredPerRun.totalAmount();
+
+        bookingExpirer.expireWaitingBookings();
+        bookingExpirer.expireWaitingBookings();
+
+        assertThat(expiredPerRun.count()).isEqualTo(runsBefore + 2);
+        assertThat(expiredPerRun.totalAmount() - totalBefore).isEqualTo(3);
+        assertThat(expiredPerRun.max()).isEqualTo(3);
+    }
+
+    @Test
+    void testExpireWaitingBookingsRecordsDuration() {
+        long runsBefore = meterRegistry.timer("shareit.bookings.expiry.duration").count();
+
+        bookingExpirer.expireWaitingBookings();
+
+        assertThat(meterRegistry.timer("shareit.bookings.expiry.duration").count()).isEqualTo(runsBefore + 1);
+    }
+}
@@ -5,9 +5,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
@@ -17,6 +19,9 @@ import ru.practicum.shareit.user.model.User;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -77,4 +82,60 @@ public class BookingServiceIntegrationTest {
         assertThat(createdBooking.getBooker()).usingRecursiveComparison().isEqualTo(booker);
         assertThat(createdBooking.getStatus()).isEqualTo(BookingStatus.WAITING);
     }
+
+    @Test
+    void testCreateBookings() {
+        List<CreateBookingDto> createBookingDtos = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            createBookingDtos.add(CreateBookingDto.builder()
+                    .start(start.plusDays(i))
+                    .end(end.plusDays(i))
+                    .itemId(1L)
+                    .build());
+        }
+        createBookingDtos.add(CreateBookingDto.builder()
+                .start(start)
+                .end(end)
+                .itemId(100L)
+                .build());
+
+        List<BookingBatchResult> results = bookingService.createBookings(2L, createBookingDtos);
+
+        assertThat(results).hasSize(61);
+        assertThat(results.subList(0, 60)).allMatch(result -> result.getBooking() != null && result.getError() == null);
+        assertThat(results.get(60).getBooking()).isNull();
+        assertThat(results.get(60).getError()).isNotBlank();
+        assertThat(results.subList(0, 60).stream().map(result -> result.getBooking().getId()).distinct()).hasSize(60);
+
+        Long persistedCount = em.createQuery("Select count(b) from Booking b where b.item.id = :itemId", Long.class)
+                .setParameter("itemId", 1L)
+                .getSingleResult();
+        assertThat(persistedCount).isEqualTo(60L);
+    }
+
+    @Test
+    void testStreamBookings() {
+        List<CreateBookingDto> createBookingDtos = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            createBookingDtos.add(CreateBookingDto.builder()
+                    .start(start.plusDays(i))
+                    .end(end.plusDays(i))
+                    .itemId(1L)
+                    .build());
+        }
+        bookingService.createBookings(2L, createBookingDtos);
+        em.flush();
+        em.clear();
+
+        List<Booking> bookerBookings = new ArrayList<>();
+        bookingService.streamUserBookings(2L, BookingState.ALL, PageRequest.of(0, 2000), bookerBookings::add);
+        List<Booking> ownerBookings = new ArrayList<>();
+        bookingService.streamOwnedItemsBookings(1L, BookingState.WAITING, PageRequest.of(1, 100), ownerBookings::add);
+
+        assertThat(bookerBookings).hasSize(150);
+        assertThat(bookerBookings).extracting(Booking::getStart).isSortedAccordingTo(Comparator.reverseOrder());
+        assertThat(bookerBookings.get(149).getItem().getName()).isEqualTo(item.getName());
+        assertThat(ownerBookings).hasSize(50);
+        assertThat(ownerBookings.get(0).getStart()).isEqualTo(bookerBookings.get(100).getStart());
+    }
 }
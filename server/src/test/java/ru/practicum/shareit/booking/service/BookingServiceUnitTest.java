@@ -1,6 +1,5 @@
 package ru.practicum.shareit.booking.service;
 
-
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,26 +8,35 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
 import ru.practicum.shareit.booking.exception.*;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.storage.BookingEdgesProjection;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.BookingView;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.SeekCursor;
+import ru.practicum.shareit.streaming.EntityStreams;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class BookingServiceUnitTest {
@@ -38,9 +46,20 @@ public class BookingServiceUnitTest {
     @Mock
     private BookingRepository bookingStorage;
     @Mock
+    private ArchivedBookingRepository archivedBookingStorage;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private BookingEdgesProjection bookingEdgesProjection;
+    @Mock
+    private BookingItemLocks bookingItemLocks;
+    @Mock
     private ItemService itemService;
     @Mock
     private UserService userService;
+    @Mock
+    private EntityStreams entityStreams;
+
     @InjectMocks
     private BookingServiceImpl bookingService;
     private User owner;
@@ -115,6 +134,41 @@ public class BookingServiceUnitTest {
         assertThat(createdBooking).usingRecursiveComparison().isEqualTo(correctBooking);
     }
 
+    @Test
+    void testCreateBookingsReportsResultPerEntry() {
+        CreateBookingDto correctBookingDto = CreateBookingDto.builder()
+                .start(start)
+                .end(end)
+                .itemId(item.getId())
+                .build();
+        CreateBookingDto unknownItemBookingDto = CreateBookingDto.builder()
+                .start(start)
+                .end(end)
+                .itemId(99L)
+                .build();
+
+        when(userService.getUserById(anyLong())).thenReturn(booker);
+        when(itemService.getItemsByIds(anyCollection())).thenReturn(Map.of(item.getId(), item));
+        when(bookingStorage.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Booking> bookings = invocation.getArgument(0);
+            bookings.get(0).setId(1L);
+            return bookings;
+        });
+
+        List<BookingBatchResult> results = bookingService.createBookings(
+                booker.getId(), List.of(unknownItemBookingDto, correctBookingDto)
+        );
+
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).getIndex()).isEqualTo(0);
+        assertThat(results.get(0).getBooking()).isNull();
+        assertThat(results.get(0).getError()).isEqualTo("Вещь c ID=99 не найдена.");
+        assertThat(results.get(1).getIndex()).isEqualTo(1);
+        assertThat(results.get(1).getBooking().getId()).isEqualTo(1L);
+        assertThat(results.get(1).getBooking().getStatus()).isEqualTo(BookingStatus.WAITING);
+        verify(bookingEdgesProjection).evict(item.getId());
+    }
+
     @Test
     void testCreateBookingItemIsNotAvailable() {
         CreateBookingDto createBookingDto = CreateBookingDto.builder()
@@ -147,16 +201,59 @@ public class BookingServiceUnitTest {
                 .hasMessageContaining("Пользователь с ID=10 не может забронировать свою вещь с ID=10.");
     }
 
+    @Test
+    void testCreateBookingPeriodIsAlreadyTaken() {
+        CreateBookingDto createBookingDto = CreateBookingDto.builder()
+                .start(start)
+                .end(end)
+                .itemId(item.getId())
+                .build();
+
+        when(itemService.getItemById(anyLong())).thenReturn(item);
+        when(bookingIntervalIndex.hasOverlap(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class), anyLong()))
+                .thenReturn(true);
+
+        assertThatThrownBy(() -> bookingService.createBooking(booker.getId(), createBookingDto))
+                .isInstanceOf(BookingPeriodIsAlreadyTakenException.class)
+                .hasMessageContaining("Вещь с ID=10 уже забронирована");
+        verify(bookingStorage, never()).save(any(Booking.class));
+    }
+
     @Test
     void testApproveBooking() {
         when(userService.getUserById(anyLong())).thenReturn(owner);
         when(bookingStorage.findById(anyLong())).thenReturn(Optional.of(bookingToApprove));
-        when(bookingStorage.save(any(Booking.class))).thenReturn(approvedBooking);
+        when(bookingStorage.saveAndFlush(any(Booking.class))).thenReturn(approvedBooking);
 
         Booking resultBooking = bookingService.approveBooking(owner.getId(), bookingToApprove.getId(), true);
 
         assertThat(resultBooking).isNotNull();
         assertThat(resultBooking).usingRecursiveComparison().isEqualTo(approvedBooking);
+        verify(bookingItemLocks).lockUntilCompletion(item.getId());
+        verify(bookingIntervalIndex).add(approvedBooking);
+    }
+
+    @Test
+    void testCannotApproveConcurrentlyModifiedBooking() {
+        when(userService.getUserById(anyLong())).thenReturn(owner);
+        when(bookingStorage.findById(anyLong())).thenReturn(Optional.of(bookingToApprove));
+        when(bookingStorage.saveAndFlush(any(Booking.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, bookingToApprove.getId()));
+
+        assertThatThrownBy(() -> bookingService.approveBooking(owner.getId(), bookingToApprove.getId(), true))
+                .isInstanceOf(BookingWasModifiedException.class);
+        verify(bookingIntervalIndex, never()).add(any(Booking.class));
+    }
+
+    @Test
+    void testCannotApproveBookingIfPeriodIsAlreadyTaken() {
+        when(userService.getUserById(anyLong())).thenReturn(owner);
+        when(bookingStorage.findById(anyLong())).thenReturn(Optional.of(bookingToApprove));
+        when(bookingIntervalIndex.hasOverlap(item.getId(), start, end, bookingToApprove.getId())).thenReturn(true);
+
+        assertThatThrownBy(() -> bookingService.approveBooking(owner.getId(), bookingToApprove.getId(), true))
+                .isInstanceOf(BookingPeriodIsAlreadyTakenException.class);
+        verify(bookingStorage, never()).saveAndFlush(any(Booking.class));
     }
 
     @Test
@@ -166,7 +263,7 @@ public class BookingServiceUnitTest {
 
         when(userService.getUserById(anyLong())).thenReturn(owner);
         when(bookingStorage.findById(anyLong())).thenReturn(Optional.of(bookingToApprove));
-        when(bookingStorage.save(any(Booking.class))).thenReturn(rejectedBooking);
+        when(bookingStorage.saveAndFlush(any(Booking.class))).thenReturn(rejectedBooking);
 
         Booking resultBooking = bookingService.approveBooking(owner.getId(), bookingToApprove.getId(), false);
 
@@ -206,6 +303,35 @@ public class BookingServiceUnitTest {
         assertThat(booking).usingRecursiveComparison().isEqualTo(bookingToGet);
     }
 
+    @Test
+    void testGetArchivedBookingById() {
+        ArchivedBooking archivedBooking = new ArchivedBooking();
+        archivedBooking.setId(1L);
+        archivedBooking.setStart(start);
+        archivedBooking.setEnd(end);
+        archivedBooking.setItemId(item.getId());
+        archivedBooking.setBookerId(booker.getId());
+        archivedBooking.setStatus(BookingStatus.APPROVED);
+
+        when(bookingStorage.findById(anyLong())).thenReturn(Optional.empty());
+        when(archivedBookingStorage.findById(anyLong())).thenReturn(Optional.of(archivedBooking));
+        when(itemService.getItemById(anyLong())).thenReturn(item);
+        when(userService.getUserById(anyLong())).thenReturn(booker);
+
+        Booking booking = bookingService.getBookingById(owner.getId(), archivedBooking.getId());
+
+        assertThat(booking).usingRecursiveComparison().isEqualTo(approvedBooking);
+    }
+
+    @Test
+    void testGetBookingByIdNotFound() {
+        when(bookingStorage.findById(anyLong())).thenReturn(Optional.empty());
+        when(archivedBookingStorage.findById(anyLong())).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> bookingService.getBookingById(owner.getId(), 1L))
+                .isInstanceOf(BookingNotFoundException.class);
+    }
+
     @Test
     void testGetBookingByIdCannotGetIfUserIsNotAnOwner() {
         Booking bookingToGet = copyBooking(bookingToApprove);
@@ -219,106 +345,58 @@ public class BookingServiceUnitTest {
 
     @Test
     void testGetUserBookings() {
+        BookingView bookingView = toBookingView(bookingToApprove);
+
         when(userService.getUserById(anyLong())).thenReturn(booker);
+        for (BookingState state : BookingState.values()) {
+            when(bookingStorage.findBookerBookings(eq(booker.getId()), eq(state), any(LocalDateTime.class), any(Pageable.class)))
+                    .thenReturn(List.of(bookingView));
 
-        BookingState bookingState = BookingState.ALL;
-        when(bookingStorage.findBookingsByBookerOrderByStartDesc(any(User.class), any(Pageable.class))).thenReturn(List.of(bookingToApprove));
-        Collection<Booking> bookingsALL = bookingService.getUserBookings(booker.getId(), bookingState, PageRequest.of(0, 2000));
-        assertThat(bookingsALL).isNotEmpty();
-        assertThat(bookingsALL).contains(bookingToApprove);
-
-        bookingState = BookingState.FUTURE;
-        Booking futureBooking = copyBooking(bookingToApprove);
-        futureBooking.setStart(LocalDateTime.now().plusDays(10));
-        futureBooking.setEnd(LocalDateTime.now().plusDays(2));
-        when(bookingStorage.findBookingsByBookerAndStartAfterOrderByStartDesc(any(User.class), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(futureBooking));
-        Collection<Booking> bookingsFUTURE = bookingService.getUserBookings(booker.getId(), bookingState, PageRequest.of(0, 2000));
-        assertThat(bookingsFUTURE).isNotEmpty();
-        assertThat(bookingsFUTURE).contains(futureBooking);
-
-        bookingState = BookingState.PAST;
-        Booking pastBooking = copyBooking(bookingToApprove);
-        pastBooking.setStart(LocalDateTime.now().minusDays(10));
-        pastBooking.setEnd(LocalDateTime.now().minusDays(8));
-        when(bookingStorage.findBookingsByBookerAndEndBeforeOrderByStartDesc(any(User.class), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(pastBooking));
-        Collection<Booking> bookingsPAST = bookingService.getUserBookings(booker.getId(), bookingState, PageRequest.of(0, 2000));
-        assertThat(bookingsPAST).isNotEmpty();
-        assertThat(bookingsPAST).contains(pastBooking);
-
-        bookingState = BookingState.CURRENT;
-        Booking currentBooking = copyBooking(bookingToApprove);
-        currentBooking.setStart(LocalDateTime.now().minusDays(1));
-        currentBooking.setEnd(LocalDateTime.now().plusDays(2));
-        when(bookingStorage.findBookingsByBookerAndStartBeforeAndEndAfterOrderByStartDesc(any(User.class), any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(currentBooking));
-        Collection<Booking> bookingsCURRENT = bookingService.getUserBookings(booker.getId(), bookingState, PageRequest.of(0, 2000));
-        assertThat(bookingsCURRENT).isNotEmpty();
-        assertThat(bookingsCURRENT).contains(currentBooking);
-
-        bookingState = BookingState.REJECTED;
-        Booking rejectedBooking = copyBooking(bookingToApprove);
-        rejectedBooking.setStart(LocalDateTime.now().minusDays(1));
-        rejectedBooking.setEnd(LocalDateTime.now().plusDays(2));
-        rejectedBooking.setStatus(BookingStatus.REJECTED);
-        when(bookingStorage.findBookingsByBookerAndStatusOrderByStartDesc(any(User.class), any(BookingStatus.class), any(Pageable.class)))
-                .thenReturn(List.of(rejectedBooking));
-        Collection<Booking> bookingsREJECTED = bookingService.getUserBookings(booker.getId(), bookingState, PageRequest.of(0, 2000));
-        assertThat(bookingsREJECTED).isNotEmpty();
-        assertThat(bookingsREJECTED).contains(rejectedBooking);
+            Collection<BookingView> bookings = bookingService.getUserBookings(booker.getId(), state, PageRequest.of(0, 2000));
+
+            assertThat(bookings).containsExactly(bookingView);
+        }
+    }
+
+    @Test
+    void testGetUserBookingsAfterCursor() {
+        SeekCursor cursor = new SeekCursor(start, 5L);
+        BookingView bookingView = toBookingView(bookingToApprove);
+
+        when(userService.getUserById(anyLong())).thenReturn(booker);
+        when(bookingStorage.findBookerBookingsAfter(eq(booker.getId()), eq(BookingState.WAITING), any(LocalDateTime.class), eq(cursor), eq(10)))
+                .thenReturn(List.of(bookingView));
+
+        Collection<BookingView> bookings = bookingService.getUserBookings(booker.getId(), BookingState.WAITING, cursor, 10);
+
+        assertThat(bookings).containsExactly(bookingView);
     }
 
     @Test
     void testGetOwnedItemsBookings() {
-        when(itemService.getUserItems(anyLong())).thenReturn(List.of(item));
-
-        BookingState bookingState = BookingState.ALL;
-        when(bookingStorage.findBookingsByItemInOrderByStartDesc(anyCollection(), any(Pageable.class))).thenReturn(List.of(bookingToApprove));
-        Collection<Booking> bookingsALL = bookingService.getOwnedItemsBookings(owner.getId(), bookingState, PageRequest.of(0, 2000));
-        assertThat(bookingsALL).isNotEmpty();
-        assertThat(bookingsALL).contains(bookingToApprove);
-
-        bookingState = BookingState.FUTURE;
-        Booking futureBooking = copyBooking(bookingToApprove);
-        futureBooking.setStart(LocalDateTime.now().plusDays(10));
-        futureBooking.setEnd(LocalDateTime.now().plusDays(2));
-        when(bookingStorage.findBookingsByItemInAndStartAfterOrderByStartDesc(anyCollection(), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(futureBooking));
-        Collection<Booking> bookingsFUTURE = bookingService.getOwnedItemsBookings(owner.getId(), bookingState, PageRequest.of(0, 2000));
-        assertThat(bookingsFUTURE).isNotEmpty();
-        assertThat(bookingsFUTURE).contains(futureBooking);
-
-        bookingState = BookingState.PAST;
-        Booking pastBooking = copyBooking(bookingToApprove);
-        pastBooking.setStart(LocalDateTime.now().minusDays(10));
-        pastBooking.setEnd(LocalDateTime.now().minusDays(8));
-        when(bookingStorage.findBookingsByItemInAndEndBeforeOrderByStartDesc(anyCollection(), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(pastBooking));
-        Collection<Booking> bookingsPAST = bookingService.getOwnedItemsBookings(owner.getId(), bookingState, PageRequest.of(0, 2000));
-        assertThat(bookingsPAST).isNotEmpty();
-        assertThat(bookingsPAST).contains(pastBooking);
-
-        bookingState = BookingState.CURRENT;
-        Booking currentBooking = copyBooking(bookingToApprove);
-        currentBooking.setStart(LocalDateTime.now().minusDays(1));
-        currentBooking.setEnd(LocalDateTime.now().plusDays(2));
-        when(bookingStorage.findBookingsByItemInAndStartBeforeAndEndAfterOrderByStartDesc(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(currentBooking));
-        Collection<Booking> bookingsCURRENT = bookingService.getOwnedItemsBookings(owner.getId(), bookingState, PageRequest.of(0, 2000));
-        assertThat(bookingsCURRENT).isNotEmpty();
-        assertThat(bookingsCURRENT).contains(currentBooking);
-
-        bookingState = BookingState.REJECTED;
-        Booking rejectedBooking = copyBooking(bookingToApprove);
-        rejectedBooking.setStart(LocalDateTime.now().minusDays(1));
-        rejectedBooking.setEnd(LocalDateTime.now().plusDays(2));
-        rejectedBooking.setStatus(BookingStatus.REJECTED);
-        when(bookingStorage.findBookingsByItemInAndStatusOrderByStartDesc(anyCollection(), any(BookingStatus.class), any(Pageable.class)))
-                .thenReturn(List.of(rejectedBooking));
-        Collection<Booking> bookingsREJECTED = bookingService.getOwnedItemsBookings(owner.getId(), bookingState, PageRequest.of(0, 2000));
-        assertThat(bookingsREJECTED).isNotEmpty();
-        assertThat(bookingsREJECTED).contains(rejectedBooking);
+        BookingView bookingView = toBookingView(bookingToApprove);
+
+        when(userService.getUserById(anyLong())).thenReturn(owner);
+        for (BookingState state : BookingState.values()) {
+            when(bookingStorage.findOwnerBookings(eq(owner.getId()), eq(state), any(LocalDateTime.class), any(Pageable.class)))
+                    .thenReturn(List.of(bookingView));
+
+            Collection<BookingView> bookings = bookingService.getOwnedItemsBookings(owner.getId(), state, PageRequest.of(0, 2000));
+
+            assertThat(bookings).containsExactly(bookingView);
+        }
     }
 
+    private static BookingView toBookingView(Booking booking) {
+        return new BookingView(
+                booking.getId(),
+                booking.getStart(),
+                booking.getEnd(),
+                booking.getItem().getId(),
+                booking.getItem().getName(),
+                booking.getBooker().getId(),
+                booking.getBooker().getName(),
+                booking.getStatus()
+        );
+    }
 }
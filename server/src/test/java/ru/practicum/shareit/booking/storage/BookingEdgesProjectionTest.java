@@ -0,0 +1,78 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingEdgesProjectionTest {
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+
+    @Mock
+    private BookingRepository bookingStorage;
+
+    @InjectMocks
+    private BookingEdgesProjection bookingEdgesProjection;
+
+    @Test
+    void testGetEdgesLoadsMissingItemsOnce() {
+        when(bookingStorage.findLastBookingIntervals(anyCollection(), anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of(new ItemBookingInterval(1L, 10L, now.minusDays(2), now.minusDays(1), 100L)));
+        when(bookingStorage.findNextBookingIntervals(anyCollection(), anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of(new ItemBookingInterval(1L, 11L, now.plusDays(1), now.plusDays(2), 100L)));
+
+        Map<Long, BookingEdges> edges = bookingEdgesProjection.getEdges(List.of(1L, 2L), now);
+
+        assertThat(edges.get(1L).getLastBooking().getId()).isEqualTo(10L);
+        assertThat(edges.get(1L).getNextBooking().getId()).isEqualTo(11L);
+        assertThat(edges.get(1L).getValidUntil()).isEqualTo(now.plusDays(1));
+        assertThat(edges.get(2L).isEmpty()).isTrue();
+
+        bookingEdgesProjection.getEdges(List.of(1L, 2L), now.plusHours(1));
+
+        verify(bookingStorage, times(1))
+                .findLastBookingIntervals(anyCollection(), eq(List.of(BookingStatus.REJECTED, BookingStatus.CANCELED)), any(LocalDateTime.class));
+        verify(bookingStorage, times(1))
+                .findNextBookingIntervals(anyCollection(), eq(List.of(BookingStatus.REJECTED, BookingStatus.CANCELED)), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testGetEdgesReloadsAfterNextBookingStarts() {
+        when(bookingStorage.findLastBookingIntervals(anyCollection(), anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+        when(bookingStorage.findNextBookingIntervals(anyCollection(), anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of(new ItemBookingInterval(1L, 11L, now.plusDays(1), now.plusDays(2), 100L)));
+
+        bookingEdgesProjection.getEdges(1L, now);
+        bookingEdgesProjection.getEdges(1L, now.plusDays(1).plusHours(1));
+
+        verify(bookingStorage, times(2))
+                .findNextBookingIntervals(anyCollection(), eq(List.of(BookingStatus.REJECTED, BookingStatus.CANCELED)), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testEvictReloadsFromStorage() {
+        when(bookingStorage.findLastBookingIntervals(anyCollection(), anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+        when(bookingStorage.findNextBookingIntervals(anyCollection(), anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+
+        bookingEdgesProjection.getEdges(1L, now);
+        bookingEdgesProjection.evict(1L);
+        bookingEdgesProjection.getEdges(1L, now);
+
+        verify(bookingStorage, times(2))
+                .findLastBookingIntervals(anyCollection(), eq(List.of(BookingStatus.REJECTED, BookingStatus.CANCELED)), any(LocalDateTime.class));
+    }
+}
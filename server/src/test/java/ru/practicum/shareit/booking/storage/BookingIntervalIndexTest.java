@@ -0,0 +1,136 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingIntervalIndexTest {
+    private final LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+
+    @Mock
+    private BookingRepository bookingStorage;
+
+    @InjectMocks
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    private Item item;
+
+    private static Booking booking(long id, Item item, LocalDateTime start, LocalDateTime end) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setItem(item);
+        booking.setStatus(BookingStatus.APPROVED);
+
+        return booking;
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        item = new Item();
+        item.setId(10L);
+    }
+
+    @Test
+    void testHasOverlapLoadsApprovedBookingsOnce() {
+        when(bookingStorage.findBookingsByItemIdAndStatusAndEndAfter(anyLong(), any(BookingStatus.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(booking(1L, item, base, base.plusDays(2))));
+
+        assertThat(bookingIntervalIndex.hasOverlap(item.getId(), base.plusDays(1), base.plusDays(3), 0)).isTrue();
+        assertThat(bookingIntervalIndex.hasOverlap(item.getId(), base.minusDays(1), base.plusHours(1), 0)).isTrue();
+        assertThat(bookingIntervalIndex.isFree(item.getId(), base.plusDays(2), base.plusDays(3))).isTrue();
+        assertThat(bookingIntervalIndex.isFree(item.getId(), base.minusDays(1), base)).isTrue();
+
+        verify(bookingStorage, times(1))
+                .findBookingsByItemIdAndStatusAndEndAfter(eq(item.getId()), eq(BookingStatus.APPROVED), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testHasOverlapIgnoresExcludedBooking() {
+        when(bookingStorage.findBookingsByItemIdAndStatusAndEndAfter(anyLong(), any(BookingStatus.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(
+                        booking(1L, item, base, base.plusDays(1)),
+                        booking(2L, item, base.plusDays(2), base.plusDays(3))
+                ));
+
+        assertThat(bookingIntervalIndex.hasOverlap(item.getId(), base.plusDays(2), base.plusDays(3), 2L)).isFalse();
+        assertThat(bookingIntervalIndex.hasOverlap(item.getId(), base.plusHours(12), base.plusDays(3), 2L)).isTrue();
+    }
+
+    @Test
+    void testAddAndRemove() {
+        when(bookingStorage.findBookingsByItemIdAndStatusAndEndAfter(anyLong(), any(BookingStatus.class), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+
+        Booking booking = booking(5L, item, base, base.plusDays(1));
+
+        assertThat(bookingIntervalIndex.isFree(item.getId(), base, base.plusDays(1))).isTrue();
+
+        bookingIntervalIndex.add(booking);
+        assertThat(bookingIntervalIndex.isFree(item.getId(), base.plusHours(1), base.plusHours(2))).isFalse();
+
+        bookingIntervalIndex.remove(booking);
+        assertThat(bookingIntervalIndex.isFree(item.getId(), base.plusHours(1), base.plusHours(2))).isTrue();
+    }
+
+    @Test
+    void testHasOverlapWithOverlappingLoadedBookings() {
+        // Длинная бронь перекрывает короткую, начавшуюся позже: ближайший по началу интервал не показателен
+        when(bookingStorage.findBookingsByItemIdAndStatusAndEndAfter(anyLong(), any(BookingStatus.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(
+                        booking(1L, item, base, base.plusDays(10)),
+                        booking(2L, item, base.plusDays(1), base.plusDays(2))
+                ));
+
+        assertThat(bookingIntervalIndex.hasOverlap(item.getId(), base.plusDays(3), base.plusDays(4), 0)).isTrue();
+        assertThat(bookingIntervalIndex.hasOverlap(item.getId(), base.plusDays(3), base.plusDays(4), 1L)).isFalse();
+        assertThat(bookingIntervalIndex.isFree(item.getId(), base.plusDays(10), base.plusDays(11))).isTrue();
+    }
+
+    @Test
+    void testAddAppliedAfterCommit() {
+        when(bookingStorage.findBookingsByItemIdAndStatusAndEndAfter(anyLong(), any(BookingStatus.class), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bookingIntervalIndex.add(booking(5L, item, base, base.plusDays(1)));
+            assertThat(bookingIntervalIndex.isFree(item.getId(), base.plusHours(1), base.plusHours(2))).isTrue();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(bookingIntervalIndex.isFree(item.getId(), base.plusHours(1), base.plusHours(2))).isFalse();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testEvictReloadsFromStorage() {
+        when(bookingStorage.findBookingsByItemIdAndStatusAndEndAfter(anyLong(), any(BookingStatus.class), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+
+        bookingIntervalIndex.isFree(item.getId(), base, base.plusDays(1));
+        bookingIntervalIndex.evict(item.getId());
+        bookingIntervalIndex.isFree(item.getId(), base, base.plusDays(1));
+
+        verify(bookingStorage, times(2))
+                .findBookingsByItemIdAndStatusAndEndAfter(eq(item.getId()), eq(BookingStatus.APPROVED), any(LocalDateTime.class));
+    }
+}
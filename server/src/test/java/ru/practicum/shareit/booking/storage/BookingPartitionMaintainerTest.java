@@ -0,0 +1,51 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingPartitionMaintainerTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private BookingPartitionMaintainer maintainer;
+
+    @BeforeEach
+    void setUp() {
+        maintainer = new BookingPartitionMaintainer(jdbcTemplate, transactionTemplate, 3, Duration.ofDays(180));
+    }
+
+    @Test
+    void testSkipNotPartitionedTable() {
+        when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Boolean.class))).thenReturn(false);
+
+        maintainer.onStartup();
+
+        verifyNoInteractions(transactionTemplate);
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class));
+    }
+
+    @Test
+    void testMaintainPartitionedTable() {
+        when(jdbcTemplate.queryForObject(contains("pg_partitioned_table"), eq(Boolean.class))).thenReturn(true);
+
+        maintainer.maintainPartitions();
+
+        verify(transactionTemplate, times(4)).executeWithoutResult(any());
+        verify(jdbcTemplate).queryForList(contains("pg_inherits"), eq(String.class));
+    }
+}
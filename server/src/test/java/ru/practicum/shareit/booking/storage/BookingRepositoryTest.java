@@ -5,22 +5,27 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
+import ru.practicum.shareit.QueryCountInspector;
 import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.SeekCursor;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=ru.practicum.shareit.QueryCountInspector")
 @ContextConfiguration(classes = ShareItServer.class)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 public class BookingRepositoryTest {
@@ -93,4 +98,98 @@ public class BookingRepositoryTest {
 
         assertThatThrownBy(() -> bookingRepository.save(booking)).isInstanceOf(DataIntegrityViolationException.class);
     }
+
+    @Test
+    void testFindBookerBookingsAfterCursor() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        for (int i = 0; i < 5; i++) {
+            Booking booking = new Booking();
+            // Две брони с одинаковым началом - порядок между ними задает id
+            booking.setStart(start.plusDays(i / 2));
+            booking.setEnd(start.plusDays(10));
+            booking.setItem(item);
+            booking.setBooker(booker);
+            booking.setStatus(BookingStatus.WAITING);
+            em.persist(booking);
+        }
+        em.flush();
+
+        List<BookingView> firstPage = bookingRepository.findBookerBookingsAfter(
+                booker.getId(), BookingState.ALL, LocalDateTime.now(), null, 2
+        );
+        assertThat(firstPage).extracting(BookingView::getId).containsExactly(5L, 4L);
+
+        BookingView last = firstPage.get(1);
+        List<BookingView> secondPage = bookingRepository.findBookerBookingsAfter(
+                booker.getId(), BookingState.ALL, LocalDateTime.now(), new SeekCursor(last.getStart(), last.getId()), 2
+        );
+        assertThat(secondPage).extracting(BookingView::getId).containsExactly(3L, 2L);
+
+        List<BookingView> futurePage = bookingRepository.findBookerBookingsAfter(
+                booker.getId(), BookingState.FUTURE, LocalDateTime.now(), new SeekCursor(last.getStart(), last.getId()), 10
+        );
+        assertThat(futurePage).extracting(BookingView::getId).containsExactly(3L, 2L, 1L);
+
+        List<BookingView> pastPage = bookingRepository.findBookerBookingsAfter(
+                booker.getId(), BookingState.PAST, LocalDateTime.now(), null, 10
+        );
+        assertThat(pastPage).isEmpty();
+    }
+
+    @Test
+    void testFindBookerBookingsAfterBoundsStartRange() {
+        QueryCountInspector.reset();
+
+        bookingRepository.findBookerBookingsAfter(
+                booker.getId(), BookingState.WAITING, LocalDateTime.now(), new SeekCursor(LocalDateTime.now(), 10L), 10
+        );
+
+        // Граница диапазона по индексу (booker, start_ts DESC, id DESC) задается отдельным условием вне OR
+        // и в запросе к живым броням, и в запросе к архиву
+        assertThat(QueryCountInspector.statements())
+                .hasSize(2)
+                .allSatisfy(sql -> assertThat(sql).containsPattern("start_ts<=\\? and \\(\\w+\\.start_ts<\\? or"));
+    }
+
+    @Test
+    void testFindOwnerBookings() {
+        Item otherItem = new Item();
+        otherItem.setName("Дрель");
+        otherItem.setDescription("Чужая дрель");
+        otherItem.setAvailable(true);
+        otherItem.setOwner(booker);
+        em.persist(otherItem);
+
+        Booking ownedItemBooking = new Booking();
+        ownedItemBooking.setStart(LocalDateTime.now().plusDays(1).withNano(0));
+        ownedItemBooking.setEnd(LocalDateTime.now().plusDays(2).withNano(0));
+        ownedItemBooking.setItem(item);
+        ownedItemBooking.setBooker(booker);
+        ownedItemBooking.setStatus(BookingStatus.WAITING);
+        em.persist(ownedItemBooking);
+
+        Booking otherItemBooking = new Booking();
+        otherItemBooking.setStart(LocalDateTime.now().plusDays(3));
+        otherItemBooking.setEnd(LocalDateTime.now().plusDays(4));
+        otherItemBooking.setItem(otherItem);
+        otherItemBooking.setBooker(owner);
+        otherItemBooking.setStatus(BookingStatus.WAITING);
+        em.persist(otherItemBooking);
+        em.flush();
+
+        List<BookingView> ownerBookings = bookingRepository.findOwnerBookings(
+                owner.getId(), BookingState.ALL, LocalDateTime.now(), PageRequest.of(0, 10)
+        );
+
+        assertThat(ownerBookings).containsExactly(new BookingView(
+                ownedItemBooking.getId(),
+                ownedItemBooking.getStart(),
+                ownedItemBooking.getEnd(),
+                item.getId(),
+                item.getName(),
+                booker.getId(),
+                booker.getName(),
+                BookingStatus.WAITING
+        ));
+    }
 }
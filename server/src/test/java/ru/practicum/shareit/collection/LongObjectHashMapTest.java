@@ -0,0 +1,51 @@
+package ru.practicum.shareit.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongObjectHashMapTest {
+
+    @Test
+    void testPutAndGet() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        assertThat(map.put(1L, "one")).isNull();
+        assertThat(map.put(-7L, "minus seven")).isNull();
+        assertThat(map.put(1L, "uno")).isEqualTo("one");
+
+        assertThat(map.size()).isEqualTo(2);
+        assertThat(map.get(1L)).isEqualTo("uno");
+        assertThat(map.get(-7L)).isEqualTo("minus seven");
+        assertThat(map.get(0L)).isNull();
+        assertThat(map.containsKey(0L)).isFalse();
+    }
+
+    @Test
+    void testComputeIfAbsent() {
+        LongObjectHashMap<List<Integer>> map = new LongObjectHashMap<>(0);
+
+        map.computeIfAbsent(42L, key -> new ArrayList<>()).add(1);
+        map.computeIfAbsent(42L, key -> new ArrayList<>()).add(2);
+
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.get(42L)).containsExactly(1, 2);
+    }
+
+    @Test
+    void testRehashKeepsAllEntries() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        for (long key = 0; key < 10_000; key++) {
+            map.put(key * 1024, key);
+        }
+
+        assertThat(map.size()).isEqualTo(10_000);
+        for (long key = 0; key < 10_000; key++) {
+            assertThat(map.get(key * 1024)).isEqualTo(key);
+        }
+        assertThat(map.containsKey(10_000L * 1024)).isFalse();
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.shareit.item.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = ShareItServer.class)
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ItemControllerTest {
+    private final EntityManager em;
+
+    private final MockMvc mvc;
+
+    private User owner;
+
+    private Item item;
+
+    @BeforeEach
+    void beforeEach() {
+        owner = new User();
+        owner.setName("John");
+        owner.setEmail("john.doe@mail.com");
+
+        item = new Item();
+        item.setName("Drill");
+        item.setDescription("description");
+        item.setAvailable(true);
+        item.setOwner(owner);
+
+        em.persist(owner);
+        em.persist(item);
+        em.flush();
+    }
+
+    @Test
+    void testGetItemComments() throws Exception {
+        mvc.perform(get("/items/{itemId}/comments", item.getId())
+                        .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(0)));
+    }
+
+    @Test
+    void testGetItemCommentsInvalidSize() throws Exception {
+        for (int size : new int[]{0, -1}) {
+            mvc.perform(get("/items/{itemId}/comments", item.getId())
+                            .param("size", String.valueOf(size))
+                            .header("X-Sharer-User-Id", owner.getId()))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message", is("Параметры пагинации некорректны.")));
+        }
+    }
+}
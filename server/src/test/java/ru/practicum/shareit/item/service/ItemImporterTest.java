@@ -0,0 +1,173 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.item.dto.ItemImportEventDto;
+import ru.practicum.shareit.item.exception.ItemImportHeaderIsNotValidException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.exception.UserNotFoundException;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(
+        classes = ShareItServer.class,
+        properties = {"shareit.item.import.chunk-size=2", "shareit.item.import.max-reported-errors=2"}
+)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ItemImporterTest {
+    private final EntityManager em;
+
+    private final ItemImporter itemImporter;
+
+    private User owner;
+
+    private ItemRequest request;
+
+    private final List<ItemImportEventDto> events = new ArrayList<>();
+
+    @BeforeEach
+    void beforeEach() {
+        owner = new User();
+        owner.setName("John Owner");
+        owner.setEmail("john.owner@mail.com");
+
+        request = new ItemRequest();
+        request.setDescription("request_description");
+        request.setRequestor(owner);
+        request.setCreated(LocalDateTime.now());
+
+        em.persist(owner);
+        em.persist(request);
+        em.flush();
+    }
+
+    private ItemImportEventDto importItems(String body, ItemImportFormat format) throws IOException {
+        return itemImporter.importItems(owner.getId(), new BufferedReader(new StringReader(body)), format, events::add);
+    }
+
+    private List<Item> importedItems() {
+        return em.createQuery("SELECT i FROM Item i WHERE i.owner.id = :ownerId ORDER BY i.id", Item.class)
+                .setParameter("ownerId", owner.getId())
+                .getResultList();
+    }
+
+    @Test
+    void testImportNdjson() throws IOException {
+        String body = "{\"name\":\"drill\",\"description\":\"power drill\",\"available\":true}\n" +
+                "\n" +
+                "{\"name\":\"saw\",\"description\":\"hand saw\",\"available\":false,\"requestId\":" + request.getId() + "}\n" +
+                "{\"name\":\"\",\"description\":\"no name\",\"available\":true}\n" +
+                "not json\n" +
+                "{\"name\":\"hammer\",\"description\":\"claw hammer\",\"available\":true,\"requestId\":9999}\n" +
+                "{\"name\":\"ladder\",\"description\":\"step ladder\",\"available\":true}\n";
+
+        ItemImportEventDto result = importItems(body, ItemImportFormat.NDJSON);
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getFinished()).isTrue();
+
+        assertThat(importedItems())
+                .extracting(Item::getName, Item::getAvailable, item -> item.getRequest() != null ? item.getRequest().getId() : null)
+                .containsExactly(
+                        tuple("drill", true, null),
+                        tuple("saw", false, request.getId()),
+                        tuple("ladder", true, null)
+                );
+
+        // Сообщается только о первых двух ошибках, остальные учитываются в счетчике
+        assertThat(events)
+                .filteredOn(event -> event.getError() != null)
+                .extracting(ItemImportEventDto::getLine)
+                .containsExactly(4L, 5L);
+        assertThat(events)
+                .filteredOn(event -> event.getError() == null)
+                .extracting(ItemImportEventDto::getImported, ItemImportEventDto::getFailed, ItemImportEventDto::getFinished)
+                .containsExactly(
+                        tuple(2L, 0L, null),
+                        tuple(3L, 3L, null),
+                        tuple(3L, 3L, true)
+                );
+    }
+
+    @Test
+    void testImportNdjsonNonObjectRows() throws IOException {
+        String body = "null\n" +
+                "[]\n" +
+                "42\n" +
+                "\"drill\"\n" +
+                "{\"name\":\"ladder\",\"description\":\"step ladder\",\"available\":true}\n";
+
+        ItemImportEventDto result = importItems(body, ItemImportFormat.NDJSON);
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(4);
+        assertThat(result.getFinished()).isTrue();
+        assertThat(importedItems()).extracting(Item::getName).containsExactly("ladder");
+        assertThat(events)
+                .filteredOn(event -> event.getError() != null)
+                .extracting(ItemImportEventDto::getLine, ItemImportEventDto::getError)
+                .containsExactly(
+                        tuple(1L, "Строка не является JSON-описанием вещи."),
+                        tuple(2L, "Строка не является JSON-описанием вещи.")
+                );
+    }
+
+    @Test
+    void testImportCsv() throws IOException {
+        String body = "available,name,description,requestId\n" +
+                "true,drill,\"power drill, cordless\"," + request.getId() + "\n" +
+                "false,\"saw \"\"pro\"\"\",hand saw,\n" +
+                "maybe,hammer,claw hammer,\n" +
+                "true,ladder\n";
+
+        ItemImportEventDto result = importItems(body, ItemImportFormat.CSV);
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(importedItems())
+                .extracting(Item::getName, Item::getDescription, Item::getAvailable)
+                .containsExactly(
+                        tuple("drill", "power drill, cordless", true),
+                        tuple("saw \"pro\"", "hand saw", false)
+                );
+        assertThat(events)
+                .filteredOn(event -> event.getError() != null)
+                .extracting(ItemImportEventDto::getLine)
+                .containsExactly(4L, 5L);
+    }
+
+    @Test
+    void testImportCsvInvalidHeader() {
+        assertThatThrownBy(() -> importItems("title,description\n", ItemImportFormat.CSV))
+                .isInstanceOf(ItemImportHeaderIsNotValidException.class);
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void testImportUnknownUser() {
+        assertThatThrownBy(() -> itemImporter.importItems(
+                owner.getId() + 100, new BufferedReader(new StringReader("")), ItemImportFormat.NDJSON, events::add
+        )).isInstanceOf(UserNotFoundException.class);
+    }
+}
@@ -8,23 +8,35 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.QueryCountInspector;
 import ru.practicum.shareit.ShareItServer;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.AvailabilityWindowDto;
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSummaryDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.SeekCursor;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
-@SpringBootTest(classes = ShareItServer.class)
+@SpringBootTest(
+        classes = ShareItServer.class,
+        properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=ru.practicum.shareit.QueryCountInspector"
+)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @Transactional
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
@@ -66,15 +78,15 @@ public class ItemServiceIntegrationTest {
         itemWithoutBookingsAndComments.setOwner(booker);
 
         lastBooking = new Booking();
-        lastBooking.setStart(LocalDateTime.now().minusDays(7));
-        lastBooking.setEnd(LocalDateTime.now().minusDays(2));
+        lastBooking.setStart(LocalDateTime.now().minusDays(7).truncatedTo(ChronoUnit.SECONDS));
+        lastBooking.setEnd(LocalDateTime.now().minusDays(2).truncatedTo(ChronoUnit.SECONDS));
         lastBooking.setItem(item);
         lastBooking.setBooker(booker);
         lastBooking.setStatus(BookingStatus.WAITING);
 
         nextBooking = new Booking();
-        nextBooking.setStart(LocalDateTime.now().plusDays(4));
-        nextBooking.setEnd(LocalDateTime.now().plusDays(5));
+        nextBooking.setStart(LocalDateTime.now().plusDays(4).truncatedTo(ChronoUnit.SECONDS));
+        nextBooking.setEnd(LocalDateTime.now().plusDays(5).truncatedTo(ChronoUnit.SECONDS));
         nextBooking.setItem(item);
         nextBooking.setBooker(booker);
         nextBooking.setStatus(BookingStatus.WAITING);
@@ -95,6 +107,123 @@ public class ItemServiceIntegrationTest {
         em.flush();
     }
 
+    @Test
+    void testGetItemByIdWithBookingIntervalsAsOwnerInSingleQuery() {
+        em.clear();
+        QueryCountInspector.reset();
+
+        ItemDto itemDto = itemService.getItemByIdWithBookingIntervals(item.getOwner().getId(), item.getId());
+
+        assertThat(QueryCountInspector.count()).isEqualTo(1);
+        assertThat(itemDto.getId()).isEqualTo(item.getId());
+        assertThat(itemDto.getName()).isEqualTo(item.getName());
+        assertThat(itemDto.getAvailable()).isEqualTo(item.getAvailable());
+        assertThat(itemDto.getRequestId()).isNull();
+        assertThat(itemDto.getLastBooking()).isEqualTo(BookingMapper.toBookingTimeIntervalDto(lastBooking));
+        assertThat(itemDto.getNextBooking()).isEqualTo(BookingMapper.toBookingTimeIntervalDto(nextBooking));
+        assertThat(itemDto.getComments()).containsExactly(CommentMapper.toCommentDto(comment));
+        assertThat(itemDto.getCommentsCursor()).isNull();
+    }
+
+    @Test
+    void testGetItemByIdWithBookingIntervalsSkipsCanceledAndRejected() {
+        lastBooking.setStatus(BookingStatus.CANCELED);
+        nextBooking.setStatus(BookingStatus.REJECTED);
+        em.flush();
+        em.clear();
+
+        ItemDto itemDto = itemService.getItemByIdWithBookingIntervals(item.getOwner().getId(), item.getId());
+
+        assertThat(itemDto.getLastBooking()).isNull();
+        assertThat(itemDto.getNextBooking()).isNull();
+    }
+
+    @Test
+    void testGetItemByIdWithBookingIntervalsAsOtherUserInSingleQuery() {
+        em.clear();
+        QueryCountInspector.reset();
+
+        ItemDto itemDto = itemService.getItemByIdWithBookingIntervals(comment.getAuthor().getId(), item.getId());
+
+        assertThat(QueryCountInspector.count()).isEqualTo(1);
+        assertThat(itemDto.getLastBooking()).isNull();
+        assertThat(itemDto.getNextBooking()).isNull();
+        assertThat(itemDto.getComments()).containsExactly(CommentMapper.toCommentDto(comment));
+
+        ItemDto itemWithoutCommentsDto = itemService.getItemByIdWithBookingIntervals(
+                comment.getAuthor().getId(), itemWithoutBookingsAndComments.getId()
+        );
+        assertThat(itemWithoutCommentsDto.getComments()).isEmpty();
+    }
+
+    @Test
+    void testGetItemCommentsContinuesEmbeddedComments() {
+        List<CommentDto> expectedComments = new ArrayList<>();
+        expectedComments.add(CommentMapper.toCommentDto(comment));
+        for (int i = 1; i <= ItemServiceImpl.EMBEDDED_COMMENTS_LIMIT + 2; i++) {
+            Comment newComment = new Comment();
+            newComment.setText("comment_" + i);
+            newComment.setAuthor(comment.getAuthor());
+            newComment.setItem(item);
+            // Два комментария с одинаковым временем проверяют порядок по id
+            newComment.setCreated(comment.getCreated().plusHours(i / 2));
+            em.persist(newComment);
+            expectedComments.add(CommentMapper.toCommentDto(newComment));
+        }
+        em.flush();
+        expectedComments.sort(Comparator.comparing(CommentDto::getCreated).thenComparing(CommentDto::getId).reversed());
+
+        ItemDto itemDto = itemService.getItemByIdWithBookingIntervals(comment.getAuthor().getId(), item.getId());
+
+        assertThat(itemDto.getComments())
+                .containsExactlyElementsOf(expectedComments.subList(0, ItemServiceImpl.EMBEDDED_COMMENTS_LIMIT));
+        assertThat(itemDto.getCommentsCursor()).isNotNull();
+
+        List<CommentDto> rest = itemService.getItemComments(
+                comment.getAuthor().getId(), item.getId(), SeekCursor.decode(itemDto.getCommentsCursor()), 20
+        );
+        assertThat(rest).containsExactlyElementsOf(
+                expectedComments.subList(ItemServiceImpl.EMBEDDED_COMMENTS_LIMIT, expectedComments.size())
+        );
+
+        List<CommentDto> firstPage = itemService.getItemComments(comment.getAuthor().getId(), item.getId(), null, 5);
+        assertThat(firstPage).containsExactlyElementsOf(expectedComments.subList(0, 5));
+    }
+
+    @Test
+    void testAddCommentUpdatesItemSummary() {
+        User booker = comment.getAuthor();
+        Booking finishedBooking = new Booking();
+        finishedBooking.setStart(LocalDateTime.now().minusDays(10));
+        finishedBooking.setEnd(LocalDateTime.now().minusDays(9));
+        finishedBooking.setItem(item);
+        finishedBooking.setBooker(booker);
+        finishedBooking.setStatus(BookingStatus.APPROVED);
+        em.persist(finishedBooking);
+
+        Comment first = new Comment();
+        first.setText("first");
+        itemService.addComment(booker.getId(), item.getId(), first);
+        Comment second = new Comment();
+        second.setText("second");
+        Comment addedComment = itemService.addComment(booker.getId(), item.getId(), second);
+        em.clear();
+
+        List<ItemSummaryDto> summaries = itemService.getUserItemSummaries(item.getOwner().getId(), PageRequest.of(0, 10));
+
+        assertThat(summaries).hasSize(1);
+        ItemSummaryDto summary = summaries.get(0);
+        assertThat(summary.getId()).isEqualTo(item.getId());
+        assertThat(summary.getCommentCount()).isEqualTo(2);
+        assertThat(summary.getLastComment().getId()).isEqualTo(addedComment.getId());
+        assertThat(summary.getLastComment().getText()).isEqualTo("second");
+        assertThat(summary.getLastComment().getAuthorName()).isEqualTo(booker.getName());
+
+        assertThat(itemService.searchItemSummaries("item_", PageRequest.of(0, 10)))
+                .extracting(ItemSummaryDto::getId, ItemSummaryDto::getCommentCount)
+                .containsExactly(tuple(item.getId(), 2), tuple(itemWithoutBookingsAndComments.getId(), 0));
+    }
+
     @Test
     void testGetUserItemsWithBookingIntervals() {
         ArrayList<ItemDto> result = new ArrayList<>(itemService.getUserItemsWithBookingIntervals(1L, PageRequest.of(0, 2000)));
@@ -133,4 +262,67 @@ public class ItemServiceIntegrationTest {
         assertThat(itemDto.getRequestId()).isNull();
 
     }
+
+    @Test
+    void testStreamUserItemsWithBookingIntervals() {
+        List<ItemDto> streamed = new ArrayList<>();
+
+        itemService.streamUserItemsWithBookingIntervals(1L, PageRequest.of(0, 2000), streamed::add);
+
+        assertThat(streamed).containsExactlyElementsOf(itemService.getUserItemsWithBookingIntervals(1L, PageRequest.of(0, 2000)));
+    }
+
+    @Test
+    void testStreamUserItemsWithBookingIntervalsPutsItemsWithoutIntervalsLast() {
+        Item bookedItem = new Item();
+        bookedItem.setName("booked_item");
+        bookedItem.setDescription("item_description");
+        bookedItem.setAvailable(true);
+        bookedItem.setOwner(itemWithoutBookingsAndComments.getOwner());
+
+        Booking booking = new Booking();
+        booking.setStart(lastBooking.getStart());
+        booking.setEnd(lastBooking.getEnd());
+        booking.setItem(bookedItem);
+        booking.setBooker(item.getOwner());
+        booking.setStatus(BookingStatus.APPROVED);
+
+        em.persist(bookedItem);
+        em.persist(booking);
+        em.flush();
+
+        List<ItemDto> streamed = new ArrayList<>();
+        long ownerId = bookedItem.getOwner().getId();
+
+        itemService.streamUserItemsWithBookingIntervals(ownerId, PageRequest.of(0, 2000), streamed::add);
+
+        assertThat(streamed).extracting(ItemDto::getId)
+                .containsExactly(bookedItem.getId(), itemWithoutBookingsAndComments.getId());
+        assertThat(streamed).containsExactlyElementsOf(
+                itemService.getUserItemsWithBookingIntervals(ownerId, PageRequest.of(0, 2000))
+        );
+    }
+
+    @Test
+    void testStreamSearchItems() {
+        List<Item> streamed = new ArrayList<>();
+
+        itemService.streamSearchItems("ITEM", PageRequest.of(0, 2000), streamed::add);
+
+        assertThat(streamed).extracting(Item::getId).containsExactly(item.getId(), itemWithoutBookingsAndComments.getId());
+    }
+
+    @Test
+    void testGetItemAvailability() {
+        LocalDateTime from = lastBooking.getStart().minusDays(3);
+        LocalDateTime to = nextBooking.getEnd().plusDays(3);
+
+        List<AvailabilityWindowDto> windows = itemService.getItemAvailability(2L, 1L, from, to);
+
+        assertThat(windows).containsExactly(
+                AvailabilityWindowDto.builder().start(from).end(lastBooking.getStart()).build(),
+                AvailabilityWindowDto.builder().start(lastBooking.getEnd()).end(nextBooking.getStart()).build(),
+                AvailabilityWindowDto.builder().start(nextBooking.getEnd()).end(to).build()
+        );
+    }
 }
@@ -8,21 +8,32 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.storage.BookingEdges;
+import ru.practicum.shareit.booking.storage.BookingEdgesProjection;
+import ru.practicum.shareit.booking.storage.BookingPeriod;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.dto.AvailabilityWindowDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.exception.AvailabilityPeriodIsNotValidException;
 import ru.practicum.shareit.item.exception.CannotLeaveCommentException;
+import ru.practicum.shareit.item.exception.ItemNotFoundException;
 import ru.practicum.shareit.item.exception.UserIsNotOwnerException;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.CommentRepository;
+import ru.practicum.shareit.item.storage.ItemDetails;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemSearchCache;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.streaming.EntityStreams;
+import ru.practicum.shareit.user.exception.UserNotFoundException;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
@@ -34,7 +45,7 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class ItemServiceUnitTest {
@@ -47,12 +58,27 @@ public class ItemServiceUnitTest {
     @Mock
     private BookingRepository bookingStorage;
 
+    @Mock
+    private ArchivedBookingRepository archivedBookingStorage;
+
+    @Mock
+    private BookingEdgesProjection bookingEdgesProjection;
+
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+
+    @Mock
+    private ItemSearchCache itemSearchCache;
+
     @Mock
     private UserService userService;
 
     @Mock
     private ItemRequestService itemRequestService;
 
+    @Mock
+    private EntityStreams entityStreams;
+
     @InjectMocks
     private ItemServiceImpl itemService;
 
@@ -165,6 +191,24 @@ public class ItemServiceUnitTest {
         assertThat(addedComment).usingRecursiveComparison().isEqualTo(comment);
     }
 
+    @Test
+    void testAddCommentWithArchivedBooking() {
+        when(userService.getUserById(anyLong())).thenReturn(requestor);
+        when(itemStorage.findById(anyLong())).thenReturn(Optional.ofNullable(item));
+        when(
+                bookingStorage.getBookingsByBookerAndItemAndEndIsBeforeAndStatus(any(User.class), any(Item.class), any(LocalDateTime.class), any(BookingStatus.class))
+        ).thenReturn(List.of());
+        when(
+                archivedBookingStorage.existsByBookerIdAndItemIdAndEndBeforeAndStatus(anyLong(), anyLong(), any(LocalDateTime.class), any(BookingStatus.class))
+        ).thenReturn(true);
+        when(commentStorage.save(any(Comment.class))).thenReturn(comment);
+
+        Comment addedComment = itemService.addComment(requestor.getId(), item.getId(), comment);
+
+        assertThat(addedComment).isNotNull();
+        assertThat(addedComment).usingRecursiveComparison().isEqualTo(comment);
+    }
+
     @Test
     void testAddCommentWithoutFinishedBookings() {
         Booking booking = new Booking();
@@ -181,7 +225,6 @@ public class ItemServiceUnitTest {
         comment.setItem(item);
         comment.setCreated(LocalDateTime.of(2023, 4, 20, 10, 0));
 
-
         when(userService.getUserById(anyLong())).thenReturn(requestor);
         when(itemStorage.findById(anyLong())).thenReturn(Optional.ofNullable(item));
         when(
@@ -224,69 +267,85 @@ public class ItemServiceUnitTest {
 
     @Test
     void testGetItemByIdWithBookingIntervals() {
-        Booking lastBooking = new Booking();
-        lastBooking.setStart(LocalDateTime.now().minusDays(7));
-        lastBooking.setEnd(LocalDateTime.now().minusDays(2));
-        lastBooking.setItem(item);
-        lastBooking.setBooker(requestor);
-        lastBooking.setStatus(BookingStatus.WAITING);
-
-        Booking nextBooking = new Booking();
-        nextBooking.setStart(LocalDateTime.now().plusDays(2));
-        nextBooking.setEnd(LocalDateTime.now().plusDays(7));
-        nextBooking.setItem(item);
-        nextBooking.setBooker(requestor);
-        nextBooking.setStatus(BookingStatus.WAITING);
-
         ItemDto expectedItemDto = ItemMapper.toItemDto(item);
         expectedItemDto.setComments(List.of(CommentMapper.toCommentDto(comment)));
 
-        when(itemStorage.findById(anyLong())).thenReturn(Optional.ofNullable(item));
-        when(userService.getUserById(anyLong())).thenReturn(requestor);
-        when(commentStorage.getCommentsByItemIn(anyCollection())).thenReturn(List.of(comment));
-        when(bookingStorage.findBookingsByItemInAndStatusNot(anyCollection(), any(BookingStatus.class))).thenReturn(List.of(lastBooking, nextBooking));
+        when(itemStorage.findItemDetails(eq(item.getId()), eq(requestor.getId()), any(LocalDateTime.class), anyInt()))
+                .thenReturn(Optional.of(new ItemDetails(expectedItemDto, true)));
 
         ItemDto resultItemDto = itemService.getItemByIdWithBookingIntervals(requestor.getId(), item.getId());
 
-        assertThat(resultItemDto).isNotNull();
         assertThat(resultItemDto).isEqualTo(expectedItemDto);
+        verifyNoInteractions(userService, commentStorage, bookingEdgesProjection);
     }
 
     @Test
-    void testGetItemByIdWithBookingIntervalsAsOwnerOfTheItem() {
-        Booking lastBooking = new Booking();
-        lastBooking.setStart(LocalDateTime.now().minusDays(7));
-        lastBooking.setEnd(LocalDateTime.now().minusDays(2));
-        lastBooking.setItem(item);
-        lastBooking.setBooker(requestor);
-        lastBooking.setStatus(BookingStatus.WAITING);
-
-        Booking nextBooking = new Booking();
-        nextBooking.setStart(LocalDateTime.now().plusDays(4));
-        nextBooking.setEnd(LocalDateTime.now().plusDays(5));
-        nextBooking.setItem(item);
-        nextBooking.setBooker(requestor);
-        nextBooking.setStatus(BookingStatus.WAITING);
+    void testGetItemByIdWithBookingIntervalsItemNotFound() {
+        when(itemStorage.findItemDetails(anyLong(), anyLong(), any(LocalDateTime.class), anyInt())).thenReturn(Optional.empty());
+        when(userService.getUserById(anyLong())).thenReturn(requestor);
 
-        ItemDto expectedItemDto = ItemMapper.toItemDto(item);
-        expectedItemDto.setComments(List.of(CommentMapper.toCommentDto(comment)));
-        expectedItemDto.setLastBooking(BookingMapper.toBookingTimeIntervalDto(lastBooking));
-        expectedItemDto.setNextBooking(BookingMapper.toBookingTimeIntervalDto(nextBooking));
+        assertThatThrownBy(() -> itemService.getItemByIdWithBookingIntervals(requestor.getId(), 100L))
+                .isInstanceOf(ItemNotFoundException.class);
+    }
+
+    @Test
+    void testGetItemByIdWithBookingIntervalsUserNotFound() {
+        when(itemStorage.findItemDetails(anyLong(), anyLong(), any(LocalDateTime.class), anyInt()))
+                .thenReturn(Optional.of(new ItemDetails(ItemMapper.toItemDto(item), false)));
+        when(userService.getUserById(anyLong())).thenThrow(new UserNotFoundException(100L));
+
+        assertThatThrownBy(() -> itemService.getItemByIdWithBookingIntervals(100L, item.getId()))
+                .isInstanceOf(UserNotFoundException.class);
+    }
+
+    @Test
+    void testGetItemAvailabilityMergesOverlappingBookings() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(10);
 
+        when(userService.getUserById(anyLong())).thenReturn(requestor);
         when(itemStorage.findById(anyLong())).thenReturn(Optional.ofNullable(item));
-        when(userService.getUserById(anyLong())).thenReturn(owner);
-        when(commentStorage.getCommentsByItemIn(anyCollection())).thenReturn(List.of(comment));
-        when(bookingStorage.findBookingsByItemInAndStatusNot(anyCollection(), any(BookingStatus.class))).thenReturn(List.of(nextBooking, lastBooking));
+        when(bookingStorage.findBookingPeriods(anyLong(), anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(
+                        new BookingPeriod(from.minusDays(1), from.plusDays(1)),
+                        new BookingPeriod(from.plusDays(3), from.plusDays(5)),
+                        new BookingPeriod(from.plusDays(4), from.plusDays(6)),
+                        new BookingPeriod(from.plusDays(4), from.plusDays(5)),
+                        new BookingPeriod(from.plusDays(6), from.plusDays(7))
+                ));
+
+        List<AvailabilityWindowDto> windows = itemService.getItemAvailability(requestor.getId(), item.getId(), from, to);
+
+        assertThat(windows).containsExactly(
+                AvailabilityWindowDto.builder().start(from.plusDays(1)).end(from.plusDays(3)).build(),
+                AvailabilityWindowDto.builder().start(from.plusDays(7)).end(to).build()
+        );
+    }
 
-        ItemDto resultItemDto = itemService.getItemByIdWithBookingIntervals(owner.getId(), item.getId());
+    @Test
+    void testGetItemAvailabilityFullyBooked() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(10);
 
-        assertThat(resultItemDto).isNotNull();
-        assertThat(resultItemDto).isEqualTo(expectedItemDto);
+        when(userService.getUserById(anyLong())).thenReturn(requestor);
+        when(itemStorage.findById(anyLong())).thenReturn(Optional.ofNullable(item));
+        when(bookingStorage.findBookingPeriods(anyLong(), anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(new BookingPeriod(from, to)));
+
+        assertThat(itemService.getItemAvailability(requestor.getId(), item.getId(), from, to)).isEmpty();
+    }
+
+    @Test
+    void testGetItemAvailabilityInvalidPeriod() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        assertThatThrownBy(() -> itemService.getItemAvailability(requestor.getId(), item.getId(), from, from))
+                .isInstanceOf(AvailabilityPeriodIsNotValidException.class);
     }
 
     @Test
     void testSearchItems() {
-        when(itemStorage.searchItems(anyString(), any(Pageable.class))).thenReturn(List.of(item));
+        when(itemSearchCache.search(anyString(), any(Pageable.class))).thenReturn(List.of(item));
 
         Collection<Item> foundItems = itemService.searchItems("item_name", PageRequest.of(0, 2000));
 
@@ -294,6 +353,18 @@ public class ItemServiceUnitTest {
         assertThat(foundItems).contains(item);
     }
 
+    @Test
+    void testSearchItemsFromIndex() {
+        when(itemSearchIndex.isReady()).thenReturn(true);
+        when(itemSearchIndex.search(anyString(), any(Pageable.class))).thenReturn(List.of(item));
+
+        Collection<Item> foundItems = itemService.searchItems("Item_Name", PageRequest.of(0, 2000));
+
+        assertThat(foundItems).containsExactly(item);
+        verify(itemSearchIndex).search("item_name", PageRequest.of(0, 2000));
+        verify(itemSearchCache, never()).search(anyString(), any(Pageable.class));
+    }
+
     @Test
     void testSearchItemsEmptyString() {
         Collection<Item> foundItems = itemService.searchItems("", PageRequest.of(0, 2000));
@@ -184,4 +184,36 @@ public class ItemRepositoryTest {
 
         assertThat(foundItems).isEmpty();
     }
+
+    @Test
+    void testSearchItemsPaged() {
+        em.persist(item);
+        em.persist(itemNotAvail);
+        em.persist(item2);
+        em.persist(item3);
+        em.persist(item4NotAvail);
+        em.flush();
+
+        List<Item> firstPage = itemRepository.searchItems("ключ", PageRequest.of(0, 1));
+        List<Item> secondPage = itemRepository.searchItems("ключ", PageRequest.of(1, 1));
+
+        assertThat(firstPage).containsExactly(item2);
+        assertThat(secondPage).containsExactly(item3);
+    }
+
+    @Test
+    void testFindSearchEntriesAfter() {
+        em.persist(item);
+        em.persist(itemNotAvail);
+        em.persist(item2);
+        em.persist(item3);
+        em.persist(item4NotAvail);
+        em.flush();
+
+        List<ItemSearchEntry> entries = itemRepository.findSearchEntriesAfter(item.getId(), PageRequest.of(0, 1));
+
+        assertThat(entries).containsExactly(
+                new ItemSearchEntry(item2.getId(), item2.getName(), item2.getDescription(), null)
+        );
+    }
 }
@@ -0,0 +1,150 @@
+package ru.practicum.shareit.item.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSearchCacheTest {
+    @Mock
+    private ItemRepository itemStorage;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Pageable page = PageRequest.of(0, 10);
+
+    private ItemSearchCache itemSearchCache;
+
+    private Item drill;
+
+    private Item ladder;
+
+    private Item item(long id, String name, String description) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(true);
+
+        return item;
+    }
+
+    private double count(String name, String tag, String value) {
+        return meterRegistry.counter(name, tag, value).count();
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        itemSearchCache = new ItemSearchCache(itemStorage, meterRegistry, 2, Duration.ofMinutes(5));
+        drill = item(1, "Дрель", "Ударная дрель");
+        ladder = item(2, "Стремянка", "Стремянка на 5 ступеней");
+    }
+
+    @Test
+    void testSearchHit() {
+        when(itemStorage.searchItems("дрель", page)).thenReturn(List.of(drill));
+        when(itemStorage.findAllById(List.of(1L))).thenReturn(List.of(drill));
+
+        assertThat(itemSearchCache.search("дрель", page)).containsExactly(drill);
+        assertThat(itemSearchCache.search("дрель", page)).containsExactly(drill);
+
+        verify(itemStorage, times(1)).searchItems("дрель", page);
+        assertThat(count("shareit.items.search.cache.requests", "result", "miss")).isEqualTo(1);
+        assertThat(count("shareit.items.search.cache.requests", "result", "hit")).isEqualTo(1);
+    }
+
+    @Test
+    void testPagesAreCachedSeparately() {
+        Pageable secondPage = PageRequest.of(1, 10);
+        when(itemStorage.searchItems(eq("дрель"), any(Pageable.class))).thenReturn(List.of(drill), List.of());
+
+        itemSearchCache.search("дрель", page);
+        assertThat(itemSearchCache.search("дрель", secondPage)).isEmpty();
+
+        verify(itemStorage, times(2)).searchItems(eq("дрель"), any(Pageable.class));
+    }
+
+    @Test
+    void testInvalidateMatchingQueryOnly() {
+        when(itemStorage.searchItems(anyString(), eq(page))).thenReturn(List.of(drill), List.of(ladder), List.of(drill));
+
+        itemSearchCache.search("дрель", page);
+        itemSearchCache.search("стремянка", page);
+        itemSearchCache.invalidate(item(3, "Дрель-шуруповерт", "Аккумуляторная"));
+        itemSearchCache.search("дрель", page);
+        when(itemStorage.findAllById(List.of(2L))).thenReturn(List.of(ladder));
+        itemSearchCache.search("стремянка", page);
+
+        verify(itemStorage, times(2)).searchItems("дрель", page);
+        verify(itemStorage, times(1)).searchItems("стремянка", page);
+        assertThat(count("shareit.items.search.cache.evictions", "cause", "invalidated")).isEqualTo(1);
+    }
+
+    @Test
+    void testInvalidateQueryContainingItem() {
+        when(itemStorage.searchItems("дрель", page)).thenReturn(List.of(drill), List.of());
+
+        itemSearchCache.search("дрель", page);
+        drill.setAvailable(false);
+        itemSearchCache.invalidate(drill);
+
+        assertThat(itemSearchCache.search("дрель", page)).isEmpty();
+        verify(itemStorage, times(2)).searchItems("дрель", page);
+    }
+
+    @Test
+    void testInvalidateAllPagesOfQuery() {
+        Pageable secondPage = PageRequest.of(1, 10);
+        Item hammerDrill = item(5, "Перфоратор", "Перфоратор и дрель");
+        when(itemStorage.searchItems(eq("дрель"), any(Pageable.class))).thenReturn(List.of(drill), List.of(hammerDrill));
+
+        itemSearchCache.search("дрель", page);
+        itemSearchCache.search("дрель", secondPage);
+        drill.setAvailable(false);
+        itemSearchCache.invalidate(drill);
+        itemSearchCache.search("дрель", secondPage);
+
+        // Вещь была только на первой странице, но ее исчезновение сдвигает и вторую
+        verify(itemStorage, times(2)).searchItems("дрель", secondPage);
+        assertThat(count("shareit.items.search.cache.evictions", "cause", "invalidated")).isEqualTo(2);
+    }
+
+    @Test
+    void testSizeEviction() {
+        when(itemStorage.searchItems(anyString(), eq(page))).thenReturn(List.of());
+
+        itemSearchCache.search("дрель", page);
+        itemSearchCache.search("стремянка", page);
+        itemSearchCache.search("ключ", page);
+        itemSearchCache.search("дрель", page);
+
+        verify(itemStorage, times(2)).searchItems("дрель", page);
+        assertThat(count("shareit.items.search.cache.evictions", "cause", "size")).isEqualTo(2);
+    }
+
+    @Test
+    void testExpiration() {
+        ItemSearchCache expiringCache = new ItemSearchCache(itemStorage, meterRegistry, 2, Duration.ZERO);
+        when(itemStorage.searchItems("дрель", page)).thenReturn(List.of(drill));
+
+        expiringCache.search("дрель", page);
+        expiringCache.search("дрель", page);
+
+        verify(itemStorage, times(2)).searchItems("дрель", page);
+        assertThat(count("shareit.items.search.cache.evictions", "cause", "expired")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,122 @@
+package ru.practicum.shareit.item.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSearchIndexTest {
+    @Mock
+    private ItemRepository itemStorage;
+
+    private ItemSearchIndex itemSearchIndex;
+
+    private Item item(long id, String name, String description, boolean available) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+
+        return item;
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        itemSearchIndex = new ItemSearchIndex(itemStorage, true);
+
+        when(itemStorage.findSearchEntriesAfter(anyLong(), any(Pageable.class))).thenReturn(List.of(
+                new ItemSearchEntry(1, "Отвертка", "Крестовая отвертка", null),
+                new ItemSearchEntry(2, "Ключ", "Гаечный ключ на 13", 7L),
+                new ItemSearchEntry(3, "Ключ", "Гаечный ключ на 15", null)
+        ));
+        itemSearchIndex.build();
+    }
+
+    @Test
+    void testSearch() {
+        assertThat(itemSearchIndex.isReady()).isTrue();
+
+        List<Item> found = itemSearchIndex.search("ключ", PageRequest.of(0, 10));
+
+        assertThat(found).extracting(Item::getId).containsExactly(2L, 3L);
+        assertThat(found.get(0).getRequest().getId()).isEqualTo(7L);
+        assertThat(found.get(0).getAvailable()).isTrue();
+    }
+
+    @Test
+    void testSearchMatchesSubstringOnly() {
+        assertThat(itemSearchIndex.search("на 15", PageRequest.of(0, 10)))
+                .extracting(Item::getId).containsExactly(3L);
+        assertThat(itemSearchIndex.search("ключ на 14", PageRequest.of(0, 10))).isEmpty();
+        assertThat(itemSearchIndex.search("монитор", PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    void testSearchShortQuery() {
+        assertThat(itemSearchIndex.search("13", PageRequest.of(0, 10)))
+                .extracting(Item::getId).containsExactly(2L);
+    }
+
+    @Test
+    void testSearchPaged() {
+        assertThat(itemSearchIndex.search("ключ", PageRequest.of(1, 1)))
+                .extracting(Item::getId).containsExactly(3L);
+    }
+
+    @Test
+    void testUpdate() {
+        itemSearchIndex.update(item(1, "Дрель", "Ударная дрель", true));
+        itemSearchIndex.update(item(2, "Ключ", "Гаечный ключ на 13", false));
+        itemSearchIndex.update(item(4, "Ключ разводной", "Разводной ключ", true));
+
+        assertThat(itemSearchIndex.search("отвертка", PageRequest.of(0, 10))).isEmpty();
+        assertThat(itemSearchIndex.search("дрель", PageRequest.of(0, 10)))
+                .extracting(Item::getId).containsExactly(1L);
+        assertThat(itemSearchIndex.search("ключ", PageRequest.of(0, 10)))
+                .extracting(Item::getId).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void testBuildKeepsUpdatesCommittedDuringScan() {
+        ItemSearchIndex rebuiltIndex = new ItemSearchIndex(itemStorage, true);
+        when(itemStorage.findSearchEntriesAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            List<ItemSearchEntry> staleRows = List.of(
+                    new ItemSearchEntry(1, "Отвертка", "Крестовая отвертка", null),
+                    new ItemSearchEntry(2, "Ключ", "Гаечный ключ на 13", null)
+            );
+            // Изменения коммитятся после чтения порции, но до того, как она попала в индекс
+            rebuiltIndex.update(item(1, "Дрель", "Ударная дрель", true));
+            rebuiltIndex.update(item(2, "Ключ", "Гаечный ключ на 13", false));
+            return staleRows;
+        });
+
+        rebuiltIndex.build();
+
+        assertThat(rebuiltIndex.search("отвертка", PageRequest.of(0, 10))).isEmpty();
+        assertThat(rebuiltIndex.search("дрель", PageRequest.of(0, 10)))
+                .extracting(Item::getId).containsExactly(1L);
+        assertThat(rebuiltIndex.search("ключ", PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    void testDisabledIndexIsNotReady() {
+        ItemSearchIndex disabledIndex = new ItemSearchIndex(itemStorage, false);
+
+        disabledIndex.build();
+
+        assertThat(disabledIndex.isReady()).isFalse();
+    }
+}
@@ -0,0 +1,110 @@
+package ru.practicum.shareit.item.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import ru.practicum.shareit.QueryCountInspector;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Порядок выдачи поиска с ранжированием pg_trgm. В H2 функция similarity подменяется реализацией на Java
+ * с тем же разбиением на триграммы, что и в pg_trgm.
+ */
+@DataJpaTest(properties = {
+        "shareit.item.search.trigram.enabled=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=ru.practicum.shareit.QueryCountInspector"
+})
+@ContextConfiguration(classes = ShareItServer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ItemSearchRepositoryTest {
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    private User owner;
+
+    public static double similarity(String first, String second) {
+        Set<String> firstTrigrams = trigrams(first);
+        Set<String> secondTrigrams = trigrams(second);
+        if (firstTrigrams.isEmpty() || secondTrigrams.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> shared = new HashSet<>(firstTrigrams);
+        shared.retainAll(secondTrigrams);
+        return (double) shared.size() / (firstTrigrams.size() + secondTrigrams.size() - shared.size());
+    }
+
+    private static Set<String> trigrams(String value) {
+        Set<String> trigrams = new HashSet<>();
+        for (String word : value.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+        }
+
+        return trigrams;
+    }
+
+    private Item item(String name, String description) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(true);
+        item.setOwner(owner);
+        em.persist(item);
+
+        return item;
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        em.createNativeQuery("CREATE ALIAS IF NOT EXISTS similarity FOR \"" +
+                ItemSearchRepositoryTest.class.getName() + ".similarity\"").executeUpdate();
+
+        owner = new User();
+        owner.setName("John");
+        owner.setEmail("john.doe@mail.com");
+        em.persist(owner);
+    }
+
+    @Test
+    void testSearchItemsOrderedBySimilarityThenId() {
+        Item longName = item("Ударная дрель Bosch", "Сетевая");
+        Item exactName = item("Дрель", "Аккумуляторная");
+        Item sameAsExactName = item("Дрель", "Аккумуляторная");
+        Item descriptionOnly = item("Перфоратор", "Может работать как дрель");
+        em.flush();
+        em.clear();
+        QueryCountInspector.reset();
+
+        List<Item> found = itemRepository.searchItems("дрель", PageRequest.of(0, 10));
+
+        assertThat(found).extracting(Item::getId).containsExactly(
+                exactName.getId(), sameAsExactName.getId(), longName.getId(), descriptionOnly.getId()
+        );
+        assertThat(QueryCountInspector.statements()).anySatisfy(sql -> assertThat(sql).contains(
+                "ORDER BY similarity(LOWER(it.name), ?) DESC, similarity(LOWER(it.description), ?) DESC, it.id"
+        ));
+    }
+}
@@ -10,10 +10,12 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemView;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.request.storage.ItemRequestView;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
@@ -94,13 +96,17 @@ public class ItemRequestServiceUnitTest {
     @Test
     void testGetAllOtherUsersRequests() {
         when(userService.getUserById(anyLong())).thenReturn(owner);
-        when(itemRequestStorage.findItemRequestsByRequestorNot(any(User.class), any(Pageable.class))).thenReturn(List.of(itemRequest));
-        when(itemStorage.findItemsByRequestIn(anyCollection())).thenReturn(List.of(item));
+        when(itemRequestStorage.findItemRequestViewsByRequestorIdNot(anyLong(), any(Pageable.class))).thenReturn(List.of(
+                new ItemRequestView(itemRequest.getId(), itemRequest.getDescription(), itemRequest.getCreated()),
+                new ItemRequestView(2L, "unanswered", itemRequest.getCreated())
+        ));
+        when(itemStorage.findItemViewsByRequestIdIn(anyCollection())).thenReturn(List.of(
+                new ItemView(item.getId(), item.getName(), item.getDescription(), item.getAvailable(), itemRequest.getId())
+        ));
 
         Collection<ItemRequestResponseDto> resultRequests = itemRequestService.getAllOtherUsersRequests(owner.getId(), PageRequest.of(0, 2000));
 
-        assertThat(resultRequests).isNotEmpty();
-        assertThat(resultRequests).contains(ItemRequestMapper.toItemRequestResponseDto(itemRequest, List.of(item)));
+        assertThat(resultRequests).containsExactly(ItemRequestMapper.toItemRequestResponseDto(itemRequest, List.of(item)));
     }
 
     @Test
@@ -0,0 +1,105 @@
+package ru.practicum.shareit.streaming;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(classes = ShareItServer.class)
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class NdjsonStreamingTest {
+    private final EntityManager em;
+
+    private final MockMvc mvc;
+
+    private User owner;
+
+    private Item item(String name) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription("description");
+        item.setAvailable(true);
+        item.setOwner(owner);
+
+        return item;
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        owner = new User();
+        owner.setName("John");
+        owner.setEmail("john.doe@mail.com");
+
+        em.persist(owner);
+        em.persist(item("Drill"));
+        em.persist(item("Ladder"));
+        em.flush();
+    }
+
+    @Test
+    void testStreamUserItems() throws Exception {
+        mvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(matchesPattern("\\{\"id\":\\d+,\"name\":\"Drill\".*}\n\\{\"id\":\\d+,\"name\":\"Ladder\".*}\n")));
+    }
+
+    @Test
+    void testStreamSearchItems() throws Exception {
+        mvc.perform(get("/items/search")
+                        .param("text", "drill")
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().string(matchesPattern("\\{\"id\":\\d+,\"name\":\"Drill\".*}\n")));
+    }
+
+    @Test
+    void testStreamEmptyResult() throws Exception {
+        mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testStreamUnknownUser() throws Exception {
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 100)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message", notNullValue()));
+    }
+
+    @Test
+    void testAnyAcceptedTypeKeepsJsonArray() throws Exception {
+        mvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+}
@@ -0,0 +1,139 @@
+package ru.practicum.shareit.user.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserCacheTest {
+    @Mock
+    private UserRepository userStorage;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private UserCache userCache;
+
+    private User john;
+
+    private User user(long id, String name, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        user.setEmail(email);
+
+        return user;
+    }
+
+    private double count(String result) {
+        return meterRegistry.counter("shareit.users.cache.requests", "result", result).count();
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        userCache = new UserCache(userStorage, meterRegistry, 2, Duration.ofMinutes(5));
+        john = user(1, "John", "john@mail.com");
+    }
+
+    @AfterEach
+    void afterEach() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testSharedHit() {
+        when(userStorage.findById(1L)).thenReturn(Optional.of(john));
+
+        assertThat(userCache.get(1)).contains(john);
+        assertThat(userCache.get(1)).contains(john);
+
+        verify(userStorage, times(1)).findById(1L);
+        assertThat(count("miss")).isEqualTo(1);
+        assertThat(count("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void testRequestHit() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        when(userStorage.findById(1L)).thenReturn(Optional.of(john));
+
+        userCache.get(1);
+        userCache.get(1);
+
+        verify(userStorage, times(1)).findById(1L);
+        assertThat(count("request-hit")).isEqualTo(1);
+        assertThat(count("hit")).isZero();
+    }
+
+    @Test
+    void testMissingUserIsNotCached() {
+        when(userStorage.findById(1L)).thenReturn(Optional.empty());
+
+        assertThat(userCache.get(1)).isEmpty();
+        assertThat(userCache.get(1)).isEmpty();
+
+        verify(userStorage, times(2)).findById(1L);
+    }
+
+    @Test
+    void testReturnsCopies() {
+        when(userStorage.findById(1L)).thenReturn(Optional.of(john));
+
+        User first = userCache.get(1).orElseThrow();
+        first.setName("Changed");
+
+        assertThat(userCache.get(1)).get().extracting(User::getName).isEqualTo("John");
+    }
+
+    @Test
+    void testInvalidate() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        when(userStorage.findById(1L)).thenReturn(Optional.of(john), Optional.of(user(1, "Johnny", "john@mail.com")));
+
+        userCache.get(1);
+        userCache.invalidate(1);
+
+        assertThat(userCache.get(1)).get().extracting(User::getName).isEqualTo("Johnny");
+        verify(userStorage, times(2)).findById(1L);
+    }
+
+    @Test
+    void testSizeEviction() {
+        when(userStorage.findById(anyLong())).thenAnswer(invocation -> {
+            long id = invocation.getArgument(0);
+            return Optional.of(user(id, "User " + id, "user" + id + "@mail.com"));
+        });
+
+        userCache.get(1);
+        userCache.get(2);
+        userCache.get(3);
+        userCache.get(1);
+
+        verify(userStorage, times(2)).findById(1L);
+    }
+
+    @Test
+    void testExpiration() {
+        UserCache expiringCache = new UserCache(userStorage, meterRegistry, 2, Duration.ZERO);
+        when(userStorage.findById(1L)).thenReturn(Optional.of(john));
+
+        expiringCache.get(1);
+        expiringCache.get(1);
+
+        verify(userStorage, times(2)).findById(1L);
+    }
+}
@@ -19,30 +19,58 @@ CREATE TABLE IF NOT EXISTS item_requests
 
 CREATE TABLE IF NOT EXISTS items
 (
-    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
-    name        VARCHAR(255)  NOT NULL,
-    description VARCHAR(1000) NOT NULL,
-    available   bool          NOT NULL,
-    owner       BIGINT        NOT NULL,
-    request     BIGINT,
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name          VARCHAR(255)  NOT NULL,
+    description   VARCHAR(1000) NOT NULL,
+    available     bool          NOT NULL,
+    owner         BIGINT        NOT NULL,
+    request       BIGINT,
+    comment_count INTEGER       NOT NULL DEFAULT 0,
+    last_comment  BIGINT,
     CONSTRAINT pk_item_id PRIMARY KEY (id),
     CONSTRAINT fk_item_owner FOREIGN KEY (owner) REFERENCES users (id),
     CONSTRAINT fk_item_request FOREIGN KEY (request) REFERENCES item_requests (id)
 );
 
+ALTER TABLE items ADD COLUMN IF NOT EXISTS comment_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS last_comment BIGINT;
+
+CREATE INDEX IF NOT EXISTS ix_items_owner ON items (owner, id);
+
+CREATE SEQUENCE IF NOT EXISTS booking_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS bookings
 (
-    id       BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    id       BIGINT                      NOT NULL,
     start_ts TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     end_ts   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     item     BIGINT                      NOT NULL,
     booker   BIGINT,
     status   VARCHAR(20),
+    version  BIGINT                      NOT NULL DEFAULT 0,
     CONSTRAINT pk_booking_id PRIMARY KEY (id),
     CONSTRAINT fk_booking_item FOREIGN KEY (item) REFERENCES items (id),
     CONSTRAINT fk_booking_booker FOREIGN KEY (booker) REFERENCES users (id)
 );
 
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_start ON bookings (booker, start_ts DESC, id DESC);
+CREATE INDEX IF NOT EXISTS ix_bookings_item_start ON bookings (item, start_ts DESC);
+
+CREATE TABLE IF NOT EXISTS bookings_archive
+(
+    id       BIGINT                      NOT NULL,
+    start_ts TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_ts   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item     BIGINT                      NOT NULL,
+    booker   BIGINT,
+    status   VARCHAR(20),
+    CONSTRAINT pk_booking_archive_id PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS ix_bookings_archive_booker_item ON bookings_archive (booker, item);
+
 CREATE TABLE IF NOT EXISTS comments
 (
     id      BIGINT GENERATED BY DEFAULT AS IDENTITY,
@@ -54,3 +82,16 @@ CREATE TABLE IF NOT EXISTS comments
     CONSTRAINT fk_comment_item FOREIGN KEY (item) REFERENCES items (id),
     CONSTRAINT fk_comment_author FOREIGN KEY (author) REFERENCES users (id)
 );
+
+CREATE INDEX IF NOT EXISTS ix_comments_item_created ON comments (item, created DESC, id DESC);
+
+UPDATE items
+SET comment_count = (SELECT COUNT(*) FROM comments c WHERE c.item = items.id),
+    last_comment  = (SELECT MAX(c.id) FROM comments c WHERE c.item = items.id)
+WHERE last_comment IS NULL
+  AND EXISTS (SELECT 1 FROM comments c WHERE c.item = items.id);
+
+-- Hibernate выдает id пачками по 50 начиная со значения последовательности: сдвигаем ее за уже занятые id
+ALTER SEQUENCE booking_seq RESTART WITH (SELECT GREATEST(
+    (SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'BOOKING_SEQ'),
+    (SELECT COALESCE(MAX(id), 0) + 50 FROM (SELECT id FROM bookings UNION ALL SELECT id FROM bookings_archive) ids)));